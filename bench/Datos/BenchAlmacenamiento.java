@@ -0,0 +1,107 @@
+package Datos;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// Compara la matriz plana (MatrizDensa) con el diseño anterior de int[][] por fila:
+// tiempo por paso k de Floyd y bytes asignados al agregar ciudades una a una.
+// Floyd completo con n = 5 000 tarda minutos, así que se mide un número fijo de pasos k.
+// Uso: java Datos.BenchAlmacenamiento [n...]   (por defecto 500 2000 5000)
+public class BenchAlmacenamiento {
+    private static final int INF = Integer.MAX_VALUE / 2;
+
+    public static void main(String[] args) {
+        int[] tamanos = args.length > 0 ? new int[args.length] : new int[]{500, 2000, 5000};
+        for (int a = 0; a < args.length; a++) tamanos[a] = Integer.parseInt(args[a]);
+
+        for (int n : tamanos) {
+            int pasos = (int) Math.max(5, Math.min(n, 200_000_000L / ((long) n * n)));
+            int[][] anidada = generar(n);
+            int[] plana = new int[n * n];
+            for (int i = 0; i < n; i++) System.arraycopy(anidada[i], 0, plana, i * n, n);
+            int[][] rutasAnidadas = new int[n][n];
+            int[] rutasPlanas = new int[n * n];
+
+            // Calentamiento y medición alternada
+            floydAnidado(anidada, rutasAnidadas, n, pasos);
+            floydPlano(plana, rutasPlanas, n, pasos);
+            long t0 = System.nanoTime();
+            floydAnidado(anidada, rutasAnidadas, n, pasos);
+            long t1 = System.nanoTime();
+            floydPlano(plana, rutasPlanas, n, pasos);
+            long t2 = System.nanoTime();
+
+            System.out.printf("n=%d  Floyd por paso k: int[][] %.3f ms, plana %.3f ms%n",
+                    n, (t1 - t0) / 1e6 / pasos, (t2 - t1) / 1e6 / pasos);
+            int nAnidado = Math.min(n, 2000);
+            System.out.printf("       agregar ciudades: int[][] %,d bytes (%d ciudades), plana %,d bytes, compacta %,d bytes (%d ciudades)%n",
+                    bytesCrecimientoAnidado(nAnidado), nAnidado, bytesCrecimientoPlano(n, false), bytesCrecimientoPlano(n, true), n);
+        }
+    }
+
+    private static int[][] generar(int n) {
+        Random random = new Random(n);
+        int[][] pesos = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            java.util.Arrays.fill(pesos[i], INF);
+            for (int e = 0; e < 5; e++) pesos[i][random.nextInt(n)] = 1 + random.nextInt(20);
+            pesos[i][(i + 1) % n] = 1 + random.nextInt(20);
+        }
+        return pesos;
+    }
+
+    private static void floydAnidado(int[][] d, int[][] r, int n, int pasos) {
+        for (int k = 0; k < pasos; k++)
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    if (d[i][k] != INF && d[k][j] != INF && d[i][k] + d[k][j] < d[i][j]) {
+                        d[i][j] = d[i][k] + d[k][j];
+                        r[i][j] = r[k][j];
+                    }
+    }
+
+    private static void floydPlano(int[] d, int[] r, int n, int pasos) {
+        for (int k = 0; k < pasos; k++) {
+            int filaK = k * n;
+            for (int i = 0; i < n; i++) {
+                int filaI = i * n;
+                int dik = d[filaI + k];
+                if (dik == INF) continue;
+                for (int j = 0; j < n; j++) {
+                    int dkj = d[filaK + j];
+                    if (dkj != INF && dik + dkj < d[filaI + j]) {
+                        d[filaI + j] = dik + dkj;
+                        r[filaI + j] = r[filaK + j];
+                    }
+                }
+            }
+        }
+    }
+
+    // Diseño anterior: cada ciudad nueva realoja y copia las cuatro capas completas.
+    // Se limita a 2 000 ciudades porque el total crece de forma cúbica
+    private static long bytesCrecimientoAnidado(int n) {
+        long antes = asignados();
+        int[][][] pesos = new int[4][0][0];
+        for (int m = 1; m <= n; m++) {
+            int[][][] nuevos = new int[4][m][m];
+            for (int c = 0; c < 4; c++)
+                for (int i = 0; i < m - 1; i++)
+                    System.arraycopy(pesos[c][i], 0, nuevos[c][i], 0, m - 1);
+            pesos = nuevos;
+        }
+        return asignados() - antes;
+    }
+
+    private static long bytesCrecimientoPlano(int n, boolean compacta) {
+        long antes = asignados();
+        MatrizPesos pesos = new MatrizPesos(0, compacta);
+        for (int m = 1; m <= n; m++) pesos.crecer(m);
+        return asignados() - antes;
+    }
+
+    private static long asignados() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
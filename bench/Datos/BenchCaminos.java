@@ -0,0 +1,59 @@
+package Datos;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+// Compara caminoMasCorto con lista de nombres contra la versión por índices con BufferRuta:
+// tiempo y bytes asignados por consulta. Uso: java Datos.BenchCaminos [n] [consultas]
+public class BenchCaminos {
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int consultas = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        Grafo grafo = GeneradorGrafos.aleatorio(n, 4, 21);
+
+        int[] origenes = new int[consultas];
+        int[] destinos = new int[consultas];
+        String[] nombresOrigen = new String[consultas];
+        String[] nombresDestino = new String[consultas];
+        Random random = new Random(2);
+        for (int q = 0; q < consultas; q++) {
+            origenes[q] = random.nextInt(n);
+            destinos[q] = random.nextInt(n);
+            nombresOrigen[q] = grafo.getCiudad(origenes[q]).getNombre();
+            nombresDestino[q] = grafo.getCiudad(destinos[q]).getNombre();
+        }
+
+        BufferRuta buffer = new BufferRuta(n);
+        for (int r = 0; r < 3; r++) {
+            long bytes = asignados();
+            long inicio = System.nanoTime();
+            long control = 0;
+            for (int q = 0; q < consultas; q++) {
+                List<String> camino = grafo.caminoMasCorto(nombresOrigen[q], nombresDestino[q]);
+                control += camino.size();
+            }
+            long tLista = System.nanoTime() - inicio;
+            long bLista = asignados() - bytes;
+
+            bytes = asignados();
+            inicio = System.nanoTime();
+            for (int q = 0; q < consultas; q++) {
+                grafo.caminoMasCorto(origenes[q], destinos[q], buffer);
+                control -= buffer.getLongitud();
+            }
+            long tBuffer = System.nanoTime() - inicio;
+            long bBuffer = asignados() - bytes;
+
+            System.out.printf("ronda %d: lista %.0f ns y %.1f B/consulta; buffer %.0f ns y %.1f B/consulta (control %d)%n",
+                    r + 1, (double) tLista / consultas, (double) bLista / consultas,
+                    (double) tBuffer / consultas, (double) bBuffer / consultas, control);
+        }
+    }
+
+    private static long asignados() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,34 @@
+package Datos;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Mide la carga masiva de un archivo sintético: lectura, filas/s y el único cálculo de Floyd,
+// y la compara con arrancar desde el archivo binario guardado con guardarBinario.
+// Uso: java Datos.BenchCarga [n] [grado]
+public class BenchCarga {
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int grado = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Path archivo = GeneradorGrafos.generarArchivo(n, grado, 3);
+        Path binario = Files.createTempFile("bench", ".bin");
+
+        Grafo grafo = null;
+        for (int r = 0; r < 3; r++) {
+            grafo = new Grafo();
+            grafo.cargarDesdeArchivo(archivo.toString());
+            System.out.println("carga " + (r + 1) + ": " + grafo.getUltimaCarga());
+        }
+
+        grafo.guardarBinario(binario.toString());
+        System.out.printf("binario: %.1f MB%n", Files.size(binario) / 1e6);
+        for (int r = 0; r < 3; r++) {
+            long inicio = System.nanoTime();
+            new Grafo().cargarBinario(binario.toString());
+            System.out.printf("carga binaria %d: %.1f ms%n", r + 1, (System.nanoTime() - inicio) / 1e6);
+        }
+        Files.delete(binario);
+        Files.delete(archivo);
+    }
+}
@@ -0,0 +1,36 @@
+package Datos;
+
+import java.util.Random;
+
+// Carga una red grande en modo disperso y mide consultas punto a punto con Dijkstra y con A* bidireccional.
+// Uso: java Datos.BenchDisperso [n] [grado] [consultas] [puntosReferencia]
+public class BenchDisperso {
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int grado = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int consultas = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int puntos = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+
+        Grafo grafo = GeneradorGrafos.aleatorio(n, grado, 13);
+        System.out.println("modo disperso: " + grafo.esDisperso() + ", carga: " + grafo.getUltimaCarga());
+
+        medir(grafo, "Dijkstra", n, consultas);
+        long inicio = System.nanoTime();
+        grafo.setPuntosReferencia(puntos);
+        grafo.getDistancia("C0", "C1");
+        System.out.printf("%d puntos de referencia en %.1f ms%n", puntos, (System.nanoTime() - inicio) / 1e6);
+        medir(grafo, "A* bidireccional", n, consultas);
+    }
+
+    private static void medir(Grafo grafo, String nombre, int n, int consultas) {
+        Random random = new Random(5);
+        for (int q = 0; q < consultas / 4; q++)
+            grafo.getDistancia("C" + random.nextInt(n), "C" + random.nextInt(n));
+        long inicio = System.nanoTime();
+        long suma = 0;
+        for (int q = 0; q < consultas; q++)
+            suma += grafo.getDistancia("C" + random.nextInt(n), "C" + random.nextInt(n));
+        System.out.printf("%s: %.3f ms/consulta (control %d)%n", nombre, (System.nanoTime() - inicio) / 1e6 / consultas, suma);
+    }
+}
@@ -0,0 +1,61 @@
+package Datos;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Curva de escalado de FloydBloques según el número de hilos, comparada con FloydSecuencial.
+// Verifica además que la salida sea idéntica. Uso: java Datos.BenchFloydParalelo [n] [bloque]
+public class BenchFloydParalelo {
+    private static final int INF = MotorRutas.INF;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1500;
+        int bloque = args.length > 1 ? Integer.parseInt(args[1]) : FloydBloques.BLOQUE_POR_DEFECTO;
+        int[][] inicial = generar(n, 6, 5);
+
+        double secuencial = medir(new FloydSecuencial(), inicial, n, null);
+        System.out.printf("n=%d secuencial: %.1f ms%n", n, secuencial);
+        int[][] referencia = ejecutar(new FloydSecuencial(), inicial, n);
+
+        int nucleos = Runtime.getRuntime().availableProcessors();
+        for (int hilos = 1; hilos <= nucleos; hilos = hilos < nucleos && hilos * 2 > nucleos ? nucleos : hilos * 2) {
+            double ms = medir(new FloydBloques(bloque, hilos), inicial, n, referencia);
+            System.out.printf("bloques b=%d hilos=%d: %.1f ms (%.2fx)%n", bloque, hilos, ms, secuencial / ms);
+        }
+    }
+
+    private static int[][] generar(int n, int grado, long semilla) {
+        Random random = new Random(semilla);
+        int[] d = new int[n * n];
+        int[] r = new int[n * n];
+        Arrays.fill(d, INF);
+        Arrays.fill(r, -1);
+        for (int i = 0; i < n; i++)
+            for (int e = 0; e < grado; e++) {
+                int j = e == 0 ? (i + 1) % n : random.nextInt(n);
+                d[i * n + j] = 1 + random.nextInt(20);
+                if (i != j) r[i * n + j] = i;
+            }
+        return new int[][]{d, r};
+    }
+
+    private static int[][] ejecutar(MotorRutas motor, int[][] inicial, int n) {
+        int[][] m = {inicial[0].clone(), inicial[1].clone()};
+        motor.calcular(m[0], m[1], n, n);
+        return m;
+    }
+
+    // Mejor de tres ejecuciones tras una de calentamiento
+    private static double medir(MotorRutas motor, int[][] inicial, int n, int[][] referencia) {
+        int[][] resultado = ejecutar(motor, inicial, n);
+        if (referencia != null && (!Arrays.equals(resultado[0], referencia[0]) || !Arrays.equals(resultado[1], referencia[1])))
+            throw new IllegalStateException("El resultado difiere del Floyd secuencial");
+        double mejor = Double.MAX_VALUE;
+        for (int r = 0; r < 3; r++) {
+            long inicio = System.nanoTime();
+            ejecutar(motor, inicial, n);
+            mejor = Math.min(mejor, (System.nanoTime() - inicio) / 1e6);
+        }
+        return mejor;
+    }
+}
@@ -0,0 +1,46 @@
+package Datos;
+
+import java.util.Random;
+
+// Compara la latencia de editar una arista (actualización incremental) contra recalcularFloyd() completo.
+// Uso: java Datos.BenchIncremental [n] [grado] [ediciones]
+public class BenchIncremental {
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int grado = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int ediciones = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        Grafo grafo = GeneradorGrafos.aleatorio(n, grado, 7);
+        Random random = new Random(11);
+
+        // Calentamiento del JIT
+        for (int r = 0; r < 5; r++) grafo.recalcularFloyd();
+        editar(grafo, random, n, ediciones / 4);
+
+        long inicio = System.nanoTime();
+        editar(grafo, random, n, ediciones);
+        double incrementalMs = (System.nanoTime() - inicio) / 1e6 / (2.0 * ediciones);
+
+        int completos = Math.max(3, Math.min(20, ediciones / 10));
+        inicio = System.nanoTime();
+        for (int r = 0; r < completos; r++) grafo.recalcularFloyd();
+        double completoMs = (System.nanoTime() - inicio) / 1e6 / completos;
+
+        System.out.printf("n=%d grado=%d ediciones=%d%n", n, grado, 2 * ediciones);
+        System.out.printf("incremental: %.3f ms/edición%n", incrementalMs);
+        System.out.printf("Floyd completo: %.3f ms/recalculo%n", completoMs);
+        System.out.printf("aceleración: %.1fx%n", completoMs / incrementalMs);
+    }
+
+    // Cada iteración cierra una carretera (sube el peso) y abre otra más barata (lo baja)
+    private static void editar(Grafo grafo, Random random, int n, int veces) {
+        for (int e = 0; e < veces; e++) {
+            String a = "C" + random.nextInt(n);
+            String b = "C" + random.nextInt(n);
+            grafo.eliminarConexion(a, b);
+            int w = 1 + random.nextInt(20);
+            grafo.agregarConexion("C" + random.nextInt(n), "C" + random.nextInt(n), new int[]{w, w + 2, w + 4, w + 6});
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package Datos;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Red grande en modo disperso: preproceso de la jerarquía de contracción, tamaño del índice y consultas
+// frente a Dijkstra, más el coste de rehacerla con el mismo orden tras cambiar una conexión.
+// Uso: java Datos.BenchJerarquias [cuadricula|aleatorio] [n] [consultas]
+public class BenchJerarquias {
+
+    public static void main(String[] args) throws Exception {
+        String tipo = args.length > 0 ? args[0] : "cuadricula";
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 250_000;
+        int consultas = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        int lado = (int) Math.sqrt(n);
+        Path archivo = tipo.equals("aleatorio") ? GeneradorGrafos.generarArchivo(n, 3, 13)
+                : GeneradorGrafos.generarCuadricula(lado, 13);
+        if (!tipo.equals("aleatorio")) n = lado * lado;
+        Grafo grafo = new Grafo();
+        grafo.setModo(Grafo.Modo.DISPERSO);
+        grafo.cargarDesdeArchivo(archivo.toString());
+        System.out.println(tipo + ", " + n + " ciudades, carga: " + grafo.getUltimaCarga());
+
+        double dijkstra = medir(grafo, n, consultas / 4, 11);
+        System.out.printf("Dijkstra: %.3f ms/consulta%n", dijkstra);
+
+        long inicio = System.nanoTime();
+        grafo.setJerarquias(true);
+        JerarquiaContraccion jerarquia = grafo.getJerarquia();
+        System.out.printf("jerarquía: %.0f ms, %d atajos, %.1f MB%n", (System.nanoTime() - inicio) / 1e6,
+                jerarquia.getNumeroAtajos(), jerarquia.bytes() / 1e6);
+        medir(grafo, n, consultas, 3); // Calentamiento
+        System.out.printf("jerarquía: %.4f ms/consulta%n", medir(grafo, n, consultas, 11));
+
+        Path indice = Files.createTempFile("jerarquia", ".bin");
+        inicio = System.nanoTime();
+        jerarquia.guardar(indice);
+        long guardado = System.nanoTime() - inicio;
+        inicio = System.nanoTime();
+        JerarquiaContraccion.cargar(indice);
+        System.out.printf("guardar: %.0f ms, cargar: %.0f ms, %.1f MB en disco%n", guardado / 1e6,
+                (System.nanoTime() - inicio) / 1e6, Files.size(indice) / 1e6);
+        Files.delete(indice);
+
+        inicio = System.nanoTime();
+        grafo.agregarConexion("C0", "C1", new int[]{1, 1, 1, 1});
+        grafo.getJerarquia();
+        System.out.printf("rehacer con el mismo orden tras un cambio: %.0f ms%n", (System.nanoTime() - inicio) / 1e6);
+    }
+
+    private static double medir(Grafo grafo, int n, int consultas, long semilla) {
+        Random random = new Random(semilla);
+        long inicio = System.nanoTime();
+        long suma = 0;
+        for (int q = 0; q < consultas; q++)
+            suma += grafo.getDistancia("C" + random.nextInt(n), "C" + random.nextInt(n));
+        if (suma == 42) System.out.println();
+        return (System.nanoTime() - inicio) / 1e6 / consultas;
+    }
+}
@@ -0,0 +1,63 @@
+package Datos;
+
+import java.util.Random;
+
+// Compara aplicar una ráfaga de cierres y aperturas de carreteras llamada a llamada contra un solo lote.
+// Uso: java Datos.BenchLotes [n] [grado] [cambios]
+public class BenchLotes {
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int grado = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int cambios = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        Grafo separado = GeneradorGrafos.aleatorio(n, grado, 7);
+        Grafo agrupado = GeneradorGrafos.aleatorio(n, grado, 7);
+
+        // Calentamiento del JIT con ráfagas distintas a las medidas
+        for (int r = 0; r < 3; r++) {
+            rafagaSeparada(separado, new Random(r), n, cambios);
+            agrupado.lote(b -> rafaga(b, new Random(1000), n, cambios));
+        }
+
+        long inicio = System.nanoTime();
+        rafagaSeparada(separado, new Random(42), n, cambios);
+        double separadoMs = (System.nanoTime() - inicio) / 1e6;
+
+        inicio = System.nanoTime();
+        agrupado.lote(b -> rafaga(b, new Random(42), n, cambios));
+        double loteMs = (System.nanoTime() - inicio) / 1e6;
+
+        System.out.printf("n=%d grado=%d cambios=%d%n", n, grado, cambios);
+        System.out.printf("llamadas separadas: %.1f ms%n", separadoMs);
+        System.out.printf("un lote: %.1f ms (%.1fx)%n", loteMs, separadoMs / loteMs);
+        System.out.println(agrupado.getEstadisticasLotes());
+    }
+
+    // La mitad de los cambios cierra carreteras y la otra mitad abre otras
+    private static void rafaga(LoteCambios lote, Random random, int n, int cambios) {
+        for (int e = 0; e < cambios; e++) {
+            String a = "C" + random.nextInt(n);
+            String b = "C" + random.nextInt(n);
+            if (e % 2 == 0) {
+                lote.eliminar(a, b);
+            } else {
+                int w = 1 + random.nextInt(20);
+                lote.agregar(a, b, new int[]{w, w + 2, w + 4, w + 6});
+            }
+        }
+    }
+
+    private static void rafagaSeparada(Grafo grafo, Random random, int n, int cambios) {
+        for (int e = 0; e < cambios; e++) {
+            String a = "C" + random.nextInt(n);
+            String b = "C" + random.nextInt(n);
+            if (e % 2 == 0) {
+                grafo.eliminarConexion(a, b);
+            } else {
+                int w = 1 + random.nextInt(20);
+                grafo.agregarConexion(a, b, new int[]{w, w + 2, w + 4, w + 6});
+            }
+        }
+    }
+}
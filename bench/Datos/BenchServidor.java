@@ -0,0 +1,88 @@
+package Datos;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Generador de carga contra ServidorRutas en localhost: varios clientes en bucle cerrado piden
+// /ruta con pares aleatorios (o /lote con varios pares por petición) y se mide latencia p50/p99 y QPS.
+// Uso: java Datos.BenchServidor [n] [clientes] [segundos] [paresPorLote]
+public class BenchServidor {
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int clientes = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int paresPorLote = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        Grafo grafo = GeneradorGrafos.aleatorio(n, 4, 7);
+        Main.activarNoDelay();
+        ServidorRutas servidor = new ServidorRutas(grafo, 0);
+        servidor.iniciar();
+        String base = "http://localhost:" + servidor.getPuerto();
+        HttpClient cliente = HttpClient.newHttpClient();
+
+        // Calentamiento: un par de segundos sin medir
+        ejecutar(cliente, base, n, clientes, 2, paresPorLote, new long[1 << 20], new AtomicLong());
+
+        long[] latencias = new long[1 << 22];
+        AtomicLong total = new AtomicLong();
+        long inicio = System.nanoTime();
+        ejecutar(cliente, base, n, clientes, segundos, paresPorLote, latencias, total);
+        double transcurrido = (System.nanoTime() - inicio) / 1e9;
+        servidor.detener(0);
+
+        int medidas = (int) Math.min(total.get(), latencias.length);
+        long[] ordenadas = Arrays.copyOf(latencias, medidas);
+        Arrays.sort(ordenadas);
+        System.out.printf("n=%d clientes=%d %s%n", n, clientes,
+                paresPorLote > 0 ? "lotes de " + paresPorLote + " pares" : "una ruta por petición");
+        System.out.printf("peticiones: %d en %.1f s -> %.0f QPS%s%n", total.get(), transcurrido, total.get() / transcurrido,
+                paresPorLote > 0 ? String.format(" (%.0f pares/s)", total.get() * paresPorLote / transcurrido) : "");
+        System.out.printf("latencia p50: %.3f ms, p99: %.3f ms%n",
+                ordenadas[medidas / 2] / 1e6, ordenadas[(int) (medidas * 0.99)] / 1e6);
+    }
+
+    private static void ejecutar(HttpClient cliente, String base, int n, int clientes, int segundos,
+                                 int paresPorLote, long[] latencias, AtomicLong total) throws Exception {
+        long fin = System.nanoTime() + segundos * 1_000_000_000L;
+        Thread[] hilos = new Thread[clientes];
+        for (int h = 0; h < clientes; h++) {
+            long semilla = h;
+            hilos[h] = new Thread(() -> {
+                Random random = new Random(semilla);
+                try {
+                    while (System.nanoTime() < fin) {
+                        HttpRequest peticion = paresPorLote > 0
+                                ? HttpRequest.newBuilder(URI.create(base + "/lote"))
+                                    .POST(HttpRequest.BodyPublishers.ofString(pares(random, n, paresPorLote))).build()
+                                : HttpRequest.newBuilder(URI.create(base + "/ruta?origen=C" + random.nextInt(n)
+                                    + "&destino=C" + random.nextInt(n))).build();
+                        long antes = System.nanoTime();
+                        HttpResponse<String> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofString());
+                        long latencia = System.nanoTime() - antes;
+                        if (respuesta.statusCode() != 200)
+                            throw new IllegalStateException("Respuesta " + respuesta.statusCode() + ": " + respuesta.body());
+                        long k = total.getAndIncrement();
+                        if (k < latencias.length) latencias[(int) k] = latencia;
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            hilos[h].start();
+        }
+        for (Thread hilo : hilos) hilo.join();
+    }
+
+    private static String pares(Random random, int n, int cantidad) {
+        StringBuilder cuerpo = new StringBuilder();
+        for (int k = 0; k < cantidad; k++)
+            cuerpo.append('C').append(random.nextInt(n)).append(" C").append(random.nextInt(n)).append('\n');
+        return cuerpo.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package Datos;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.io.BufferedWriter;
+import java.util.Random;
+
+// Genera grafos sintéticos con el mismo formato que "logistica.txt" para las pruebas de rendimiento
+public class GeneradorGrafos {
+
+    // Escribe un archivo con n ciudades y "grado" conexiones salientes aleatorias por ciudad.
+    // Se incluye un anillo C0 -> C1 -> ... -> C0 para que el grafo sea fuertemente conexo
+    public static Path generarArchivo(int n, int grado, long semilla) throws Exception {
+        Random random = new Random(semilla);
+        Path archivo = Files.createTempFile("grafo-" + n + "-", ".txt");
+        archivo.toFile().deleteOnExit();
+        try (BufferedWriter out = Files.newBufferedWriter(archivo)) {
+            for (int i = 0; i < n; i++) {
+                escribirLinea(out, i, (i + 1) % n, random);
+                for (int e = 1; e < grado; e++)
+                    escribirLinea(out, i, random.nextInt(n), random);
+            }
+        }
+        return archivo;
+    }
+
+    // Escribe una cuadrícula de lado x lado ciudades con conexiones en ambos sentidos entre vecinas,
+    // más parecida a una red de carreteras que el grafo aleatorio (casi plana y con pocos atajos)
+    public static Path generarCuadricula(int lado, long semilla) throws Exception {
+        Random random = new Random(semilla);
+        Path archivo = Files.createTempFile("cuadricula-" + lado + "-", ".txt");
+        archivo.toFile().deleteOnExit();
+        try (BufferedWriter out = Files.newBufferedWriter(archivo)) {
+            for (int f = 0; f < lado; f++)
+                for (int c = 0; c < lado; c++) {
+                    int v = f * lado + c;
+                    if (c + 1 < lado) {
+                        escribirLinea(out, v, v + 1, random);
+                        escribirLinea(out, v + 1, v, random);
+                    }
+                    if (f + 1 < lado) {
+                        escribirLinea(out, v, v + lado, random);
+                        escribirLinea(out, v + lado, v, random);
+                    }
+                }
+        }
+        return archivo;
+    }
+
+    // Crea y carga un grafo sintético
+    public static Grafo aleatorio(int n, int grado, long semilla) throws Exception {
+        Grafo grafo = new Grafo();
+        grafo.cargarDesdeArchivo(generarArchivo(n, grado, semilla).toString());
+        return grafo;
+    }
+
+    // Una línea "origen destino normal lluvia nieve tormenta" con tiempos crecientes por clima
+    private static void escribirLinea(BufferedWriter out, int origen, int destino, Random random) throws Exception {
+        int normal = 1 + random.nextInt(20);
+        out.write("C" + origen + " C" + destino + " " + normal + " " + (normal + 2) + " "
+                + (normal + 4) + " " + (normal + 6));
+        out.newLine();
+    }
+}
@@ -0,0 +1,258 @@
+package Datos;
+
+import java.io.BufferedWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+// Suite de rendimiento del núcleo de rutas sobre grafos sintéticos, con la metodología habitual de JMH
+// pero sin dependencias: iteraciones de calentamiento y de medida por tiempo, operaciones/s con su
+// desviación, bytes asignados por operación (hilo actual) y comparación contra una línea base guardada.
+// Uso: java Datos.SuiteRendimiento [n=500] [grado=4] [climas=1] [modo=automatico|denso|disperso]
+//        [calentamiento=3] [iteraciones=5] [segundos=1] [solo=regex] [guardar=base.csv] [comparar=base.csv]
+public class SuiteRendimiento {
+    // Evita que el JIT elimine el trabajo cuyo resultado no se usa
+    static volatile long sumidero;
+
+    // Tiempo que la operación marca como suyo cuando parte del trabajo es preparación que no se mide
+    // (agregarCiudad no cuenta la carga del grafo de partida)
+    private static long tiempoMedido;
+
+    private interface Operacion {
+        // Ejecuta la operación y devuelve cuántas operaciones hizo
+        int ejecutar() throws Exception;
+    }
+
+    private static final class Resultado {
+        final double operacionesPorSegundo;
+        final double desviacion;
+        final double bytesPorOperacion;
+
+        Resultado(double operacionesPorSegundo, double desviacion, double bytesPorOperacion) {
+            this.operacionesPorSegundo = operacionesPorSegundo;
+            this.desviacion = desviacion;
+            this.bytesPorOperacion = bytesPorOperacion;
+        }
+    }
+
+    private final Map<String, String> opciones;
+    private final int calentamiento;
+    private final int iteraciones;
+    private final long nanosPorIteracion;
+
+    private SuiteRendimiento(Map<String, String> opciones) {
+        this.opciones = opciones;
+        this.calentamiento = entero("calentamiento", 3);
+        this.iteraciones = entero("iteraciones", 5);
+        this.nanosPorIteracion = (long) (Double.parseDouble(opciones.getOrDefault("segundos", "1")) * 1e9);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual <= 0) throw new IllegalArgumentException("Se esperaba clave=valor: " + arg);
+            opciones.put(arg.substring(0, igual), arg.substring(igual + 1));
+        }
+        new SuiteRendimiento(opciones).ejecutar();
+    }
+
+    private int entero(String clave, int porDefecto) {
+        return Integer.parseInt(opciones.getOrDefault(clave, String.valueOf(porDefecto)));
+    }
+
+    private void ejecutar() throws Exception {
+        int n = entero("n", 500);
+        int grado = entero("grado", 4);
+        int climas = entero("climas", 1);
+        Grafo.Modo modo = Grafo.Modo.valueOf(opciones.getOrDefault("modo", "automatico").toUpperCase(Locale.ROOT));
+        String solo = opciones.get("solo");
+
+        Path archivo = GeneradorGrafos.generarArchivo(n, grado, 7);
+        Grafo grafo = cargar(archivo, modo, climas);
+        int[] origenes = new int[4096];
+        int[] destinos = new int[4096];
+        String[] nombresOrigen = new String[4096];
+        String[] nombresDestino = new String[4096];
+        Random random = new Random(3);
+        for (int q = 0; q < origenes.length; q++) {
+            origenes[q] = random.nextInt(n);
+            destinos[q] = random.nextInt(n);
+            nombresOrigen[q] = "C" + origenes[q];
+            nombresDestino[q] = "C" + destinos[q];
+        }
+        BufferRuta buffer = new BufferRuta(n);
+        int[] siguiente = new int[1];
+
+        Map<String, Operacion> operaciones = new LinkedHashMap<>();
+        operaciones.put("cargarDesdeArchivo", () -> {
+            sumidero += cargar(archivo, modo, 1).getCiudades().size();
+            return 1;
+        });
+        operaciones.put("recalcularFloyd", () -> {
+            grafo.recalcularFloyd();
+            return 1;
+        });
+        operaciones.put("agregarCiudad", () -> {
+            // Crecimiento desde un grafo cargado: 64 ciudades nuevas, cada una con una conexión entrante
+            Grafo copia = cargar(archivo, modo, 1);
+            long inicio = System.nanoTime();
+            for (int k = 0; k < 64; k++) {
+                copia.agregarCiudad("N" + k);
+                copia.agregarConexion("C" + k, "N" + k, new int[]{5, 6, 7, 8});
+            }
+            tiempoMedido += System.nanoTime() - inicio;
+            return 64;
+        });
+        operaciones.put("caminoMasCorto(lista)", () -> {
+            int q = siguiente[0]++ & (origenes.length - 1);
+            sumidero += grafo.caminoMasCorto(nombresOrigen[q], nombresDestino[q]).size();
+            return 1;
+        });
+        operaciones.put("caminoMasCorto(buffer)", () -> {
+            int q = siguiente[0]++ & (origenes.length - 1);
+            grafo.caminoMasCorto(origenes[q], destinos[q], buffer);
+            sumidero += buffer.getLongitud();
+            return 1;
+        });
+        operaciones.put("getDistancia", () -> {
+            int q = siguiente[0]++ & (origenes.length - 1);
+            sumidero += grafo.getDistancia(nombresOrigen[q], nombresDestino[q]);
+            return 1;
+        });
+        Ciudad[] ciudades = grafo.getCiudades().toArray(new Ciudad[0]);
+        operaciones.put("getDistancia(ciudad)", () -> {
+            int q = siguiente[0]++ & (origenes.length - 1);
+            sumidero += grafo.getDistancia(ciudades[origenes[q]], ciudades[destinos[q]]);
+            return 1;
+        });
+        operaciones.put("getIndice", () -> {
+            int q = siguiente[0]++ & (origenes.length - 1);
+            sumidero += grafo.getIndice(nombresOrigen[q]);
+            return 1;
+        });
+        // Tabla de 16 orígenes por 256 destinos; cuenta una operación por celda
+        int[] origenesTabla = Arrays.copyOf(origenes, 16);
+        int[] destinosTabla = Arrays.copyOfRange(destinos, 16, 16 + 256);
+        int[] celdas = new int[origenesTabla.length * destinosTabla.length];
+        operaciones.put("tablaDistancias(celda)", () -> {
+            grafo.tablaDistancias(origenesTabla, destinosTabla, celdas);
+            sumidero += celdas[celdas.length - 1];
+            return celdas.length;
+        });
+        operaciones.put("rutasAlternativas(k=5)", () -> {
+            int q = siguiente[0]++ & (origenes.length - 1);
+            if (origenes[q] != destinos[q]) sumidero += grafo.rutasAlternativas(origenes[q], destinos[q], 5).size();
+            return 1;
+        });
+        operaciones.put("centroDelGrafo", () -> {
+            sumidero += grafo.centroDelGrafo().length();
+            return 1;
+        });
+
+        System.out.printf("n=%d grado=%d climas=%d modo=%s (%s) núcleos=%d%n", n, grado, climas, modo,
+                grafo.snapshot().esDisperso() ? "disperso" : "denso", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-24s %14s %10s %14s%n", "operación", "ops/s", "± %", "B/op");
+        Map<String, Resultado> resultados = new LinkedHashMap<>();
+        for (Map.Entry<String, Operacion> entrada : operaciones.entrySet()) {
+            if (solo != null && !entrada.getKey().matches(solo)) continue;
+            Resultado r = medir(entrada.getKey().equals("agregarCiudad"), entrada.getValue());
+            resultados.put(entrada.getKey(), r);
+            System.out.printf("%-24s %14.1f %9.1f%% %14.1f%n", entrada.getKey(), r.operacionesPorSegundo,
+                    100 * r.desviacion / r.operacionesPorSegundo, r.bytesPorOperacion);
+        }
+
+        if (opciones.containsKey("comparar")) comparar(Paths.get(opciones.get("comparar")), resultados);
+        if (opciones.containsKey("guardar")) guardar(Paths.get(opciones.get("guardar")), resultados);
+        Files.deleteIfExists(archivo);
+    }
+
+    private static Grafo cargar(Path archivo, Grafo.Modo modo, int climas) throws Exception {
+        Grafo grafo = new Grafo();
+        grafo.setModo(modo);
+        grafo.cargarDesdeArchivo(archivo.toString());
+        // Deja en caché las capas de los climas pedidos y vuelve al clima normal
+        for (int c = climas - 1; c >= 0; c--) grafo.establecerClima(c);
+        return grafo;
+    }
+
+    // Ejecuta la operación durante las iteraciones de calentamiento y de medida. Si soloTiempoInterno es
+    // true solo cuenta el tiempo que la operación acumula en tiempoMedido (los bytes incluyen la preparación)
+    private Resultado medir(boolean soloTiempoInterno, Operacion operacion) throws Exception {
+        for (int i = 0; i < calentamiento; i++) iteracion(soloTiempoInterno, operacion, new long[2]);
+        double[] ritmos = new double[iteraciones];
+        long operaciones = 0;
+        long bytes = 0;
+        for (int i = 0; i < iteraciones; i++) {
+            long[] totales = new long[2];
+            ritmos[i] = iteracion(soloTiempoInterno, operacion, totales);
+            operaciones += totales[0];
+            bytes += totales[1];
+        }
+        double media = 0;
+        for (double ritmo : ritmos) media += ritmo;
+        media /= iteraciones;
+        double varianza = 0;
+        for (double ritmo : ritmos) varianza += (ritmo - media) * (ritmo - media);
+        double desviacion = iteraciones > 1 ? Math.sqrt(varianza / (iteraciones - 1)) : 0;
+        return new Resultado(media, desviacion, (double) bytes / Math.max(1, operaciones));
+    }
+
+    // Una iteración de al menos nanosPorIteracion; devuelve ops/s y deja en totales[0] las operaciones
+    // y en totales[1] los bytes asignados por el hilo actual
+    private double iteracion(boolean soloTiempoInterno, Operacion operacion, long[] totales) throws Exception {
+        long bytesAntes = asignados();
+        long inicio = System.nanoTime();
+        tiempoMedido = 0;
+        long operaciones = 0;
+        while (System.nanoTime() - inicio < nanosPorIteracion)
+            operaciones += operacion.ejecutar();
+        long tiempo = soloTiempoInterno ? tiempoMedido : System.nanoTime() - inicio;
+        totales[0] = operaciones;
+        totales[1] = asignados() - bytesAntes;
+        return operaciones * 1e9 / tiempo;
+    }
+
+    private static long asignados() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    // Línea base en CSV: operación, ops/s, desviación, B/op
+    private static void guardar(Path archivo, Map<String, Resultado> resultados) throws Exception {
+        try (BufferedWriter salida = Files.newBufferedWriter(archivo)) {
+            for (Map.Entry<String, Resultado> e : resultados.entrySet())
+                salida.write(String.format(Locale.ROOT, "%s,%.3f,%.3f,%.3f%n", e.getKey(),
+                        e.getValue().operacionesPorSegundo, e.getValue().desviacion, e.getValue().bytesPorOperacion));
+        }
+        System.out.println("Línea base guardada en " + archivo);
+    }
+
+    // Marca como regresión una caída de ritmo mayor que el 10 % y mayor que tres desviaciones de la base
+    private static void comparar(Path archivo, Map<String, Resultado> resultados) throws Exception {
+        System.out.printf("%nComparación con %s%n", archivo);
+        List<String> regresiones = new ArrayList<>();
+        for (String linea : Files.readAllLines(archivo)) {
+            String[] campos = linea.split(",");
+            Resultado actual = resultados.get(campos[0]);
+            if (actual == null) continue;
+            double base = Double.parseDouble(campos[1]);
+            double desviacionBase = Double.parseDouble(campos[2]);
+            double bytesBase = Double.parseDouble(campos[3]);
+            double cambio = (actual.operacionesPorSegundo - base) / base * 100;
+            boolean regresion = cambio < -10 && base - actual.operacionesPorSegundo > 3 * desviacionBase;
+            if (regresion) regresiones.add(campos[0]);
+            System.out.printf("%-24s %+8.1f%% ops/s  %10.1f -> %.1f B/op%s%n", campos[0], cambio,
+                    bytesBase, actual.bytesPorOperacion, regresion ? "  REGRESIÓN" : "");
+        }
+        System.out.println(regresiones.isEmpty() ? "Sin regresiones" : "Regresiones: " + regresiones);
+    }
+}
@@ -0,0 +1,25 @@
+#!/bin/sh
+# Compila el código, las pruebas y los benchmarks con javac (solo hace falta el JDK y los jar de lib/)
+# y ejecuta lo pedido:
+#   bench/ejecutar.sh pruebas                  todas las clases *Test con JUnit
+#   bench/ejecutar.sh suite [clave=valor ...]  SuiteRendimiento (ver sus opciones)
+#   bench/ejecutar.sh <Clase> [args ...]       cualquier otro benchmark de bench/Datos
+set -e
+raiz=$(cd "$(dirname "$0")/.." && pwd)
+salida="$raiz/build/clases"
+rm -rf "$salida"
+mkdir -p "$salida"
+javac -encoding UTF-8 -d "$salida" -cp "$raiz/lib/*" $(find "$raiz/src" "$raiz/bench" -name '*.java')
+cp="$salida:$raiz/lib/*"
+
+accion=${1:-pruebas}
+[ $# -gt 0 ] && shift
+case "$accion" in
+    pruebas)
+        pruebas=$(cd "$raiz/src" && find . -name '*Test.java' | sed 's#^\./##; s#\.java$##; s#/#.#g')
+        exec java -cp "$cp" org.junit.runner.JUnitCore $pruebas ;;
+    suite)
+        exec java -cp "$cp" Datos.SuiteRendimiento "$@" ;;
+    *)
+        exec java -cp "$cp" "Datos.$accion" "$@" ;;
+esac
@@ -0,0 +1,207 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Alcanzabilidad entre ciudades de un clima de una lista de conexiones: componentes fuertemente
+// conexas (Tarjan iterativo), componentes débiles y, si no son demasiadas, el cierre transitivo del
+// DAG de componentes en bits. Responde en O(1) si un par seguro que no tiene ruta (o seguro que sí),
+// así las búsquedas pueden saltarse los pares sin ruta sin recorrer el grafo.
+// Las componentes se numeran en el orden en que Tarjan las termina, así que una arista entre dos
+// componentes siempre va de una de número mayor a una de número menor
+final class Alcanzabilidad {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    // Más componentes que estas no guardan el cierre (serían más de 8 MB por clima)
+    static final int COMPONENTES_MAX_CIERRE = 8192;
+
+    final int n;
+    final int clima;
+    private final int[] componente;
+    private final int numeroComponentes;
+
+    // Componente débil de cada ciudad (ciudades sin camino en ningún sentido tienen números distintos)
+    private final int[] debil;
+
+    // Si la componente tiene un ciclo que vuelve a sus ciudades (más de una ciudad o un lazo)
+    private final boolean[] ciclica;
+
+    // Fila c = componentes alcanzables desde c, palabras longs por fila (null si hay demasiadas)
+    private final long[] cierre;
+    private final int palabras;
+
+    private Alcanzabilidad(int n, int clima, int[] componente, int numeroComponentes, int[] debil,
+                           boolean[] ciclica, long[] cierre, int palabras) {
+        this.n = n;
+        this.clima = clima;
+        this.componente = componente;
+        this.numeroComponentes = numeroComponentes;
+        this.debil = debil;
+        this.ciclica = ciclica;
+        this.cierre = cierre;
+        this.palabras = palabras;
+    }
+
+    static Alcanzabilidad construir(ListaAdyacencia g, int clima) {
+        int n = g.n;
+        int base = clima * g.m;
+        int[] componente = new int[n];
+        int numeroComponentes = tarjan(g, base, componente);
+
+        // Ciudades agrupadas por componente (ordenación por conteo)
+        int[] inicio = new int[numeroComponentes + 1];
+        for (int v = 0; v < n; v++) inicio[componente[v] + 1]++;
+        for (int c = 0; c < numeroComponentes; c++) inicio[c + 1] += inicio[c];
+        int[] ciudades = new int[n];
+        int[] siguiente = Arrays.copyOf(inicio, numeroComponentes);
+        for (int v = 0; v < n; v++) ciudades[siguiente[componente[v]]++] = v;
+
+        boolean[] ciclica = new boolean[numeroComponentes];
+        int[] raiz = new int[numeroComponentes];
+        for (int c = 0; c < numeroComponentes; c++) raiz[c] = c;
+        for (int u = 0; u < n; u++)
+            for (int e = g.inicio[u]; e < g.inicio[u + 1]; e++) {
+                if (g.pesos[base + e] == INF) continue;
+                int v = g.destino[e];
+                if (v == u) ciclica[componente[u]] = true;
+                else unir(raiz, componente[u], componente[v]);
+            }
+        for (int c = 0; c < numeroComponentes; c++)
+            if (inicio[c + 1] - inicio[c] > 1) ciclica[c] = true;
+        int[] debil = new int[n];
+        for (int v = 0; v < n; v++) debil[v] = buscar(raiz, componente[v]);
+
+        if (numeroComponentes > COMPONENTES_MAX_CIERRE)
+            return new Alcanzabilidad(n, clima, componente, numeroComponentes, debil, ciclica, null, 0);
+
+        // Las componentes sucesoras de c tienen número menor, así que su fila ya está completa
+        int palabras = (numeroComponentes + 63) >>> 6;
+        long[] cierre = new long[numeroComponentes * palabras];
+        int[] vista = new int[numeroComponentes];
+        Arrays.fill(vista, -1);
+        for (int c = 0; c < numeroComponentes; c++) {
+            int fila = c * palabras;
+            cierre[fila + (c >>> 6)] |= 1L << c;
+            for (int p = inicio[c]; p < inicio[c + 1]; p++) {
+                int u = ciudades[p];
+                for (int e = g.inicio[u]; e < g.inicio[u + 1]; e++) {
+                    if (g.pesos[base + e] == INF) continue;
+                    int d = componente[g.destino[e]];
+                    if (d == c || vista[d] == c) continue;
+                    vista[d] = c;
+                    int otra = d * palabras;
+                    for (int w = 0; w < palabras; w++) cierre[fila + w] |= cierre[otra + w];
+                }
+            }
+        }
+        return new Alcanzabilidad(n, clima, componente, numeroComponentes, debil, ciclica, cierre, palabras);
+    }
+
+    // Tarjan sin recursión (la pila de llamadas no aguanta cadenas de millones de ciudades).
+    // Escribe la componente de cada ciudad y devuelve cuántas hay
+    private static int tarjan(ListaAdyacencia g, int base, int[] componente) {
+        int n = g.n;
+        int[] orden = new int[n];
+        int[] bajo = new int[n];
+        Arrays.fill(orden, -1);
+        boolean[] enPila = new boolean[n];
+        int[] pila = new int[n];
+        int cima = 0;
+        // Pila de llamadas: ciudad y siguiente arista por explorar
+        int[] llamadas = new int[n];
+        int[] arista = new int[n];
+        int profundidad;
+        int contador = 0;
+        int componentes = 0;
+
+        for (int raiz = 0; raiz < n; raiz++) {
+            if (orden[raiz] >= 0) continue;
+            profundidad = 0;
+            llamadas[0] = raiz;
+            arista[0] = g.inicio[raiz];
+            orden[raiz] = bajo[raiz] = contador++;
+            pila[cima++] = raiz;
+            enPila[raiz] = true;
+            while (profundidad >= 0) {
+                int u = llamadas[profundidad];
+                if (arista[profundidad] < g.inicio[u + 1]) {
+                    int e = arista[profundidad]++;
+                    if (g.pesos[base + e] == INF) continue;
+                    int v = g.destino[e];
+                    if (orden[v] < 0) {
+                        orden[v] = bajo[v] = contador++;
+                        pila[cima++] = v;
+                        enPila[v] = true;
+                        profundidad++;
+                        llamadas[profundidad] = v;
+                        arista[profundidad] = g.inicio[v];
+                    } else if (enPila[v] && orden[v] < bajo[u]) {
+                        bajo[u] = orden[v];
+                    }
+                    continue;
+                }
+                // Todas las aristas de u vistas: si es raíz de su componente la saca de la pila
+                if (bajo[u] == orden[u]) {
+                    int v;
+                    do {
+                        v = pila[--cima];
+                        enPila[v] = false;
+                        componente[v] = componentes;
+                    } while (v != u);
+                    componentes++;
+                }
+                profundidad--;
+                if (profundidad >= 0) {
+                    int padre = llamadas[profundidad];
+                    if (bajo[u] < bajo[padre]) bajo[padre] = bajo[u];
+                }
+            }
+        }
+        return componentes;
+    }
+
+    private static int buscar(int[] raiz, int c) {
+        while (raiz[c] != c) {
+            raiz[c] = raiz[raiz[c]];
+            c = raiz[c];
+        }
+        return c;
+    }
+
+    private static void unir(int[] raiz, int a, int b) {
+        a = buscar(raiz, a);
+        b = buscar(raiz, b);
+        if (a != b) raiz[Math.max(a, b)] = Math.min(a, b);
+    }
+
+    // Seguro que no hay ruta de origen a destino (con origen == destino: que no hay ciclo que vuelva)
+    boolean sinRuta(int origen, int destino) {
+        int a = componente[origen];
+        if (origen == destino) return !ciclica[a];
+        int b = componente[destino];
+        if (a == b) return false;
+        if (b > a || debil[origen] != debil[destino]) return true;
+        return cierre != null && (cierre[a * palabras + (b >>> 6)] & 1L << b) == 0;
+    }
+
+    // Seguro que hay ruta; si no hay cierre y las componentes son distintas no se sabe sin buscar
+    boolean conRuta(int origen, int destino) {
+        int a = componente[origen];
+        if (origen == destino) return ciclica[a];
+        int b = componente[destino];
+        if (a == b) return true;
+        return cierre != null && b < a && (cierre[a * palabras + (b >>> 6)] & 1L << b) != 0;
+    }
+
+    // Si sabe responder cualquier par sin buscar
+    boolean exacta() {
+        return cierre != null;
+    }
+
+    int getNumeroComponentes() {
+        return numeroComponentes;
+    }
+
+    int componente(int ciudad) {
+        return componente[ciudad];
+    }
+}
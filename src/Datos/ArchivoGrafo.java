@@ -0,0 +1,320 @@
+package Datos;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Formato binario del grafo para arrancar sin leer el texto ni ejecutar Floyd. Todo en little-endian:
+//   cabecera: MAGIA, VERSION, n, clima, máscara de climas calculados, disperso (0/1), m, bytes de nombres
+//   nombres: por cada ciudad su longitud y sus bytes UTF-8, cada una rellenada hasta múltiplo de 4
+//   pesos: denso, 4 capas de n x n; disperso, inicio (n + 1), destino (m) y pesos (4 x m) del CSR
+//   rutas: por cada clima de la máscara, distancias y predecesores de n x n
+//   CRC32 de todo lo anterior (8 bytes)
+// Se lee con FileChannel.map por ventanas y las filas se copian en bloque a los arreglos del grafo
+final class ArchivoGrafo {
+    static final int MAGIA = 0x47544448; // "HDTG" en little-endian
+    static final int VERSION = 2;
+
+    private static final int ENTEROS_CABECERA = 8;
+
+    // Tamaño de cada ventana mapeada. Todos los enteros del archivo empiezan en múltiplo de 4 (por eso
+    // se rellena cada nombre) y la ventana también lo es, así que ningún entero queda partido entre dos
+    private static final int VENTANA = 1 << 28;
+
+    private ArchivoGrafo() {
+    }
+
+    // Datos leídos de un archivo, listos para instalarlos en un Grafo
+    static final class Contenido {
+        String[] nombres;
+        int clima;
+        MatrizPesos pesos;
+        ListaAdyacencia adyacencia;
+        final TablaRutas[] tablas = new TablaRutas[4];
+    }
+
+    // Escribe primero en un archivo temporal y lo renombra al final, para no dejar nunca uno a medias
+    static void guardar(Path archivo, Ciudad[] ciudades, int n, int clima, MatrizPesos pesos,
+                        ListaAdyacencia adyacencia, TablaRutas[] tablas) throws IOException {
+        byte[][] nombres = new byte[n][];
+        int bytesNombres = 0;
+        for (int i = 0; i < n; i++) {
+            nombres[i] = ciudades[i].getNombre().getBytes(StandardCharsets.UTF_8);
+            bytesNombres += 4 + nombres[i].length + relleno(nombres[i].length);
+        }
+        int mascara = 0;
+        for (int c = 0; c < 4; c++)
+            if (tablas[c] != null) mascara |= 1 << c;
+
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Escritor salida = new Escritor(canal);
+            salida.escribirInt(MAGIA);
+            salida.escribirInt(VERSION);
+            salida.escribirInt(n);
+            salida.escribirInt(clima);
+            salida.escribirInt(mascara);
+            salida.escribirInt(adyacencia != null ? 1 : 0);
+            salida.escribirInt(adyacencia != null ? adyacencia.m : 0);
+            salida.escribirInt(bytesNombres);
+            byte[] ceros = new byte[3];
+            for (byte[] nombre : nombres) {
+                salida.escribirInt(nombre.length);
+                salida.escribirBytes(nombre, nombre.length);
+                salida.escribirBytes(ceros, relleno(nombre.length));
+            }
+
+            if (adyacencia != null) {
+                salida.escribirInts(adyacencia.inicio, 0, n + 1);
+                salida.escribirInts(adyacencia.destino, 0, adyacencia.m);
+                salida.escribirInts(adyacencia.pesos, 0, 4 * adyacencia.m);
+            } else {
+                int[] fila = new int[n];
+                for (int c = 0; c < 4; c++)
+                    for (int i = 0; i < n; i++) {
+                        pesos.copiarFila(c, i, fila, 0);
+                        salida.escribirInts(fila, 0, n);
+                    }
+            }
+            for (int c = 0; c < 4; c++) {
+                if (tablas[c] == null) continue;
+                for (MatrizDensa matriz : new MatrizDensa[]{tablas[c].distancias, tablas[c].rutas})
+                    for (int i = 0; i < n; i++)
+                        salida.escribirInts(matriz.datos, matriz.inicioFila(i), n);
+            }
+            salida.terminar();
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Bytes de relleno tras un nombre de la longitud dada para que el siguiente entero empiece en múltiplo de 4
+    private static int relleno(int longitud) {
+        return -longitud & 3;
+    }
+
+    // Lee y valida un archivo completo. Si algo no cuadra lanza IOException sin devolver datos parciales
+    static Contenido cargar(Path archivo, boolean pesosCompactos) throws IOException {
+        return cargar(archivo, pesosCompactos, VENTANA);
+    }
+
+    // Igual, con ventanas del tamaño dado (múltiplo de 4); las pruebas lo usan para cruzar muchas ventanas
+    static Contenido cargar(Path archivo, boolean pesosCompactos, int tamanoVentana) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            Lector entrada = new Lector(canal, tamanoVentana);
+            if (entrada.leerInt() != MAGIA)
+                throw new IOException(archivo + " no es un grafo binario");
+            int version = entrada.leerInt();
+            if (version != VERSION)
+                throw new IOException("Versión de formato no soportada: " + version);
+            int n = entrada.leerInt();
+            int clima = entrada.leerInt();
+            int mascara = entrada.leerInt();
+            boolean disperso = entrada.leerInt() == 1;
+            int m = entrada.leerInt();
+            int bytesNombres = entrada.leerInt();
+            if (n < 0 || m < 0 || clima < 0 || clima > 3 || (mascara & ~0xF) != 0 || (disperso && mascara != 0)
+                    || bytesNombres % 4 != 0 || entrada.bytesPendientes() < bytesNombres + (long) Integer.BYTES * cantidadEnteros(n, m, mascara, disperso))
+                throw new IOException("Cabecera inválida en " + archivo);
+
+            Contenido contenido = new Contenido();
+            contenido.clima = clima;
+            contenido.nombres = new String[n];
+            long finNombres = entrada.posicion() + bytesNombres;
+            byte[] nombre = new byte[64];
+            for (int i = 0; i < n; i++) {
+                int longitud = entrada.leerInt();
+                if (longitud < 0 || entrada.posicion() + longitud + relleno(longitud) > finNombres)
+                    throw new IOException("Tabla de ciudades dañada en " + archivo);
+                if (longitud + 3 > nombre.length) nombre = new byte[longitud + 3];
+                entrada.leerBytes(nombre, longitud + relleno(longitud));
+                contenido.nombres[i] = new String(nombre, 0, longitud, StandardCharsets.UTF_8);
+            }
+            if (entrada.posicion() != finNombres)
+                throw new IOException("Tabla de ciudades dañada en " + archivo);
+
+            int[] inicio = null, destino = null, pesos = null;
+            if (disperso) {
+                inicio = new int[n + 1];
+                destino = new int[m];
+                pesos = new int[4 * m];
+                entrada.leerInts(inicio, 0, n + 1);
+                entrada.leerInts(destino, 0, m);
+                entrada.leerInts(pesos, 0, 4 * m);
+            } else {
+                contenido.pesos = new MatrizPesos(n, pesosCompactos);
+                int[] fila = new int[n];
+                for (int c = 0; c < 4; c++)
+                    for (int i = 0; i < n; i++) {
+                        entrada.leerInts(fila, 0, n);
+                        contenido.pesos.fijarFila(c, i, fila, 0);
+                    }
+            }
+            for (int c = 0; c < 4; c++) {
+                if ((mascara & 1 << c) == 0) continue;
+                TablaRutas tabla = TablaRutas.vacia(n);
+                for (MatrizDensa matriz : new MatrizDensa[]{tabla.distancias, tabla.rutas})
+                    for (int i = 0; i < n; i++)
+                        entrada.leerInts(matriz.datos, matriz.inicioFila(i), n);
+                tabla.calcularCentralidad();
+                contenido.tablas[c] = tabla;
+            }
+            entrada.verificar();
+
+            // La lista se construye después de comprobar el CRC, porque recorre los índices leídos.
+            // La representación dispersa nunca guarda tiempos negativos (ver Grafo.usarDisperso)
+            if (disperso) {
+                for (int peso : pesos)
+                    if (peso < 0) throw new IOException("Tiempos negativos en un grafo disperso en " + archivo);
+                contenido.adyacencia = ListaAdyacencia.desdeCsr(n, inicio, destino, pesos);
+            }
+            return contenido;
+        }
+    }
+
+    // Enteros que siguen a la tabla de nombres, para rechazar archivos truncados antes de reservar memoria
+    private static long cantidadEnteros(int n, int m, int mascara, boolean disperso) {
+        long pesos = disperso ? n + 1 + 5L * m : 4L * n * n;
+        return pesos + 2L * n * n * Integer.bitCount(mascara);
+    }
+
+    // Escritura secuencial con un buffer directo, calculando el CRC de lo escrito
+    private static final class Escritor {
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 crc = new CRC32();
+
+        Escritor(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        void escribirInt(int valor) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) vaciar();
+            buffer.putInt(valor);
+        }
+
+        void escribirInts(int[] origen, int desde, int cantidad) throws IOException {
+            while (cantidad > 0) {
+                if (buffer.remaining() < Integer.BYTES) vaciar();
+                int k = Math.min(cantidad, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(origen, desde, k);
+                buffer.position(buffer.position() + k * Integer.BYTES);
+                desde += k;
+                cantidad -= k;
+            }
+        }
+
+        void escribirBytes(byte[] origen, int cantidad) throws IOException {
+            int desde = 0;
+            while (desde < cantidad) {
+                if (!buffer.hasRemaining()) vaciar();
+                int k = Math.min(cantidad - desde, buffer.remaining());
+                buffer.put(origen, desde, k);
+                desde += k;
+            }
+        }
+
+        private void vaciar() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) canal.write(buffer);
+            buffer.clear();
+        }
+
+        // Vacía lo pendiente y añade el CRC, que no entra en su propio cálculo
+        void terminar() throws IOException {
+            vaciar();
+            buffer.putLong(crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) canal.write(buffer);
+        }
+    }
+
+    // Lectura secuencial sobre ventanas mapeadas del archivo. El CRC de cada ventana se calcula
+    // al mapearla, así que al llegar al final todo lo leído queda comprobado
+    private static final class Lector {
+        private final FileChannel canal;
+        private final long datos; // Tamaño sin el CRC final
+        private final CRC32 crc = new CRC32();
+        private final int tamanoVentana;
+        private long inicioVentana = 0;
+        private MappedByteBuffer ventana;
+
+        Lector(FileChannel canal, int tamanoVentana) throws IOException {
+            this.canal = canal;
+            this.tamanoVentana = tamanoVentana;
+            this.datos = canal.size() - Long.BYTES;
+            if (datos < (long) ENTEROS_CABECERA * Integer.BYTES)
+                throw new IOException("Archivo demasiado corto");
+            mapear(0);
+        }
+
+        private void mapear(long desde) throws IOException {
+            inicioVentana = desde;
+            ventana = canal.map(FileChannel.MapMode.READ_ONLY, desde, Math.min(tamanoVentana, datos - desde));
+            ventana.order(ByteOrder.LITTLE_ENDIAN);
+            crc.update(ventana.duplicate());
+        }
+
+        private void siguienteVentana() throws IOException {
+            long siguiente = inicioVentana + ventana.capacity();
+            if (siguiente >= datos) throw new IOException("Archivo truncado");
+            mapear(siguiente);
+        }
+
+        long posicion() {
+            return inicioVentana + ventana.position();
+        }
+
+        long bytesPendientes() {
+            return datos - posicion();
+        }
+
+        int leerInt() throws IOException {
+            if (ventana.remaining() < Integer.BYTES) siguienteVentana();
+            return ventana.getInt();
+        }
+
+        void leerInts(int[] destino, int desde, int cantidad) throws IOException {
+            while (cantidad > 0) {
+                if (ventana.remaining() < Integer.BYTES) siguienteVentana();
+                IntBuffer enteros = ventana.asIntBuffer();
+                int k = Math.min(cantidad, enteros.remaining());
+                enteros.get(destino, desde, k);
+                ventana.position(ventana.position() + k * Integer.BYTES);
+                desde += k;
+                cantidad -= k;
+            }
+        }
+
+        void leerBytes(byte[] destino, int cantidad) throws IOException {
+            int desde = 0;
+            while (desde < cantidad) {
+                if (!ventana.hasRemaining()) siguienteVentana();
+                int k = Math.min(cantidad - desde, ventana.remaining());
+                ventana.get(destino, desde, k);
+                desde += k;
+            }
+        }
+
+        // Comprueba que se leyó todo y que el CRC guardado coincide
+        void verificar() throws IOException {
+            if (posicion() != datos)
+                throw new IOException("Sobran " + (datos - posicion()) + " bytes en el archivo");
+            ByteBuffer guardado = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (guardado.hasRemaining())
+                if (canal.read(guardado, datos + guardado.position()) < 0) throw new IOException("Archivo truncado");
+            if (guardado.getLong(0) != crc.getValue())
+                throw new IOException("El CRC del archivo no coincide");
+        }
+    }
+}
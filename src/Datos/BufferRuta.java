@@ -0,0 +1,61 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Buffer reutilizable donde Grafo escribe un camino como índices de ciudad, sin crear objetos por consulta.
+// Los índices se traducen a Ciudad con Grafo.getCiudad solo al mostrarlos
+public final class BufferRuta {
+    private int[] ciudades;
+    private int longitud = 0;
+    private int distancia = -1;
+
+    public BufferRuta() {
+        this(16);
+    }
+
+    public BufferRuta(int capacidad) {
+        ciudades = new int[Math.max(capacidad, 1)];
+    }
+
+    // Número de ciudades del camino, origen y destino incluidos (0 si no hay ruta)
+    public int getLongitud() {
+        return longitud;
+    }
+
+    // Índice de la ciudad en la posición indicada del camino
+    public int getCiudad(int posicion) {
+        if (posicion < 0 || posicion >= longitud)
+            throw new IndexOutOfBoundsException("Posición " + posicion + " fuera del camino de " + longitud + " ciudades");
+        return ciudades[posicion];
+    }
+
+    // Tiempo total del camino, o -1 si no hay ruta
+    public int getDistancia() {
+        return distancia;
+    }
+
+    public boolean hayRuta() {
+        return longitud > 0;
+    }
+
+    // Copia del camino como arreglo de índices (crea un arreglo nuevo)
+    public int[] toArray() {
+        return Arrays.copyOf(ciudades, longitud);
+    }
+
+    // Arreglo interno con capacidad para al menos n ciudades; su contenido se descarta
+    int[] reservar(int n) {
+        if (ciudades.length < n)
+            ciudades = new int[Math.max(n, 2 * ciudades.length)];
+        return ciudades;
+    }
+
+    void fijar(int longitud, int distancia) {
+        this.longitud = longitud;
+        this.distancia = distancia;
+    }
+
+    void vaciar() {
+        fijar(0, -1);
+    }
+}
@@ -0,0 +1,345 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Búsquedas punto a punto sobre la lista de adyacencia: Dijkstra con montículo binario primitivo
+// y una variante bidireccional (A* con puntos de referencia si se le pasan).
+// Reutiliza sus arreglos entre consultas; cada hilo debe usar su propia instancia.
+// Supone tiempos no negativos, que Grafo garantiza rechazándolos en la representación dispersa
+final class BusquedaDispersa {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    // Estado de la búsqueda hacia adelante; una celda solo vale si su marca es la versión actual
+    private int[] distancia = new int[0];
+    private int[] predecesor = new int[0];
+    private int[] marca = new int[0];
+
+    // Estado de la búsqueda hacia atrás (del destino al origen)
+    private int[] distanciaAtras = new int[0];
+    private int[] sucesor = new int[0];
+    private int[] marcaAtras = new int[0];
+
+    private int version = 0;
+    private final MonticuloBinario monticulo = new MonticuloBinario(0);
+    private final MonticuloBinario monticuloAtras = new MonticuloBinario(0);
+
+    // Datos de la última búsqueda para reconstruir el camino
+    private int origen = -1;
+    private int ciclo = INF;
+    private int encuentro = -1;
+
+    private void preparar(int n) {
+        if (distancia.length < n) {
+            distancia = new int[n];
+            predecesor = new int[n];
+            marca = new int[n];
+            distanciaAtras = new int[n];
+            sucesor = new int[n];
+            marcaAtras = new int[n];
+            version = 0;
+        }
+        monticulo.asegurarCapacidad(n);
+        monticuloAtras.asegurarCapacidad(n);
+        monticulo.vaciar();
+        monticuloAtras.vaciar();
+        if (++version == Integer.MAX_VALUE) {
+            Arrays.fill(marca, 0);
+            Arrays.fill(marcaAtras, 0);
+            version = 1;
+        }
+        encuentro = -1;
+        ciclo = INF;
+    }
+
+    private int dist(int v) {
+        return marca[v] == version ? distancia[v] : INF;
+    }
+
+    private int distAtras(int v) {
+        return marcaAtras[v] == version ? distanciaAtras[v] : INF;
+    }
+
+    // Dijkstra desde origen hasta destino (destino = -1 recorre todo el grafo).
+    // Con origen == destino devuelve el ciclo más corto que vuelve al origen, como la diagonal de Floyd
+    int dijkstra(ListaAdyacencia g, int clima, int origen, int destino) {
+        preparar(g.n);
+        this.origen = origen;
+        int base = clima * g.m;
+        distancia[origen] = 0;
+        predecesor[origen] = -1;
+        marca[origen] = version;
+        monticulo.insertarODisminuir(origen, 0);
+
+        while (!monticulo.vacio()) {
+            if (destino == origen && monticulo.claveMinima() >= ciclo) break;
+            int u = monticulo.extraerMinimo();
+            if (u == destino && destino != origen) break;
+            int du = distancia[u];
+            for (int e = g.inicio[u]; e < g.inicio[u + 1]; e++) {
+                int w = g.pesos[base + e];
+                if (w == INF) continue;
+                int v = g.destino[e];
+                long suma = (long) du + w;
+                if (suma >= INF) continue; // Como en Floyd, un camino que llega a INF no es una ruta
+                int candidato = (int) suma;
+                if (v == origen) {
+                    if (candidato < ciclo) ciclo = candidato;
+                } else if (candidato < dist(v)) {
+                    distancia[v] = candidato;
+                    predecesor[v] = u;
+                    marca[v] = version;
+                    monticulo.insertarODisminuir(v, candidato);
+                }
+            }
+        }
+        return distanciaA(destino < 0 ? origen : destino);
+    }
+
+    // Dijkstra de uno a varios: escribe en salida[desde + k] la distancia de origen a destinos[k] (INF si
+    // no hay ruta; el ciclo más corto si destinos[k] == origen) y para en cuanto todos están asentados.
+    // Con componentes no espera a los destinos que seguro no tienen ruta
+    void unoAVarios(ListaAdyacencia g, int clima, int origen, int[] destinos, int[] salida, int desde,
+                    Alcanzabilidad componentes) {
+        preparar(g.n);
+        this.origen = origen;
+        int base = clima * g.m;
+        // La marca de la búsqueda hacia atrás no se usa aquí: señala los destinos pendientes
+        int pendientes = 0;
+        boolean cicloPedido = false;
+        for (int destino : destinos) {
+            if (componentes != null && componentes.sinRuta(origen, destino)) continue;
+            if (destino == origen) cicloPedido = true;
+            else if (marcaAtras[destino] != version) {
+                marcaAtras[destino] = version;
+                pendientes++;
+            }
+        }
+        distancia[origen] = 0;
+        predecesor[origen] = -1;
+        marca[origen] = version;
+        monticulo.insertarODisminuir(origen, 0);
+
+        while (!monticulo.vacio() && (pendientes > 0 || cicloPedido && monticulo.claveMinima() < ciclo)) {
+            int u = monticulo.extraerMinimo();
+            if (marcaAtras[u] == version) pendientes--;
+            int du = distancia[u];
+            for (int e = g.inicio[u]; e < g.inicio[u + 1]; e++) {
+                int w = g.pesos[base + e];
+                if (w == INF) continue;
+                int v = g.destino[e];
+                long suma = (long) du + w;
+                if (suma >= INF) continue; // Como en Floyd, un camino que llega a INF no es una ruta
+                int candidato = (int) suma;
+                if (v == origen) {
+                    if (candidato < ciclo) ciclo = candidato;
+                } else if (candidato < dist(v)) {
+                    distancia[v] = candidato;
+                    predecesor[v] = u;
+                    marca[v] = version;
+                    monticulo.insertarODisminuir(v, candidato);
+                }
+            }
+        }
+        for (int k = 0; k < destinos.length; k++) salida[desde + k] = distanciaA(destinos[k]);
+    }
+
+    // Dijkstra de llegada más temprana: el tiempo de cada arista depende de la región de su origen y
+    // del minuto en que se sale de él (ModeloTemporal), y las etiquetas son minutos transcurridos desde
+    // la salida. Solo es exacto si el modelo es FIFO (salir más tarde de una ciudad nunca hace llegar
+    // antes por la misma conexión, ver PerfilHorario.pesoMaximoFifo): entonces llegar antes a una ciudad
+    // siempre es mejor y cada ciudad se asienta una sola vez, como en el Dijkstra normal.
+    // Devuelve la duración del viaje o INF; con origen == destino la duración es 0 (ya se está allí)
+    int llegadaMasTemprana(ListaAdyacencia g, ModeloTemporal modelo, double climaGlobal,
+                           int origen, int destino, int salida) {
+        preparar(g.n);
+        this.origen = origen;
+        distancia[origen] = 0;
+        predecesor[origen] = -1;
+        marca[origen] = version;
+        if (origen == destino) {
+            ciclo = 0;
+            return 0;
+        }
+        monticulo.insertarODisminuir(origen, 0);
+
+        while (!monticulo.vacio()) {
+            int u = monticulo.extraerMinimo();
+            if (u == destino) break;
+            int du = distancia[u];
+            for (int e = g.inicio[u]; e < g.inicio[u + 1]; e++) {
+                int v = g.destino[e];
+                if (v == origen) continue;
+                int w = modelo.tiempo(g, e, u, climaGlobal, (long) salida + du);
+                if (w == INF) continue;
+                long suma = (long) du + w;
+                if (suma >= INF) continue;
+                int candidato = (int) suma;
+                if (candidato < dist(v)) {
+                    distancia[v] = candidato;
+                    predecesor[v] = u;
+                    marca[v] = version;
+                    monticulo.insertarODisminuir(v, candidato);
+                }
+            }
+        }
+        return dist(destino);
+    }
+
+    // Distancia a v calculada en la última llamada a dijkstra (con la convención del ciclo para el origen)
+    int distanciaA(int v) {
+        return v == origen ? ciclo : dist(v);
+    }
+
+    // Búsqueda bidireccional desde ambos extremos. Con puntos de referencia es un A* bidireccional:
+    // ambas búsquedas usan el potencial promedio (cotaHasta - cotaDesde) / 2, guardado al doble
+    // para trabajar con enteros, y se detiene cuando las dos fronteras garantizan el óptimo
+    int bidireccional(ListaAdyacencia g, int clima, int origen, int destino, PuntosReferencia referencias) {
+        if (origen == destino) return dijkstra(g, clima, origen, destino);
+        preparar(g.n);
+        this.origen = origen;
+        int base = clima * g.m;
+        long potencialOrigen = potencial(referencias, origen, origen, destino);
+        long potencialDestino = potencial(referencias, destino, origen, destino);
+        if (potencialOrigen == Long.MIN_VALUE || potencialDestino == Long.MIN_VALUE) return INF;
+
+        distancia[origen] = 0;
+        predecesor[origen] = -1;
+        marca[origen] = version;
+        monticulo.insertarODisminuir(origen, 0);
+        distanciaAtras[destino] = 0;
+        sucesor[destino] = -1;
+        marcaAtras[destino] = version;
+        monticuloAtras.insertarODisminuir(destino, 0);
+
+        long mejor = INF;
+        while (!monticulo.vacio() && !monticuloAtras.vacio()) {
+            long claveAdelante = monticulo.claveMinima();
+            long claveAtras = monticuloAtras.claveMinima();
+            if (mejor < INF && claveAdelante + claveAtras >= 2 * mejor - potencialOrigen + potencialDestino) break;
+
+            if (claveAdelante <= claveAtras) {
+                int u = monticulo.extraerMinimo();
+                int du = distancia[u];
+                for (int e = g.inicio[u]; e < g.inicio[u + 1]; e++) {
+                    int w = g.pesos[base + e];
+                    if (w == INF) continue;
+                    int v = g.destino[e];
+                    long suma = (long) du + w;
+                    if (suma >= INF) continue;
+                    int candidato = (int) suma;
+                    if (candidato >= dist(v)) continue;
+                    long p = potencial(referencias, v, origen, destino);
+                    if (p == Long.MIN_VALUE) continue;
+                    distancia[v] = candidato;
+                    predecesor[v] = u;
+                    marca[v] = version;
+                    monticulo.insertarODisminuir(v, 2L * candidato + p - potencialOrigen);
+                    int resto = distAtras(v);
+                    if (resto != INF && (long) candidato + resto < mejor) {
+                        mejor = (long) candidato + resto;
+                        encuentro = v;
+                    }
+                }
+            } else {
+                int u = monticuloAtras.extraerMinimo();
+                int du = distanciaAtras[u];
+                for (int p = g.inicioInverso[u]; p < g.inicioInverso[u + 1]; p++) {
+                    int w = g.pesos[base + g.aristaInversa[p]];
+                    if (w == INF) continue;
+                    int v = g.origenInverso[p];
+                    long suma = (long) du + w;
+                    if (suma >= INF) continue;
+                    int candidato = (int) suma;
+                    if (candidato >= distAtras(v)) continue;
+                    long pot = potencial(referencias, v, origen, destino);
+                    if (pot == Long.MIN_VALUE) continue;
+                    distanciaAtras[v] = candidato;
+                    sucesor[v] = u;
+                    marcaAtras[v] = version;
+                    monticuloAtras.insertarODisminuir(v, 2L * candidato - pot + potencialDestino);
+                    int previo = dist(v);
+                    if (previo != INF && (long) candidato + previo < mejor) {
+                        mejor = (long) candidato + previo;
+                        encuentro = v;
+                    }
+                }
+            }
+        }
+        return (int) mejor;
+    }
+
+    // Potencial doble de v, o Long.MIN_VALUE si las referencias prueban que v no está en ningún camino
+    private static long potencial(PuntosReferencia referencias, int v, int origen, int destino) {
+        if (referencias == null) return 0;
+        int hastaDestino = referencias.cotaHasta(v, destino);
+        int desdeOrigen = referencias.cotaDesde(origen, v);
+        if (hastaDestino == PuntosReferencia.INALCANZABLE || desdeOrigen == PuntosReferencia.INALCANZABLE)
+            return Long.MIN_VALUE;
+        return (long) hastaDestino - desdeOrigen;
+    }
+
+    // Número de ciudades del camino de la última búsqueda hasta destino
+    int longitudCamino(int destino) {
+        if (destino == origen) return 1;
+        int longitud = 0;
+        if (encuentro >= 0) {
+            for (int v = encuentro; v != -1; v = predecesor[v]) longitud++;
+            for (int v = sucesor[encuentro]; v != -1; v = sucesor[v]) longitud++;
+        } else {
+            for (int v = destino; v != -1; v = predecesor[v]) longitud++;
+        }
+        return longitud;
+    }
+
+    // Escribe en salida el camino de la última búsqueda hasta destino, en orden desde el origen,
+    // y devuelve su longitud. Si salida es demasiado corto no escribe nada y devuelve -longitud
+    int copiarCamino(int destino, int[] salida) {
+        int longitud = longitudCamino(destino);
+        if (longitud > salida.length) return -longitud;
+        if (destino == origen) {
+            salida[0] = origen;
+            return 1;
+        }
+        int p = longitud;
+        if (encuentro >= 0) {
+            int enMedio = 0;
+            for (int v = encuentro; v != -1; v = predecesor[v]) enMedio++;
+            p = enMedio;
+            for (int v = encuentro; v != -1; v = predecesor[v]) salida[--p] = v;
+            p = enMedio;
+            for (int v = sucesor[encuentro]; v != -1; v = sucesor[v]) salida[p++] = v;
+        } else {
+            for (int v = destino; v != -1; v = predecesor[v]) salida[--p] = v;
+        }
+        return longitud;
+    }
+
+    // Distancias desde origen a todas las ciudades (o hacia origen si inverso), con 0 en el propio origen
+    // e INF en las inalcanzables. Las que no caben por debajo de INF se saturan en PuntosReferencia.LEJOS:
+    // la ciudad se alcanza aunque su distancia no sea una ruta. Crea arreglos nuevos; pensado para
+    // precálculos, no para consultas frecuentes
+    static int[] distanciasDesde(ListaAdyacencia g, int clima, int origen, boolean inverso) {
+        int[] dist = new int[g.n];
+        Arrays.fill(dist, INF);
+        MonticuloBinario monticulo = new MonticuloBinario(g.n);
+        int base = clima * g.m;
+        dist[origen] = 0;
+        monticulo.insertarODisminuir(origen, 0);
+        while (!monticulo.vacio()) {
+            int u = monticulo.extraerMinimo();
+            int desde = inverso ? g.inicioInverso[u] : g.inicio[u];
+            int hasta = inverso ? g.inicioInverso[u + 1] : g.inicio[u + 1];
+            for (int p = desde; p < hasta; p++) {
+                int w = g.pesos[base + (inverso ? g.aristaInversa[p] : p)];
+                if (w == INF) continue;
+                int v = inverso ? g.origenInverso[p] : g.destino[p];
+                int candidato = (int) Math.min(PuntosReferencia.LEJOS, (long) dist[u] + w);
+                if (candidato < dist[v]) {
+                    dist[v] = candidato;
+                    monticulo.insertarODisminuir(v, dist[v]);
+                }
+            }
+        }
+        return dist;
+    }
+}
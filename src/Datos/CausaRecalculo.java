@@ -0,0 +1,13 @@
+package Datos;
+
+// Motivo por el que se ejecutó un cálculo completo de rutas (Floyd sobre una capa de clima)
+public enum CausaRecalculo {
+    CARGA,          // Carga desde archivo de texto o binario
+    CIUDAD,         // Alta de una ciudad
+    CONEXION,       // Alta, cambio o baja de una conexión que no se pudo aplicar de forma incremental
+    LOTE,           // Lote de cambios demasiado grande para aplicarlo arista por arista
+    CLIMA,          // Cambio a un clima cuya capa no estaba en caché
+    PRECALCULO,     // precalcularClimas
+    CONFIGURACION,  // Cambio de modo, motor o límite de memoria
+    MANUAL          // Llamada directa a recalcularFloyd
+}
@@ -0,0 +1,145 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Resumen de centralidad de una matriz de distancias, mantenido fila a fila cuando cambian las rutas:
+//   excentricidad de cada ciudad = máximo de su fila, diagonal (ciclo más corto) incluida
+//   suma de distancias de cada ciudad a las demás, sin la diagonal y contando INF tal cual
+// Guarda las ciudades ordenadas por (excentricidad, índice), así el centro es la primera y las k
+// más centrales las k primeras, y la mediana (menor suma, a igualdad el menor índice)
+final class Centralidad {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    private final int[] excentricidades;
+    private final long[] sumas;
+    private final int[] orden;
+    private final int[] posiciones;
+    private int mediana = -1;
+
+    Centralidad(int n) {
+        excentricidades = new int[n];
+        sumas = new long[n];
+        orden = new int[n];
+        posiciones = new int[n];
+    }
+
+    private Centralidad(Centralidad otra) {
+        excentricidades = otra.excentricidades.clone();
+        sumas = otra.sumas.clone();
+        orden = otra.orden.clone();
+        posiciones = otra.posiciones.clone();
+        mediana = otra.mediana;
+    }
+
+    Centralidad copia() {
+        return new Centralidad(this);
+    }
+
+    int n() {
+        return orden.length;
+    }
+
+    // Guarda el resumen de la fila i (datos[inicio .. inicio + n - 1]) sin reordenar; tras llenar
+    // todas las filas hay que llamar a ordenar()
+    void fijarFila(int i, int[] datos, int inicio) {
+        int n = orden.length;
+        int maximo = Integer.MIN_VALUE;
+        long suma = 0;
+        for (int j = 0; j < n; j++) {
+            int valor = datos[inicio + j];
+            if (valor > maximo) maximo = valor;
+            if (j != i) suma += valor;
+        }
+        excentricidades[i] = maximo;
+        sumas[i] = suma;
+    }
+
+    // Ordena todas las ciudades y busca la mediana, O(n log n)
+    void ordenar() {
+        int n = orden.length;
+        long[] claves = new long[n];
+        for (int i = 0; i < n; i++)
+            claves[i] = (long) excentricidades[i] << 32 | i;
+        Arrays.sort(claves);
+        for (int p = 0; p < n; p++) {
+            orden[p] = (int) claves[p];
+            posiciones[orden[p]] = p;
+        }
+        buscarMediana();
+    }
+
+    // Actualiza el resumen de una fila que cambió y la recoloca en el orden, O(n)
+    void actualizarFila(int i, int[] datos, int inicio) {
+        long sumaAnterior = sumas[i];
+        fijarFila(i, datos, inicio);
+
+        // Desplaza la ciudad hacia delante o hacia atrás hasta su sitio, como en la ordenación por inserción
+        int p = posiciones[i];
+        while (p > 0 && antes(i, orden[p - 1])) {
+            orden[p] = orden[p - 1];
+            posiciones[orden[p]] = p;
+            p--;
+        }
+        while (p + 1 < orden.length && antes(orden[p + 1], i)) {
+            orden[p] = orden[p + 1];
+            posiciones[orden[p]] = p;
+            p++;
+        }
+        orden[p] = i;
+        posiciones[i] = p;
+
+        // La mediana solo hay que buscarla de nuevo si su propia suma creció
+        if (i == mediana && sumas[i] > sumaAnterior) buscarMediana();
+        else if (menorSuma(i, mediana)) mediana = i;
+    }
+
+    private boolean antes(int a, int b) {
+        return excentricidades[a] < excentricidades[b] || (excentricidades[a] == excentricidades[b] && a < b);
+    }
+
+    private boolean menorSuma(int a, int b) {
+        return sumas[a] < sumas[b] || (sumas[a] == sumas[b] && a < b);
+    }
+
+    private void buscarMediana() {
+        mediana = orden.length == 0 ? -1 : 0;
+        for (int i = 1; i < orden.length; i++)
+            if (menorSuma(i, mediana)) mediana = i;
+    }
+
+    // Resumen para nuevoN ciudades; las nuevas no tienen conexiones, así que todas las filas
+    // pasan a tener excentricidad INF y cada columna nueva suma INF
+    Centralidad ampliada(int nuevoN) {
+        int n = orden.length;
+        Centralidad nueva = new Centralidad(nuevoN);
+        long extra = (long) (nuevoN - n) * INF;
+        for (int i = 0; i < nuevoN; i++) {
+            nueva.excentricidades[i] = i < n && nuevoN == n ? excentricidades[i] : INF;
+            nueva.sumas[i] = i < n ? sumas[i] + extra : (long) (nuevoN - 1) * INF;
+        }
+        nueva.ordenar();
+        return nueva;
+    }
+
+    int excentricidad(int i) {
+        return excentricidades[i];
+    }
+
+    long sumaDistancias(int i) {
+        return sumas[i];
+    }
+
+    // Ciudad con menor excentricidad (a igualdad la de menor índice), o -1 si no hay ciudades
+    int centro() {
+        return orden.length == 0 ? -1 : orden[0];
+    }
+
+    int mediana() {
+        return mediana;
+    }
+
+    // Ciudad en la posición p del orden por centralidad (0 = centro)
+    int enPosicion(int p) {
+        return orden[p];
+    }
+}
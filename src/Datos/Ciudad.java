@@ -5,11 +5,20 @@ package Datos;
 public class Ciudad {
     
     // Atributo privado que almacena el nombre de la ciudad
-    private String nombre;
+    private final String nombre;
+
+    // Índice denso de la ciudad en su grafo (-1 si la ciudad no la creó un grafo)
+    private final int id;
 
     // Constructor que inicializa una instancia de Ciudad con un nombre específico
     public Ciudad(String nombre) {
+        this(nombre, -1);
+    }
+
+    // Las ciudades que registra Grafo llevan su índice, así pueden usarse como atajo en las consultas
+    Ciudad(String nombre, int id) {
         this.nombre = nombre;
+        this.id = id;
     }
 
     // Método getter que devuelve el nombre de la ciudad
@@ -17,6 +26,11 @@ public class Ciudad {
         return nombre;
     }
 
+    // Índice de la ciudad en el grafo que la creó, o -1
+    public int getId() {
+        return id;
+    }
+
     // Sobrescribe el método equals para comparar si dos objetos Ciudad son iguales
     // Compara basándose en el valor del nombre
     @Override
@@ -0,0 +1,216 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Consultas punto a punto sobre una JerarquiaContraccion: Dijkstra bidireccional en el que cada lado
+// solo sube de rango, y desempaquetado de los atajos para obtener el camino con conexiones originales.
+// Reutiliza sus arreglos entre consultas; cada hilo debe usar su propia instancia
+final class ConsultaJerarquia {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    private int[] distancia = new int[0];
+    private int[] predecesor = new int[0];
+    private int[] aristaPredecesor = new int[0];
+    private int[] marca = new int[0];
+    private int[] distanciaAtras = new int[0];
+    private int[] sucesor = new int[0];
+    private int[] aristaSucesor = new int[0];
+    private int[] marcaAtras = new int[0];
+    private int version = 0;
+    private final MonticuloBinario monticulo = new MonticuloBinario(0);
+    private final MonticuloBinario monticuloAtras = new MonticuloBinario(0);
+
+    // Última consulta
+    private JerarquiaContraccion jerarquia;
+    private int origen = -1;
+    private int destino = -1;
+    private int resultado = INF;
+    private int encuentro = -1;
+
+    // Pila de tramos por desempaquetar (desde, hasta, medio) y aristas del lado hacia adelante
+    private int[] pila = new int[48];
+    private int[] aristas = new int[16];
+
+    private void preparar(int n) {
+        if (distancia.length < n) {
+            distancia = new int[n];
+            predecesor = new int[n];
+            aristaPredecesor = new int[n];
+            marca = new int[n];
+            distanciaAtras = new int[n];
+            sucesor = new int[n];
+            aristaSucesor = new int[n];
+            marcaAtras = new int[n];
+            version = 0;
+        }
+        monticulo.asegurarCapacidad(n);
+        monticuloAtras.asegurarCapacidad(n);
+        monticulo.vaciar();
+        monticuloAtras.vaciar();
+        if (++version == Integer.MAX_VALUE) {
+            Arrays.fill(marca, 0);
+            Arrays.fill(marcaAtras, 0);
+            version = 1;
+        }
+    }
+
+    private int dist(int v) {
+        return marca[v] == version ? distancia[v] : INF;
+    }
+
+    private int distAtras(int v) {
+        return marcaAtras[v] == version ? distanciaAtras[v] : INF;
+    }
+
+    // Distancia mínima de origen a destino, o INF. Con origen == destino devuelve el ciclo más corto
+    // que vuelve al origen, como la diagonal de Floyd: el menor entre el ciclo por ciudades de menor
+    // rango que guardó la contracción y los que suben a otra ciudad y vuelven
+    int distancia(JerarquiaContraccion h, int origen, int destino) {
+        preparar(h.n);
+        this.jerarquia = h;
+        this.origen = origen;
+        this.destino = destino;
+        encuentro = -1;
+        int mejor = origen == destino ? h.ciclo[origen] : INF;
+
+        distancia[origen] = 0;
+        predecesor[origen] = -1;
+        marca[origen] = version;
+        monticulo.insertarODisminuir(origen, 0);
+        distanciaAtras[destino] = 0;
+        sucesor[destino] = -1;
+        marcaAtras[destino] = version;
+        monticuloAtras.insertarODisminuir(destino, 0);
+
+        // Cada lado se detiene cuando su mínimo ya no puede mejorar el mejor encuentro
+        while (true) {
+            boolean adelante = !monticulo.vacio() && monticulo.claveMinima() < mejor;
+            boolean atras = !monticuloAtras.vacio() && monticuloAtras.claveMinima() < mejor;
+            if (!adelante && !atras) break;
+            if (adelante && (!atras || monticulo.claveMinima() <= monticuloAtras.claveMinima())) {
+                int u = monticulo.extraerMinimo();
+                int du = distancia[u];
+                int otro = distAtras(u);
+                if (otro != INF && (long) du + otro < mejor && (u != origen || origen != destino)) {
+                    mejor = du + otro;
+                    encuentro = u;
+                }
+                for (int e = h.inicioSubida[u]; e < h.inicioSubida[u + 1]; e++) {
+                    int v = h.destinoSubida[e];
+                    long suma = (long) du + h.pesoSubida[e];
+                    if (suma >= INF) continue; // Como en Floyd, un camino que llega a INF no es una ruta
+                    int candidato = (int) suma;
+                    if (candidato < dist(v)) {
+                        distancia[v] = candidato;
+                        predecesor[v] = u;
+                        aristaPredecesor[v] = e;
+                        marca[v] = version;
+                        monticulo.insertarODisminuir(v, candidato);
+                    }
+                }
+            } else {
+                int u = monticuloAtras.extraerMinimo();
+                int du = distanciaAtras[u];
+                int otro = dist(u);
+                if (otro != INF && (long) du + otro < mejor && (u != origen || origen != destino)) {
+                    mejor = du + otro;
+                    encuentro = u;
+                }
+                for (int e = h.inicioBajada[u]; e < h.inicioBajada[u + 1]; e++) {
+                    int v = h.origenBajada[e];
+                    long suma = (long) du + h.pesoBajada[e];
+                    if (suma >= INF) continue;
+                    int candidato = (int) suma;
+                    if (candidato < distAtras(v)) {
+                        distanciaAtras[v] = candidato;
+                        sucesor[v] = u;
+                        aristaSucesor[v] = e;
+                        marcaAtras[v] = version;
+                        monticuloAtras.insertarODisminuir(v, candidato);
+                    }
+                }
+            }
+        }
+        resultado = mejor;
+        return mejor;
+    }
+
+    // Distancia de la última consulta (INF si no hubo ruta)
+    int getDistancia() {
+        return resultado;
+    }
+
+    // Escribe el camino de la última consulta con las conexiones originales y devuelve cuántas ciudades
+    // tiene; -longitud si salida es demasiado corto. Un ciclo (origen == destino) se escribe como [origen]
+    int copiarCamino(int[] salida) {
+        if (resultado == INF) return 0;
+        if (origen == destino) {
+            if (salida.length < 1) return -1;
+            salida[0] = origen;
+            return 1;
+        }
+        // Primero se cuenta sin escribir y después se escribe si cabe
+        int longitud = desempaquetar(null);
+        if (longitud > salida.length) return -longitud;
+        desempaquetar(salida);
+        return longitud;
+    }
+
+    // Recorre el camino de subida desde el origen hasta el encuentro y el de bajada hasta el destino,
+    // expandiendo cada atajo; escribe en salida si no es null y devuelve la longitud
+    private int desempaquetar(int[] salida) {
+        JerarquiaContraccion h = jerarquia;
+        int longitud = 0;
+        if (salida != null) salida[0] = origen;
+        longitud++;
+
+        // Las aristas del lado de adelante se leen del encuentro hacia atrás: se guardan y se invierten
+        int cantidad = 0;
+        for (int v = encuentro; v != origen; v = predecesor[v]) {
+            if (cantidad == aristas.length) aristas = Arrays.copyOf(aristas, 2 * cantidad);
+            aristas[cantidad++] = aristaPredecesor[v];
+        }
+        int actual = origen;
+        for (int k = cantidad - 1; k >= 0; k--) {
+            int e = aristas[k];
+            int siguiente = h.destinoSubida[e];
+            longitud = expandir(h, actual, siguiente, h.medioSubida[e], salida, longitud);
+            actual = siguiente;
+        }
+        for (int v = encuentro; v != destino; v = sucesor[v]) {
+            int e = aristaSucesor[v];
+            longitud = expandir(h, v, sucesor[v], h.medioBajada[e], salida, longitud);
+        }
+        return longitud;
+    }
+
+    // Expande la arista desde -> hasta (atajo si medio >= 0) y añade las ciudades que siguen a desde
+    private int expandir(JerarquiaContraccion h, int desde, int hasta, int medio, int[] salida, int longitud) {
+        int tope = 0;
+        tope = apilar(tope, desde, hasta, medio);
+        while (tope > 0) {
+            tope -= 3;
+            int a = pila[tope];
+            int b = pila[tope + 1];
+            int m = pila[tope + 2];
+            if (m < 0) {
+                if (salida != null) salida[longitud] = b;
+                longitud++;
+                continue;
+            }
+            // a -> m es una arista de bajada de m y m -> b una de subida de m; se apila primero la
+            // segunda mitad para expandir antes la primera
+            tope = apilar(tope, m, b, h.medioSubida[h.aristaSubida(m, b)]);
+            tope = apilar(tope, a, m, h.medioBajada[h.aristaBajada(m, a)]);
+        }
+        return longitud;
+    }
+
+    private int apilar(int tope, int desde, int hasta, int medio) {
+        if (tope + 3 > pila.length) pila = Arrays.copyOf(pila, 2 * pila.length);
+        pila[tope] = desde;
+        pila[tope + 1] = hasta;
+        pila[tope + 2] = medio;
+        return tope + 3;
+    }
+}
@@ -0,0 +1,49 @@
+package Datos;
+
+// Resumen de la última carga de un archivo: cuántas filas y ciudades se leyeron y cuánto tardó cada fase
+public class EstadisticasCarga {
+    private final int filas;
+    private final int ciudades;
+    private final long nanosLectura;
+    private final long nanosFloyd;
+
+    public EstadisticasCarga(int filas, int ciudades, long nanosLectura, long nanosFloyd) {
+        this.filas = filas;
+        this.ciudades = ciudades;
+        this.nanosLectura = nanosLectura;
+        this.nanosFloyd = nanosFloyd;
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    public int getCiudades() {
+        return ciudades;
+    }
+
+    // Tiempo de lectura y llenado de la matriz de pesos, en milisegundos
+    public double getMilisLectura() {
+        return nanosLectura / 1e6;
+    }
+
+    // Tiempo del único cálculo de Floyd, en milisegundos
+    public double getMilisFloyd() {
+        return nanosFloyd / 1e6;
+    }
+
+    public double getMilisTotales() {
+        return (nanosLectura + nanosFloyd) / 1e6;
+    }
+
+    // Filas leídas por segundo, contando solo la fase de lectura
+    public double getFilasPorSegundo() {
+        return nanosLectura == 0 ? 0 : filas * 1e9 / nanosLectura;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d filas, %d ciudades: lectura %.1f ms (%.0f filas/s), Floyd %.1f ms, total %.1f ms",
+                filas, ciudades, getMilisLectura(), getFilasPorSegundo(), getMilisFloyd(), getMilisTotales());
+    }
+}
@@ -0,0 +1,49 @@
+package Datos;
+
+// Resumen acumulado de los lotes aplicados con Grafo.lote. Un recálculo es un Floyd completo de una
+// capa, igual en los dos modos: el modo disperso no tiene tablas que recalcular y nunca suma ninguno.
+// Lo que ahorra agrupar es que cada cambio por separado publica un estado (copiando las tablas en
+// modo denso o reconstruyendo la lista de adyacencia en modo disperso) y el lote lo hace una sola vez
+public class EstadisticasLotes {
+    private final long lotes;
+    private final long cambios;
+    private final long lotesIncrementales;
+    private final long recalculos;
+
+    public EstadisticasLotes(long lotes, long cambios, long lotesIncrementales, long recalculos) {
+        this.lotes = lotes;
+        this.cambios = cambios;
+        this.lotesIncrementales = lotesIncrementales;
+        this.recalculos = recalculos;
+    }
+
+    public long getLotes() {
+        return lotes;
+    }
+
+    // Cambios de conexiones aplicados entre todos los lotes
+    public long getCambios() {
+        return cambios;
+    }
+
+    // Lotes resueltos actualizando las tablas arista por arista en lugar de con Floyd
+    public long getLotesIncrementales() {
+        return lotesIncrementales;
+    }
+
+    // Recálculos completos que hicieron falta
+    public long getRecalculos() {
+        return recalculos;
+    }
+
+    // Estados que no hubo que publicar (ni copiar sus tablas) por agrupar los cambios
+    public long getPublicacionesAhorradas() {
+        return cambios - lotes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d lotes, %d cambios (%d lotes incrementales): %d recálculos, %d publicaciones ahorradas",
+                lotes, cambios, lotesIncrementales, recalculos, getPublicacionesAhorradas());
+    }
+}
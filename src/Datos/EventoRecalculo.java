@@ -0,0 +1,24 @@
+package Datos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Evento de Java Flight Recorder para cada cálculo completo de rutas; su duración es la del cálculo.
+// Si la grabación no lo tiene activado su coste es prácticamente nulo
+@Name("Datos.Recalculo")
+@Label("Recálculo de rutas")
+@Category({"Datos", "Grafo"})
+@Description("Cálculo completo de distancias y rutas de una capa de clima")
+class EventoRecalculo extends Event {
+    @Label("Causa")
+    String causa;
+
+    @Label("Clima")
+    int clima;
+
+    @Label("Ciudades")
+    int ciudades;
+}
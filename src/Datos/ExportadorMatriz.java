@@ -0,0 +1,164 @@
+package Datos;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Exporta la matriz de distancias mínimas de un estado del grafo, completa o por bloques
+// (filas [filaInicio, filaFin) y columnas [columnaInicio, columnaFin)), sin construirla en memoria:
+// se recorre fila a fila con un único arreglo de n enteros. No usa Swing, sirve en servidores
+public final class ExportadorMatriz {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    // Cabecera del formato binario: MAGIA, VERSION, clima, filaInicio, filas, columnaInicio, columnas,
+    // seguida de filas x columnas enteros little-endian por filas (-1 = sin ruta)
+    public static final int MAGIA = 0x4D544448; // "HDTM" en little-endian
+    public static final int VERSION = 1;
+
+    private final GrafoSnapshot estado;
+    private final int n;
+    private final int[] fila;
+
+    public ExportadorMatriz(GrafoSnapshot estado) {
+        this.estado = estado;
+        this.n = estado.getNumeroCiudades();
+        this.fila = new int[n];
+    }
+
+    public void escribirCsv(Writer salida) throws IOException {
+        escribirCsv(salida, 0, n, 0, n);
+    }
+
+    // CSV con una fila de cabecera con los destinos y una columna con los orígenes; sin ruta = celda vacía
+    public void escribirCsv(Writer salida, int filaInicio, int filaFin, int columnaInicio, int columnaFin) throws IOException {
+        validar(filaInicio, filaFin, columnaInicio, columnaFin);
+        salida.write("origen");
+        for (int j = columnaInicio; j < columnaFin; j++) {
+            salida.write(',');
+            salida.write(campoCsv(estado.getCiudad(j).getNombre()));
+        }
+        salida.write('\n');
+        for (int i = filaInicio; i < filaFin; i++) {
+            salida.write(campoCsv(estado.getCiudad(i).getNombre()));
+            estado.filaDistancias(i, fila);
+            for (int j = columnaInicio; j < columnaFin; j++) {
+                salida.write(',');
+                if (fila[j] != INF) salida.write(Integer.toString(fila[j]));
+            }
+            salida.write('\n');
+        }
+        salida.flush();
+    }
+
+    public void escribirBinario(WritableByteChannel salida) throws IOException {
+        escribirBinario(salida, 0, n, 0, n);
+    }
+
+    // Formato binario descrito en MAGIA; los nombres de las ciudades no se incluyen
+    public void escribirBinario(WritableByteChannel salida, int filaInicio, int filaFin,
+                                int columnaInicio, int columnaFin) throws IOException {
+        validar(filaInicio, filaFin, columnaInicio, columnaFin);
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIA).putInt(VERSION).putInt(estado.getClima())
+                .putInt(filaInicio).putInt(filaFin - filaInicio)
+                .putInt(columnaInicio).putInt(columnaFin - columnaInicio);
+        for (int i = filaInicio; i < filaFin; i++) {
+            estado.filaDistancias(i, fila);
+            for (int j = columnaInicio; j < columnaFin; j++) {
+                if (buffer.remaining() < Integer.BYTES) vaciar(buffer, salida);
+                buffer.putInt(fila[j] == INF ? -1 : fila[j]);
+            }
+        }
+        vaciar(buffer, salida);
+    }
+
+    private static void vaciar(ByteBuffer buffer, WritableByteChannel salida) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) salida.write(buffer);
+        buffer.clear();
+    }
+
+    // Número de páginas por lado cuando la matriz se divide en bloques de tamanoPagina x tamanoPagina
+    public int paginasPorLado(int tamanoPagina) {
+        if (tamanoPagina <= 0) throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        return Math.max(1, (n + tamanoPagina - 1) / tamanoPagina);
+    }
+
+    // Nombre del archivo de la página (paginaFila, paginaColumna), usado en los enlaces de navegación
+    public static String nombrePagina(int paginaFila, int paginaColumna) {
+        return "matriz-" + paginaFila + "-" + paginaColumna + ".html";
+    }
+
+    // Una página HTML con el bloque (paginaFila, paginaColumna) y enlaces a las páginas vecinas
+    public void escribirPaginaHtml(Writer salida, int paginaFila, int paginaColumna, int tamanoPagina) throws IOException {
+        int paginas = paginasPorLado(tamanoPagina);
+        if (paginaFila < 0 || paginaFila >= paginas || paginaColumna < 0 || paginaColumna >= paginas)
+            throw new IllegalArgumentException("Página fuera de rango: " + paginaFila + ", " + paginaColumna);
+        int filaInicio = paginaFila * tamanoPagina;
+        int columnaInicio = paginaColumna * tamanoPagina;
+        int filaFin = Math.min(n, filaInicio + tamanoPagina);
+        int columnaFin = Math.min(n, columnaInicio + tamanoPagina);
+
+        String[] climas = {"Normal", "Lluvia", "Nieve", "Tormenta"};
+        salida.write("<!DOCTYPE html>\n<html><head><meta charset='UTF-8'><title>Matriz de distancias</title></head>\n");
+        salida.write("<body style='font-family:Arial;'>\n<h2>Matriz de distancias mínimas</h2>\n<p>Clima: "
+                + climas[estado.getClima()]);
+        if (estado.getTemperatura() != null) salida.write(" (Temperatura: " + estado.getTemperatura() + "°C)");
+        salida.write(". Filas " + (filaInicio + 1) + "-" + filaFin + " y columnas " + (columnaInicio + 1) + "-"
+                + columnaFin + " de " + n + ". &infin; = sin ruta.</p>\n<p>");
+        enlace(salida, paginaFila - 1, paginaColumna, paginas, "&uarr; arriba");
+        enlace(salida, paginaFila + 1, paginaColumna, paginas, "&darr; abajo");
+        enlace(salida, paginaFila, paginaColumna - 1, paginas, "&larr; izquierda");
+        enlace(salida, paginaFila, paginaColumna + 1, paginas, "&rarr; derecha");
+        salida.write("</p>\n<table border='1' cellpadding='5' cellspacing='0' style='border-collapse: collapse;'>\n<tr><th></th>");
+        for (int j = columnaInicio; j < columnaFin; j++)
+            salida.write("<th>" + escaparHtml(estado.getCiudad(j).getNombre()) + "</th>");
+        salida.write("</tr>\n");
+        for (int i = filaInicio; i < filaFin; i++) {
+            salida.write("<tr><th>" + escaparHtml(estado.getCiudad(i).getNombre()) + "</th>");
+            estado.filaDistancias(i, fila);
+            for (int j = columnaInicio; j < columnaFin; j++)
+                salida.write(fila[j] == INF ? "<td align='center'>&infin;</td>" : "<td align='center'>" + fila[j] + "</td>");
+            salida.write("</tr>\n");
+        }
+        salida.write("</table>\n</body></html>\n");
+        salida.flush();
+    }
+
+    // Escribe todas las páginas en el directorio y devuelve cuántas son
+    public int exportarHtml(Path directorio, int tamanoPagina) throws IOException {
+        int paginas = paginasPorLado(tamanoPagina);
+        Files.createDirectories(directorio);
+        for (int f = 0; f < paginas; f++)
+            for (int c = 0; c < paginas; c++)
+                try (Writer salida = Files.newBufferedWriter(directorio.resolve(nombrePagina(f, c)), StandardCharsets.UTF_8)) {
+                    escribirPaginaHtml(salida, f, c, tamanoPagina);
+                }
+        return paginas * paginas;
+    }
+
+    private static void enlace(Writer salida, int f, int c, int paginas, String texto) throws IOException {
+        if (f < 0 || c < 0 || f >= paginas || c >= paginas) return;
+        salida.write("<a href='" + nombrePagina(f, c) + "'>" + texto + "</a> ");
+    }
+
+    private void validar(int filaInicio, int filaFin, int columnaInicio, int columnaFin) {
+        if (filaInicio < 0 || filaInicio > filaFin || filaFin > n
+                || columnaInicio < 0 || columnaInicio > columnaFin || columnaFin > n)
+            throw new IllegalArgumentException("Bloque fuera de la matriz de " + n + " ciudades");
+    }
+
+    private static String campoCsv(String valor) {
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0) return valor;
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    private static String escaparHtml(String valor) {
+        return valor.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,206 @@
+package Datos;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Floyd-Warshall por bloques (tiles) en paralelo sobre un ForkJoinPool.
+// Para cada bloque K de pasos k: primero el tile diagonal, luego los tiles de la fila y la columna K
+// y por último el resto de tiles en paralelo.
+//
+// El resultado es idéntico bit a bit al de FloydSecuencial, incluidas las rutas: cada tile guarda
+// la fila k y la columna k tal como estaban en el paso k y los demás tiles las leen de ahí,
+// así cada celda ve exactamente los mismos valores y desempates que en el orden secuencial
+public class FloydBloques implements MotorRutas {
+    // Lado de los tiles por defecto: 64 x 64 enteros caben holgadamente en la caché L1/L2
+    public static final int BLOQUE_POR_DEFECTO = 64;
+
+    private final int bloque;
+    private final ForkJoinPool pool;
+
+    // Usa el tamaño de bloque por defecto y el pool común
+    public FloydBloques() {
+        this(BLOQUE_POR_DEFECTO, ForkJoinPool.commonPool());
+    }
+
+    // Tamaño de bloque y número de hilos configurables (crea un pool propio)
+    public FloydBloques(int bloque, int paralelismo) {
+        this(bloque, new ForkJoinPool(paralelismo));
+    }
+
+    public FloydBloques(int bloque, ForkJoinPool pool) {
+        if (bloque < 1) throw new IllegalArgumentException("El tamaño de bloque debe ser positivo");
+        this.bloque = bloque;
+        this.pool = pool;
+    }
+
+    public int getBloque() {
+        return bloque;
+    }
+
+    public int getParalelismo() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void calcular(int[] d, int[] r, int n, int s) {
+        int bloques = (n + bloque - 1) / bloque;
+
+        // Instantáneas de la fila k (distancias y rutas) y de la columna k tomadas en el paso k,
+        // indexadas como [k - k0][posición]
+        int[] filaK = new int[bloque * n];
+        int[] rutaK = new int[bloque * n];
+        int[] columnaK = new int[bloque * n];
+
+        for (int b = 0; b < bloques; b++) {
+            int kb = b;
+            int k0 = kb * bloque;
+            int k1 = Math.min(n, k0 + bloque);
+
+            // Fase 1: tile diagonal, en orden secuencial
+            diagonal(d, r, s, n, k0, k1, filaK, rutaK, columnaK);
+
+            // Fase 2: tiles de la fila K (cada columna es independiente) y de la columna K (cada fila lo es)
+            paralelo(bloques, jb -> {
+                if (jb != kb) filaDeBloques(d, r, s, n, k0, k1, jb * bloque, Math.min(n, (jb + 1) * bloque), filaK, rutaK, columnaK);
+            });
+            paralelo(bloques, ib -> {
+                if (ib != kb) columnaDeBloques(d, r, s, n, k0, k1, ib * bloque, Math.min(n, (ib + 1) * bloque), filaK, rutaK, columnaK);
+            });
+
+            // Fase 3: el resto de tiles, todos independientes entre sí
+            paralelo(bloques * bloques, t -> {
+                int ib = t / bloques;
+                int jb = t % bloques;
+                if (ib != kb && jb != kb)
+                    resto(d, r, s, n, k0, k1, ib * bloque, Math.min(n, (ib + 1) * bloque),
+                            jb * bloque, Math.min(n, (jb + 1) * bloque), filaK, rutaK, columnaK);
+            });
+        }
+    }
+
+    // Tile K x K: pasos k0..k1-1 en orden, guardando las instantáneas dentro del bloque
+    private static void diagonal(int[] d, int[] r, int s, int n, int k0, int k1,
+                                 int[] filaK, int[] rutaK, int[] columnaK) {
+        for (int k = k0; k < k1; k++) {
+            int base = (k - k0) * n;
+            for (int x = k0; x < k1; x++) {
+                filaK[base + x] = d[k * s + x];
+                rutaK[base + x] = r[k * s + x];
+                columnaK[base + x] = d[x * s + k];
+            }
+            for (int i = k0; i < k1; i++) {
+                int dik = columnaK[base + i];
+                if (dik == INF) continue;
+                int filaI = i * s;
+                for (int j = k0; j < k1; j++) {
+                    int dkj = filaK[base + j];
+                    if (dkj != INF && dik + dkj < d[filaI + j]) {
+                        d[filaI + j] = dik + dkj;
+                        r[filaI + j] = rutaK[base + j];
+                    }
+                }
+            }
+        }
+    }
+
+    // Tile K x J: cada columna j avanza por los pasos del bloque usando la columna k del tile diagonal
+    private static void filaDeBloques(int[] d, int[] r, int s, int n, int k0, int k1, int j0, int j1,
+                                      int[] filaK, int[] rutaK, int[] columnaK) {
+        for (int k = k0; k < k1; k++) {
+            int base = (k - k0) * n;
+            int filaDeK = k * s;
+            for (int j = j0; j < j1; j++) {
+                filaK[base + j] = d[filaDeK + j];
+                rutaK[base + j] = r[filaDeK + j];
+            }
+            for (int i = k0; i < k1; i++) {
+                int dik = columnaK[base + i];
+                if (dik == INF) continue;
+                int filaI = i * s;
+                for (int j = j0; j < j1; j++) {
+                    int dkj = filaK[base + j];
+                    if (dkj != INF && dik + dkj < d[filaI + j]) {
+                        d[filaI + j] = dik + dkj;
+                        r[filaI + j] = rutaK[base + j];
+                    }
+                }
+            }
+        }
+    }
+
+    // Tile I x K: cada fila i avanza por los pasos del bloque usando la fila k del tile diagonal
+    private static void columnaDeBloques(int[] d, int[] r, int s, int n, int k0, int k1, int i0, int i1,
+                                         int[] filaK, int[] rutaK, int[] columnaK) {
+        for (int k = k0; k < k1; k++) {
+            int base = (k - k0) * n;
+            for (int i = i0; i < i1; i++) {
+                int filaI = i * s;
+                int dik = d[filaI + k];
+                columnaK[base + i] = dik;
+                if (dik == INF) continue;
+                for (int j = k0; j < k1; j++) {
+                    int dkj = filaK[base + j];
+                    if (dkj != INF && dik + dkj < d[filaI + j]) {
+                        d[filaI + j] = dik + dkj;
+                        r[filaI + j] = rutaK[base + j];
+                    }
+                }
+            }
+        }
+    }
+
+    // Tile I x J fuera de la cruz del bloque K: solo lee instantáneas, así que todos van en paralelo
+    private static void resto(int[] d, int[] r, int s, int n, int k0, int k1, int i0, int i1, int j0, int j1,
+                              int[] filaK, int[] rutaK, int[] columnaK) {
+        for (int i = i0; i < i1; i++) {
+            int filaI = i * s;
+            for (int k = k0; k < k1; k++) {
+                int base = (k - k0) * n;
+                int dik = columnaK[base + i];
+                if (dik == INF) continue;
+                for (int j = j0; j < j1; j++) {
+                    int dkj = filaK[base + j];
+                    if (dkj != INF && dik + dkj < d[filaI + j]) {
+                        d[filaI + j] = dik + dkj;
+                        r[filaI + j] = rutaK[base + j];
+                    }
+                }
+            }
+        }
+    }
+
+    // Ejecuta tarea(0..total-1) repartida en el pool y espera a que termine
+    private void paralelo(int total, IntConsumer tarea) {
+        if (total <= 1 || pool.getParallelism() == 1) {
+            for (int t = 0; t < total; t++) tarea.accept(t);
+            return;
+        }
+        pool.invoke(new Rango(0, total, tarea));
+    }
+
+    // Divide un rango de tiles por la mitad hasta llegar a tiles sueltos
+    private static class Rango extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int desde;
+        private final int hasta;
+        private final IntConsumer tarea;
+
+        Rango(int desde, int hasta, IntConsumer tarea) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.tarea = tarea;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde == 1) {
+                tarea.accept(desde);
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new Rango(desde, medio, tarea), new Rango(medio, hasta, tarea));
+        }
+    }
+}
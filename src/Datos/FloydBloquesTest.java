@@ -0,0 +1,61 @@
+package Datos;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Arrays;
+import java.util.Random;
+
+public class FloydBloquesTest {
+    private static final int INF = MotorRutas.INF;
+
+    // Matrices iniciales aleatorias con pesos pequeños para forzar muchos empates
+    private static int[][] generar(int n, int stride, double densidad, long semilla) {
+        Random random = new Random(semilla);
+        int[] d = new int[stride * stride];
+        int[] r = new int[stride * stride];
+        Arrays.fill(d, INF);
+        Arrays.fill(r, -1);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                if (random.nextDouble() < densidad) {
+                    d[i * stride + j] = 1 + random.nextInt(4);
+                    if (i != j) r[i * stride + j] = i;
+                }
+        return new int[][]{d, r};
+    }
+
+    private static void comparar(int n, int stride, int bloque, int paralelismo, double densidad) {
+        int[][] esperado = generar(n, stride, densidad, n * 31L + bloque);
+        int[][] obtenido = {esperado[0].clone(), esperado[1].clone()};
+        new FloydSecuencial().calcular(esperado[0], esperado[1], n, stride);
+        new FloydBloques(bloque, paralelismo).calcular(obtenido[0], obtenido[1], n, stride);
+        assertArrayEquals(esperado[0], obtenido[0]);
+        assertArrayEquals(esperado[1], obtenido[1]);
+    }
+
+    @Test
+    public void testIdenticoAlSecuencial() {
+        comparar(100, 100, 16, 4, 0.05);
+        comparar(97, 128, 10, 3, 0.1);
+        comparar(130, 130, 64, 2, 0.02);
+    }
+
+    @Test
+    public void testUnSoloBloqueYUnHilo() {
+        comparar(20, 32, 64, 1, 0.2);
+        comparar(33, 33, 1, 2, 0.1);
+    }
+
+    @Test
+    public void testGrafoConMotorPorBloques() {
+        Grafo grafo = new Grafo();
+        grafo.setMotorRutas(new FloydBloques(2, 2));
+        grafo.agregarConexion("A", "B", new int[]{10, 15, 20, 25});
+        grafo.agregarConexion("B", "C", new int[]{10, 15, 20, 25});
+        grafo.agregarConexion("C", "D", new int[]{10, 15, 20, 25});
+        grafo.agregarConexion("A", "D", new int[]{50, 35, 40, 45});
+        grafo.recalcularFloyd();
+        assertEquals(30, grafo.getDistancia("A", "D"));
+        assertEquals(4, grafo.caminoMasCorto("A", "D").size());
+    }
+}
@@ -0,0 +1,24 @@
+package Datos;
+
+// Floyd-Warshall clásico en un solo hilo
+public class FloydSecuencial implements MotorRutas {
+
+    @Override
+    public void calcular(int[] d, int[] r, int n, int s) {
+        for (int k = 0; k < n; k++) {
+            int filaK = k * s;
+            for (int i = 0; i < n; i++) {
+                int filaI = i * s;
+                int dik = d[filaI + k];
+                if (dik == INF) continue;
+                for (int j = 0; j < n; j++) {
+                    int dkj = d[filaK + j];
+                    if (dkj != INF && dik + dkj < d[filaI + j]) {
+                        d[filaI + j] = dik + dkj;
+                        r[filaI + j] = r[filaK + j];
+                    }
+                }
+            }
+        }
+    }
+}
@@ -4,25 +4,61 @@ package Datos;
 import java.util.*;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.nio.file.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
+// Las consultas leen un GrafoSnapshot inmutable sin bloqueos. Las modificaciones se serializan
+// (métodos synchronized), preparan el nuevo estado aparte y lo publican de una sola vez
 public class Grafo {
-    // Mapa que asocia el nombre de cada ciudad con su índice en las matrices
-    private Map<String, Integer> ciudadIndices = new HashMap<>();
-    
-    // Lista de objetos Ciudad para mantener el orden y la referencia
-    private List<Ciudad> ciudades = new ArrayList<>();
+    // Representación de las conexiones: matrices densas con Floyd, lista de adyacencia con Dijkstra,
+    // o elección automática según el número de ciudades y la densidad de conexiones
+    public enum Modo { AUTOMATICO, DENSO, DISPERSO }
+
+    // Por debajo de este número de ciudades siempre se usa la representación densa
+    public static final int CIUDADES_MIN_DISPERSO = 2000;
+
+    // Con más ciudades que esta las matrices n x n ya no caben en memoria
+    // (no puede pasar de MatrizPesos.CAPACIDAD_MAXIMA)
+    public static final int CIUDADES_MAX_DENSO = 20000;
+
+    // Fracción máxima de pares conectados para preferir la representación dispersa
+    public static final double DENSIDAD_MAX_DISPERSO = 0.01;
+
+    // Un lote se aplica arista por arista (O(n²) cada una) mientras tenga como mucho una conexión
+    // distinta por cada tantas ciudades; con más cambios sale más barato un solo Floyd (O(n³))
+    public static final int CIUDADES_POR_CAMBIO_INCREMENTAL = 16;
+
+    // Índice que asocia el nombre de cada ciudad con su posición en las matrices.
+    // Los nombres nunca se quitan, así que los estados publicados pueden compartirlo
+    // (solo se sustituye por otro al cargar un archivo binario)
+    private IndiceNombres ciudadIndices = new IndiceNombres();
     
-    // Matriz tridimensional para almacenar los tiempos entre ciudades según el clima [clima][origen][destino]
-    private int[][][] matrizPesos;
+    // Ciudades en orden de índice; el arreglo solo crece al final y se comparte con los estados publicados
+    private Ciudad[] ciudades = new Ciudad[16];
+    private int numeroCiudades = 0;
     
-    // Matriz de distancias mínimas calculadas por Floyd
-    private int[][] distancias;
+    // Tiempos entre ciudades según el clima [clima][origen][destino], en un arreglo plano que crece por duplicación
+    private MatrizPesos matrizPesos;
     
-    // Matriz que permite reconstruir el camino más corto
-    private int[][] rutas;
+    // Distancias mínimas y rutas ya calculadas para cada clima (null si la capa no está en caché)
+    private TablaRutas[] tablas = new TablaRutas[4];
+
+    // Memoria máxima para las capas en caché; las capas frías se descartan al superarla
+    private long limiteMemoriaClimas = 512L * 1024 * 1024;
+
+    // Contador para saber qué capa se usó más recientemente
+    private long reloj = 0;
     
     // Clima actual seleccionado (0 = normal, 1 = lluvia, etc.)
     private int clima = 0;
@@ -33,103 +69,520 @@ public class Grafo {
     // Almacena la temperatura actual, si se establece
     private Double temperaturaActual = null;
 
-    // Carga el grafo desde un archivo de texto con el formato indicado
-    public void cargarDesdeArchivo(String archivo) throws Exception {
-        List<String> lineas = Files.readAllLines(Paths.get(archivo));
-        
-        // Primero se agregan las ciudades al mapa y a la lista
-        for (String linea : lineas) {
-            String[] partes = linea.split(" ");
-            agregarCiudad(partes[0]);
-            agregarCiudad(partes[1]);
+    // Motor que ejecuta Floyd; por defecto la versión por bloques en paralelo si hay más de un núcleo
+    private MotorRutas motor = Runtime.getRuntime().availableProcessors() > 1
+            ? new FloydBloques() : new FloydSecuencial();
+
+    // Modo pedido y representación en uso
+    private Modo modo = Modo.AUTOMATICO;
+    private boolean disperso = false;
+
+    // Conexiones en formato CSR; solo se usa en la representación dispersa (matrizPesos es null)
+    private ListaAdyacencia adyacencia = null;
+
+    // Pesos por región y hora para llegadaMasTemprana. En modo denso esas consultas recorren una copia
+    // CSR de las conexiones que solo se construye al prepararlas y después se mantiene con cada cambio
+    private ModeloTemporal modeloTemporal = ModeloTemporal.UNIFORME;
+    private ListaAdyacencia conexionesTemporales = null;
+
+    // Jerarquías de contracción para las consultas en modo disperso (ver setJerarquias); el índice
+    // siempre corresponde a la lista de adyacencia actual
+    private boolean usarJerarquias = false;
+    private IndiceJerarquias jerarquias = null;
+
+    // Componentes y cierre transitivo por clima de la lista de adyacencia actual (modo disperso), para
+    // contestar sin buscar los pares que no tienen ruta
+    private IndiceAlcanzabilidad alcanzabilidad = null;
+
+    // Número de puntos de referencia para el A* bidireccional (0 = Dijkstra simple) y los calculados por clima
+    private int puntosReferencia = 0;
+    private AtomicReferenceArray<PuntosReferencia> referencias = new AtomicReferenceArray<>(4);
+
+    // Último estado publicado; las consultas lo leen una sola vez y trabajan sobre él
+    private volatile GrafoSnapshot estado;
+    private long version = 0;
+
+    // Resultado de la última carga desde archivo
+    private EstadisticasCarga ultimaCarga = null;
+
+    // Contadores de los lotes aplicados (ver EstadisticasLotes)
+    private long lotes, cambiosEnLotes, lotesIncrementales, recalculosEnLotes;
+
+    // Indica si los tiempos se guardan como short (la mitad de memoria, para grafos pequeños)
+    private final boolean pesosCompactos;
+
+    // Contadores y latencias de recálculos, cargas y consultas (ver MetricasGrafo)
+    private final MetricasGrafo metricas = new MetricasGrafo();
+
+    public Grafo() {
+        this(false);
+    }
+
+    // Con pesosCompactos = true la matriz de pesos usa short mientras los tiempos quepan en él
+    public Grafo(boolean pesosCompactos) {
+        this.pesosCompactos = pesosCompactos;
+        this.matrizPesos = new MatrizPesos(0, pesosCompactos);
+        publicar(CausaRecalculo.CONFIGURACION);
+    }
+
+    // Estado actual del grafo para hacer varias consultas coherentes entre sí, sin bloqueos
+    public GrafoSnapshot snapshot() {
+        return estado;
+    }
+
+    // Métricas de este grafo; se pueden publicar por JMX con getMetricas().registrarMBean(nombre)
+    public MetricasGrafo getMetricas() {
+        return metricas;
+    }
+
+    // Prepara y publica de forma atómica el estado con las ciudades, el clima y las rutas actuales.
+    // La causa es la que se anota si hay que calcular la capa del clima actual
+    private void publicar(CausaRecalculo causa) {
+        TablaRutas tabla = null;
+        if (!disperso) {
+            tabla = tablaActual(causa);
+            tabla.publicada = true;
+        } else if (usarJerarquias && (jerarquias == null || jerarquias.conexiones != adyacencia)) {
+            // Conexiones nuevas: se reutiliza el orden de contracción de las anteriores
+            jerarquias = jerarquias == null ? new IndiceJerarquias(adyacencia) : jerarquias.trasCambio(adyacencia);
         }
+        if (disperso && (alcanzabilidad == null || alcanzabilidad.conexiones != adyacencia))
+            alcanzabilidad = new IndiceAlcanzabilidad(adyacencia);
+        estado = new GrafoSnapshot(++version, ciudades, numeroCiudades, ciudadIndices, clima, temperaturaActual,
+                tabla, disperso ? adyacencia : null, puntosReferencia, referencias,
+                disperso ? adyacencia : conexionesTemporales, modeloTemporal, jerarquias,
+                disperso ? alcanzabilidad : null);
+        metricas.registrarPublicacion();
+    }
 
-        int n = ciudades.size();
-        matrizPesos = new int[4][n][n]; // 4 climas
-
-        // Inicializa la matriz con valores infinitos
-        for (int i = 0; i < 4; i++)
-            for (int j = 0; j < n; j++)
-                Arrays.fill(matrizPesos[i][j], INF);
-
-        // Llena la matriz con los valores del archivo (por clima)
-        for (String linea : lineas) {
-            String[] partes = linea.split(" ");
-            int i = ciudadIndices.get(partes[0]);
-            int j = ciudadIndices.get(partes[1]);
-            for (int c = 0; c < 4; c++) {
-                matrizPesos[c][i][j] = Integer.parseInt(partes[2 + c]);
-            }
+    // Floyd completo sobre la capa c, anotado en las métricas y como evento de JFR
+    private TablaRutas calcularTabla(int c, CausaRecalculo causa) {
+        EventoRecalculo evento = new EventoRecalculo();
+        evento.begin();
+        long inicio = System.nanoTime();
+        TablaRutas tabla = TablaRutas.calcular(matrizPesos, c, motor);
+        metricas.registrarRecalculo(causa, System.nanoTime() - inicio);
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.causa = causa.name();
+            evento.clima = c;
+            evento.ciudades = numeroCiudades;
+            evento.commit();
         }
+        return tabla;
+    }
 
-        // Aplica el algoritmo de Floyd al clima actual
-        recalcularFloyd();
-    }
-
-    // Agrega una ciudad nueva si no existe
-    public void agregarCiudad(String nombre) {
-        if (!ciudadIndices.containsKey(nombre)) {
-            int newIndex = ciudades.size();
-            ciudadIndices.put(nombre, newIndex);
-            ciudades.add(new Ciudad(nombre));
-            // Resize matrices to accommodate the new city
-            int n = ciudades.size();
-            int[][][] newMatrizPesos = new int[4][n][n];
-            int[][] newDistancias = new int[n][n];
-            int[][] newRutas = new int[n][n];
-            for (int c = 0; c < 4; c++) {
-                for (int i = 0; i < n - 1; i++)
-                    System.arraycopy(matrizPesos[c][i], 0, newMatrizPesos[c][i], 0, n - 1);
-                Arrays.fill(newMatrizPesos[c][n - 1], INF);
-                for (int j = 0; j < n; j++)
-                    newMatrizPesos[c][j][n - 1] = INF;
+    // Carga el grafo desde un archivo de texto con el formato indicado
+    // (una conexión por línea: "origen destino normal lluvia nieve tormenta").
+    // Primero se leen las líneas numerando los nombres; después se llena la matriz de pesos
+    // de una sola vez y Floyd se ejecuta una única vez al final.
+    // Las ciudades nuevas solo se registran si el archivo entero es válido: si falla, el grafo no cambia
+    public synchronized void cargarDesdeArchivo(String archivo) throws Exception {
+        long inicio = System.nanoTime();
+
+        // Fase 1: lee el archivo en streaming, numera las ciudades nuevas aparte y guarda las conexiones
+        // en arreglos primitivos
+        Map<String, Integer> nuevas = new HashMap<>();
+        List<String> nombresNuevos = new ArrayList<>();
+        int[] origenes = new int[256];
+        int[] destinos = new int[256];
+        int[] tiempos = new int[256 * 4];
+        int filas = 0;
+        int numeroLinea = 0;
+        try (BufferedReader lector = Files.newBufferedReader(Paths.get(archivo))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                int pos = saltarEspacios(linea, 0);
+                if (pos == linea.length()) continue; // Línea vacía
+                if (filas == origenes.length) {
+                    origenes = Arrays.copyOf(origenes, filas * 2);
+                    destinos = Arrays.copyOf(destinos, filas * 2);
+                    tiempos = Arrays.copyOf(tiempos, filas * 2 * 4);
+                }
+                int fin = finDeToken(linea, pos);
+                origenes[filas] = indiceAlCargar(linea.substring(pos, fin), nuevas, nombresNuevos);
+                pos = saltarEspacios(linea, fin);
+                fin = finDeToken(linea, pos);
+                if (pos == fin)
+                    throw new IllegalArgumentException("Línea " + numeroLinea + " incompleta: " + linea);
+                destinos[filas] = indiceAlCargar(linea.substring(pos, fin), nuevas, nombresNuevos);
+                for (int c = 0; c < 4; c++) {
+                    pos = saltarEspacios(linea, fin);
+                    fin = finDeToken(linea, pos);
+                    if (pos == fin)
+                        throw new IllegalArgumentException("Línea " + numeroLinea + " incompleta: " + linea);
+                    tiempos[filas * 4 + c] = Integer.parseInt(linea, pos, fin, 10);
+                }
+                filas++;
             }
-            for (int i = 0; i < n - 1; i++)
-                System.arraycopy(distancias[i], 0, newDistancias[i], 0, n - 1);
-            Arrays.fill(newDistancias[n - 1], INF);
-            for (int j = 0; j < n; j++)
-                newDistancias[j][n - 1] = INF;
-            for (int i = 0; i < n - 1; i++)
-                System.arraycopy(rutas[i], 0, newRutas[i], 0, n - 1);
-            Arrays.fill(newRutas[n - 1], -1);
-            for (int j = 0; j < n; j++)
-                newRutas[j][n - 1] = -1;
-            matrizPesos = newMatrizPesos;
-            distancias = newDistancias;
-            rutas = newRutas;
-            recalcularFloyd();
         }
+
+        // Fase 2: una sola asignación para las conexiones de los 4 climas, todavía sin tocar el grafo
+        int n = numeroCiudades + nombresNuevos.size();
+        boolean negativos = tiemposNegativos(tiempos, filas * 4);
+        boolean nuevoDisperso = usarDisperso(n, filas, negativos);
+        if (nuevoDisperso && negativos)
+            throw new IllegalArgumentException("Los tiempos negativos solo se admiten en la representación densa");
+        MatrizPesos nuevaMatriz = null;
+        ListaAdyacencia nuevaAdyacencia = null;
+        if (nuevoDisperso) {
+            nuevaAdyacencia = ListaAdyacencia.desdeAristas(n, origenes, destinos, tiempos, filas);
+        } else {
+            // La matriz nueva empieza con valores infinitos
+            nuevaMatriz = new MatrizPesos(n, pesosCompactos);
+            for (int f = 0; f < filas; f++)
+                for (int c = 0; c < 4; c++)
+                    nuevaMatriz.set(c, origenes[f], destinos[f], tiempos[f * 4 + c]);
+        }
+
+        // Todo es válido: registra las ciudades (reciben los índices numerados en la fase 1) y sustituye las conexiones
+        for (String nombre : nombresNuevos) registrarCiudad(nombre);
+        invalidarClimas();
+        disperso = nuevoDisperso;
+        matrizPesos = nuevaMatriz;
+        adyacencia = nuevaAdyacencia;
+        reconstruirConexionesTemporales();
+        long finLectura = System.nanoTime();
+
+        // Aplica el algoritmo de Floyd al clima actual (la representación dispersa no lo necesita)
+        referencias = new AtomicReferenceArray<>(4);
+        jerarquias = null;
+        recalcular(CausaRecalculo.CARGA);
+        long fin = System.nanoTime();
+        ultimaCarga = new EstadisticasCarga(filas, n, finLectura - inicio, fin - finLectura);
+        metricas.registrarCarga(fin - inicio);
     }
 
-    // Elimina una conexión entre dos ciudades en todos los climas
-    public void eliminarConexion(String origen, String destino) {
-        int i = ciudadIndices.get(origen);
-        int j = ciudadIndices.get(destino);
+    // Guarda el grafo en formato binario (ver ArchivoGrafo): ciudades, pesos y las capas de rutas
+    // que estén en caché, para arrancar después con cargarBinario sin leer el texto ni ejecutar Floyd
+    public synchronized void guardarBinario(String archivo) throws IOException {
+        ArchivoGrafo.guardar(Paths.get(archivo), ciudades, numeroCiudades, clima, matrizPesos,
+                disperso ? adyacencia : null, tablas);
+    }
+
+    // Sustituye el contenido del grafo por el de un archivo binario. Las capas de rutas guardadas
+    // se usan tal cual; si la del clima guardado no estaba, se calcula al publicar.
+    // Si el archivo está dañado lanza IOException y el grafo no cambia
+    public synchronized void cargarBinario(String archivo) throws IOException {
+        long inicio = System.nanoTime();
+        ArchivoGrafo.Contenido contenido = ArchivoGrafo.cargar(Paths.get(archivo), pesosCompactos);
+        if (new HashSet<>(Arrays.asList(contenido.nombres)).size() != contenido.nombres.length)
+            throw new IOException("Nombres de ciudad repetidos en " + archivo);
+
+        // Mapa y arreglo nuevos: los estados ya publicados siguen usando los anteriores
+        ciudadIndices = new IndiceNombres();
+        ciudades = new Ciudad[Math.max(16, contenido.nombres.length)];
+        numeroCiudades = 0;
+        for (String nombre : contenido.nombres) registrarCiudad(nombre);
+
+        disperso = contenido.adyacencia != null;
+        matrizPesos = contenido.pesos;
+        adyacencia = contenido.adyacencia;
+        referencias = new AtomicReferenceArray<>(4);
+        jerarquias = null;
+        clima = contenido.clima;
+        temperaturaActual = null;
+        invalidarClimas();
+        // La capa del clima actual se guarda la última para que sea la más reciente en la caché
         for (int c = 0; c < 4; c++)
-            matrizPesos[c][i][j] = INF;
-        recalcularFloyd();
+            if (c != clima && contenido.tablas[c] != null) guardarEnCache(c, contenido.tablas[c]);
+        if (contenido.tablas[clima] != null) guardarEnCache(clima, contenido.tablas[clima]);
+        reconstruirConexionesTemporales();
+        publicar(CausaRecalculo.CARGA);
+        metricas.registrarCarga(System.nanoTime() - inicio);
     }
 
-    // Agrega o actualiza una conexión entre ciudades con los tiempos por clima
-    public void agregarConexion(String origen, String destino, int[] tiempos) {
-        agregarCiudad(origen);
-        agregarCiudad(destino);
-        int i = ciudadIndices.get(origen);
-        int j = ciudadIndices.get(destino);
+    // Estadísticas de la última llamada a cargarDesdeArchivo (null si no se ha cargado nada)
+    public EstadisticasCarga getUltimaCarga() {
+        return ultimaCarga;
+    }
+
+    // Índice que tendrá el nombre al terminar la carga: el suyo si ya existe o el siguiente libre si es nuevo
+    private int indiceAlCargar(String nombre, Map<String, Integer> nuevas, List<String> nombresNuevos) {
+        int indice = ciudadIndices.buscar(nombre);
+        if (indice >= 0) return indice;
+        Integer asignado = nuevas.get(nombre);
+        if (asignado != null) return asignado;
+        indice = numeroCiudades + nombresNuevos.size();
+        nuevas.put(nombre, indice);
+        nombresNuevos.add(nombre);
+        return indice;
+    }
+
+    private static int saltarEspacios(String linea, int pos) {
+        while (pos < linea.length() && Character.isWhitespace(linea.charAt(pos))) pos++;
+        return pos;
+    }
+
+    private static int finDeToken(String linea, int pos) {
+        while (pos < linea.length() && !Character.isWhitespace(linea.charAt(pos))) pos++;
+        return pos;
+    }
+
+    // Registra el nombre si es nuevo, sin tocar las matrices, y devuelve su índice.
+    // La ciudad se escribe en el arreglo antes que en el índice para que un lector nunca vea un índice vacío
+    private int registrarCiudad(String nombre) {
+        int indice = ciudadIndices.buscar(nombre);
+        if (indice >= 0) return indice;
+        int nuevo = numeroCiudades;
+        if (nuevo == ciudades.length)
+            ciudades = Arrays.copyOf(ciudades, 2 * nuevo);
+        ciudades[nuevo] = new Ciudad(nombre, nuevo);
+        numeroCiudades++;
+        ciudadIndices.agregar(nombre, nuevo);
+        return nuevo;
+    }
+
+    // Agrega una ciudad nueva si no existe. Una ciudad sin conexiones no cambia ninguna ruta,
+    // así que las tablas en caché solo se amplían con una fila y columna infinitas
+    public synchronized void agregarCiudad(String nombre) {
+        if (ampliarConCiudad(nombre)) publicar(CausaRecalculo.CIUDAD);
+    }
+
+    // Registra la ciudad y amplía las estructuras sin publicar; devuelve false si ya existía
+    private boolean ampliarConCiudad(String nombre) {
+        if (ciudadIndices.buscar(nombre) >= 0) return false;
+        // En modo denso forzado se comprueba antes de registrar la ciudad para no dejarla a medias
+        if (!disperso && numeroCiudades >= MatrizPesos.CAPACIDAD_MAXIMA)
+            throw new IllegalStateException("La matriz de pesos no admite más de "
+                    + MatrizPesos.CAPACIDAD_MAXIMA + " ciudades");
+        if (!disperso && modo == Modo.AUTOMATICO && numeroCiudades >= CIUDADES_MAX_DENSO && matrizPesos.tieneNegativos())
+            throw new IllegalStateException("Con más de " + CIUDADES_MAX_DENSO
+                    + " ciudades el grafo pasa a modo disperso, que no admite tiempos negativos");
+        registrarCiudad(nombre);
+        int n = numeroCiudades;
+        if (!disperso && modo == Modo.AUTOMATICO && n > CIUDADES_MAX_DENSO)
+            convertirADisperso();
+        if (disperso) {
+            adyacencia = adyacencia.conCiudades(n);
+            referencias = new AtomicReferenceArray<>(4);
+            return true;
+        }
+        // La matriz solo se realoja cuando se agota su capacidad
+        matrizPesos.crecer(n);
+        if (conexionesTemporales != null) conexionesTemporales = conexionesTemporales.conCiudades(n);
         for (int c = 0; c < 4; c++)
-            matrizPesos[c][i][j] = tiempos[c];
-        recalcularFloyd();
+            if (tablas[c] != null) tablas[c] = tablas[c].ampliada(n);
+        liberarCapasFrias(clima);
+        return true;
+    }
+
+    // Elimina una conexión entre dos ciudades en todos los climas
+    public synchronized void eliminarConexion(String origen, String destino) {
+        quitarConexion(estado.indice(origen), estado.indice(destino));
+    }
+
+    public synchronized void eliminarConexion(Ciudad origen, Ciudad destino) {
+        quitarConexion(estado.indice(origen), estado.indice(destino));
+    }
+
+    private void quitarConexion(int i, int j) {
+        if (disperso) {
+            adyacencia = adyacencia.conArista(i, j, null);
+            referencias = new AtomicReferenceArray<>(4);
+            publicar(CausaRecalculo.CONEXION);
+            return;
+        }
+        int[] anteriores = new int[4];
+        for (int c = 0; c < 4; c++) {
+            anteriores[c] = matrizPesos.get(c, i, j);
+            matrizPesos.set(c, i, j, INF);
+        }
+        if (conexionesTemporales != null) conexionesTemporales = conexionesTemporales.conArista(i, j, null);
+        actualizarArista(i, j, anteriores);
+        publicar(CausaRecalculo.CONEXION);
+    }
+
+    // Agrega o actualiza una conexión entre ciudades con los tiempos por clima
+    public synchronized void agregarConexion(String origen, String destino, int[] tiempos) {
+        ampliarConCiudad(origen);
+        ampliarConCiudad(destino);
+        conectar(ciudadIndices.buscar(origen), ciudadIndices.buscar(destino), tiempos);
+    }
+
+    // Igual que la anterior entre ciudades que ya existen, por índice o por la Ciudad del grafo
+    public synchronized void agregarConexion(int origen, int destino, int[] tiempos) {
+        // getCiudad lanza IndexOutOfBoundsException si alguna no existe
+        estado.getCiudad(origen);
+        estado.getCiudad(destino);
+        conectar(origen, destino, tiempos);
+    }
+
+    public synchronized void agregarConexion(Ciudad origen, Ciudad destino, int[] tiempos) {
+        conectar(estado.indice(origen), estado.indice(destino), tiempos);
+    }
+
+    private void conectar(int i, int j, int[] tiempos) {
+        if (disperso && tiemposNegativos(tiempos, 4))
+            throw new IllegalArgumentException("Los tiempos negativos solo se admiten en la representación densa");
+        if (disperso) {
+            ListaAdyacencia anterior = adyacencia;
+            adyacencia = adyacencia.conArista(i, j, tiempos.clone());
+            if (alcanzabilidad != null && alcanzabilidad.conexiones == anterior)
+                alcanzabilidad = alcanzabilidad.trasAgregar(adyacencia, new int[]{i}, new int[]{j}, tiempos, 1);
+            referencias = new AtomicReferenceArray<>(4);
+            publicar(CausaRecalculo.CONEXION);
+            return;
+        }
+        int[] anteriores = new int[4];
+        for (int c = 0; c < 4; c++) {
+            anteriores[c] = matrizPesos.get(c, i, j);
+            matrizPesos.set(c, i, j, tiempos[c]);
+        }
+        if (conexionesTemporales != null) conexionesTemporales = conexionesTemporales.conArista(i, j, tiempos.clone());
+        actualizarArista(i, j, anteriores);
+        publicar(CausaRecalculo.CONEXION);
+    }
+
+    // Propaga el cambio de la arista u -> v a todas las capas de clima en caché, sin recalcular Floyd completo.
+    // Las tablas ya publicadas se copian antes de modificarlas. Devuelve cuántas capas hubo que recalcular
+    private int actualizarArista(int u, int v, int[] anteriores) {
+        int recalculos = 0;
+        for (int c = 0; c < 4; c++) {
+            TablaRutas tabla = tablas[c];
+            if (tabla == null || anteriores[c] == matrizPesos.get(c, u, v)) continue;
+            if (tabla.publicada) tabla = tabla.copia();
+            if (tabla.actualizarArista(matrizPesos, c, u, v, anteriores[c], matrizPesos.get(c, u, v))) {
+                metricas.registrarIncremental();
+            } else {
+                tabla = calcularTabla(c, CausaRecalculo.CONEXION);
+                recalculos++;
+            }
+            tablas[c] = tabla;
+        }
+        return recalculos;
+    }
+
+    // Aplica varios cambios de conexiones de una vez, por ejemplo:
+    //   grafo.lote(b -> { b.eliminar("A", "B"); b.agregar("A", "C", tiempos); });
+    // Los cambios se aplican en orden y el nuevo estado se publica una sola vez al final. Los lotes
+    // pequeños actualizan las tablas arista por arista; los grandes recalculan Floyd una sola vez
+    public synchronized void lote(Consumer<LoteCambios> cambios) {
+        LoteCambios lote = new LoteCambios();
+        cambios.accept(lote);
+        int total = lote.tamano();
+        if (total == 0) return;
+        validarLote(lote);
+
+        for (int k = 0; k < total; k++)
+            if (lote.tiempos(k) != null) {
+                ampliarConCiudad(lote.origen(k));
+                ampliarConCiudad(lote.destino(k));
+            }
+        int[] origenes = new int[total];
+        int[] destinos = new int[total];
+        for (int k = 0; k < total; k++) {
+            origenes[k] = ciudadIndices.buscar(lote.origen(k));
+            destinos[k] = ciudadIndices.buscar(lote.destino(k));
+        }
+
+        if (disperso) aplicarLoteDisperso(lote, origenes, destinos);
+        else aplicarLoteDenso(lote, origenes, destinos);
+        lotes++;
+        cambiosEnLotes += total;
+        publicar(CausaRecalculo.LOTE);
+    }
+
+    // Comprueba antes de tocar nada que las conexiones a eliminar sean de ciudades conocidas,
+    // contando las que el propio lote agrega antes, y que no haya tiempos negativos si el grafo es
+    // (o pasará a ser por las ciudades nuevas) disperso
+    private void validarLote(LoteCambios lote) {
+        Set<String> nuevas = new HashSet<>();
+        boolean negativos = false;
+        for (int k = 0; k < lote.tamano(); k++) {
+            if (lote.tiempos(k) != null) {
+                for (String nombre : new String[]{lote.origen(k), lote.destino(k)})
+                    if (ciudadIndices.buscar(nombre) < 0) nuevas.add(nombre);
+                negativos |= tiemposNegativos(lote.tiempos(k), 4);
+                continue;
+            }
+            for (String nombre : new String[]{lote.origen(k), lote.destino(k)})
+                if (ciudadIndices.buscar(nombre) < 0 && !nuevas.contains(nombre))
+                    throw new IllegalArgumentException("La ciudad " + nombre + " no existe en el grafo");
+        }
+        boolean seraDisperso = disperso
+                || (modo == Modo.AUTOMATICO && numeroCiudades + nuevas.size() > CIUDADES_MAX_DENSO);
+        if (negativos && seraDisperso)
+            throw new IllegalArgumentException("Los tiempos negativos solo se admiten en la representación densa");
+    }
+
+    private static boolean tiemposNegativos(int[] tiempos, int cantidad) {
+        for (int k = 0; k < cantidad; k++)
+            if (tiempos[k] < 0) return true;
+        return false;
+    }
+
+    private void aplicarLoteDenso(LoteCambios lote, int[] origenes, int[] destinos) {
+        int total = lote.tamano();
+        if (conexionesTemporales != null)
+            conexionesTemporales = conexionesTemporales.conAristas(origenes, destinos, tiemposDelLote(lote), total);
+        Set<Long> distintas = new HashSet<>();
+        for (int k = 0; k < total; k++)
+            distintas.add((long) origenes[k] * numeroCiudades + destinos[k]);
+
+        if ((long) distintas.size() * CIUDADES_POR_CAMBIO_INCREMENTAL <= numeroCiudades) {
+            // Cada actualización incremental supone que el resto de pesos ya está en las tablas,
+            // así que los cambios se aplican de uno en uno
+            int[] anteriores = new int[4];
+            for (int k = 0; k < total; k++) {
+                int[] tiempos = lote.tiempos(k);
+                for (int c = 0; c < 4; c++) {
+                    anteriores[c] = matrizPesos.get(c, origenes[k], destinos[k]);
+                    matrizPesos.set(c, origenes[k], destinos[k], tiempos == null ? INF : tiempos[c]);
+                }
+                recalculosEnLotes += actualizarArista(origenes[k], destinos[k], anteriores);
+            }
+            lotesIncrementales++;
+            return;
+        }
+
+        // Muchos cambios: se escriben todos los pesos y solo se recalcula la capa del clima actual;
+        // las demás se descartan y se calculan de nuevo cuando se vuelvan a usar
+        for (int k = 0; k < total; k++) {
+            int[] tiempos = lote.tiempos(k);
+            for (int c = 0; c < 4; c++)
+                matrizPesos.set(c, origenes[k], destinos[k], tiempos == null ? INF : tiempos[c]);
+        }
+        invalidarClimas();
+        guardarEnCache(clima, calcularTabla(clima, CausaRecalculo.LOTE));
+        recalculosEnLotes++;
+    }
+
+    private void aplicarLoteDisperso(LoteCambios lote, int[] origenes, int[] destinos) {
+        ListaAdyacencia anterior = adyacencia;
+        int[] tiempos = tiemposDelLote(lote);
+        adyacencia = adyacencia.conAristas(origenes, destinos, tiempos, lote.tamano());
+        if (alcanzabilidad != null && alcanzabilidad.conexiones == anterior)
+            alcanzabilidad = alcanzabilidad.trasAgregar(adyacencia, origenes, destinos, tiempos, lote.tamano());
+        // Sin tablas no hay recálculo: las búsquedas usan la lista nueva directamente
+        referencias = new AtomicReferenceArray<>(4);
+    }
+
+    // Tiempos del lote en un arreglo plano de 4 por cambio, con INF en las eliminaciones
+    private int[] tiemposDelLote(LoteCambios lote) {
+        int total = lote.tamano();
+        int[] tiempos = new int[total * 4];
+        for (int k = 0; k < total; k++) {
+            int[] t = lote.tiempos(k);
+            for (int c = 0; c < 4; c++) tiempos[k * 4 + c] = t == null ? INF : t[c];
+        }
+        return tiempos;
     }
 
-    // Cambia el clima actual y recalcula las rutas más cortas
-    public void establecerClima(int clima) {
+    public synchronized EstadisticasLotes getEstadisticasLotes() {
+        return new EstadisticasLotes(lotes, cambiosEnLotes, lotesIncrementales, recalculosEnLotes);
+    }
+
+    // Cambia el clima actual; si la capa ya está en caché el cambio es inmediato
+    public synchronized void establecerClima(int clima) {
         this.clima = clima;
         this.temperaturaActual = null; // Reset temperature when manually setting climate
-        recalcularFloyd();
+        publicar(CausaRecalculo.CLIMA);
     }
 
     // Establece el clima basado en la temperatura en grados Celsius
-    public void establecerClimaPorTemperatura(double temperatura) {
+    public synchronized void establecerClimaPorTemperatura(double temperatura) {
         this.temperaturaActual = temperatura;
         if (temperatura >= 15) {
             this.clima = 0; // Normal
@@ -140,128 +593,476 @@ public class Grafo {
         } else {
             this.clima = 3; // Tormenta
         }
-        recalcularFloyd();
+        publicar(CausaRecalculo.CLIMA);
     }
 
-    // Algoritmo de Floyd-Warshall para encontrar rutas más cortas entre todos los pares
-    public void recalcularFloyd() {
-        int n = ciudades.size();
-        distancias = new int[n][n];
-        rutas = new int[n][n];
+    // Algoritmo de Floyd-Warshall para encontrar rutas más cortas entre todos los pares del clima actual.
+    // En la representación dispersa no hay tablas que recalcular: cada consulta usa Dijkstra
+    public synchronized void recalcularFloyd() {
+        recalcular(CausaRecalculo.MANUAL);
+    }
 
-        // Inicializa matrices de distancias y rutas
-        for (int i = 0; i < n; i++)
-            for (int j = 0; j < n; j++) {
-                distancias[i][j] = matrizPesos[clima][i][j];
-                rutas[i][j] = (i == j || distancias[i][j] == INF) ? -1 : i;
-            }
+    private void recalcular(CausaRecalculo causa) {
+        if (!disperso)
+            guardarEnCache(clima, calcularTabla(clima, causa));
+        publicar(causa);
+    }
+
+    // Cambia el motor de Floyd (por ejemplo, FloydSecuencial o FloydBloques con otro bloque o paralelismo).
+    // Todos los motores dan el mismo resultado, así que las capas en caché siguen siendo válidas
+    public synchronized void setMotorRutas(MotorRutas motor) {
+        this.motor = motor;
+    }
 
-        // Aplica la fórmula de Floyd
-        for (int k = 0; k < n; k++)
-            for (int i = 0; i < n; i++)
-                for (int j = 0; j < n; j++)
-                    if (distancias[i][k] != INF && distancias[k][j] != INF &&
-                        distancias[i][k] + distancias[k][j] < distancias[i][j]) {
-                        distancias[i][j] = distancias[i][k] + distancias[k][j];
-                        rutas[i][j] = rutas[k][j];
-                    }
+    public MotorRutas getMotorRutas() {
+        return motor;
+    }
+
+    // Calcula en paralelo las capas de clima que falten, hasta donde lo permita el límite de memoria
+    public synchronized void precalcularClimas() {
+        if (disperso) return;
+        int capas = capasPermitidas(numeroCiudades);
+        List<Integer> pendientes = new ArrayList<>();
+        // Empieza por el clima actual para que nunca sea la capa que se queda fuera
+        for (int k = 0; k < 4 && capasEnCache() + pendientes.size() < capas; k++) {
+            int c = (clima + k) % 4;
+            if (tablas[c] == null) pendientes.add(c);
+        }
+
+        TablaRutas[] calculadas = new TablaRutas[4];
+        pendientes.parallelStream().forEach(c -> calculadas[c] = calcularTabla(c, CausaRecalculo.PRECALCULO));
+        for (int c : pendientes)
+            guardarEnCache(c, calculadas[c]);
+        publicar(CausaRecalculo.PRECALCULO);
+    }
+
+    // Memoria máxima (en bytes) para las capas de clima en caché. Siempre se conserva la capa actual
+    public synchronized void setLimiteMemoriaClimas(long bytes) {
+        this.limiteMemoriaClimas = bytes;
+        liberarCapasFrias(clima);
+    }
+
+    // Fija la representación (DENSO, DISPERSO) o deja que se elija según tamaño y densidad (AUTOMATICO)
+    // Pasar a DISPERSO con tiempos negativos lanza IllegalStateException y el modo no cambia
+    public synchronized void setModo(Modo modo) {
+        boolean negativos = !disperso && matrizPesos.tieneNegativos();
+        if (modo == Modo.DISPERSO && negativos)
+            throw new IllegalStateException("El modo disperso no admite tiempos negativos");
+        this.modo = modo;
+        boolean quiereDisperso = modo == Modo.DISPERSO
+                || (modo == Modo.AUTOMATICO && usarDisperso(numeroCiudades, contarConexiones(), negativos));
+        if (quiereDisperso && !disperso) convertirADisperso();
+        else if (!quiereDisperso && disperso) convertirADenso();
+        publicar(CausaRecalculo.CONFIGURACION);
+    }
+
+    public Modo getModo() {
+        return modo;
+    }
+
+    // Indica si se está usando la lista de adyacencia con Dijkstra en lugar de Floyd
+    public boolean esDisperso() {
+        return disperso;
+    }
+
+    // En la representación dispersa, usa A* bidireccional con el número indicado de puntos de referencia
+    // (0 vuelve a Dijkstra simple). Los puntos se calculan al primer uso en cada clima
+    public synchronized void setPuntosReferencia(int cantidad) {
+        this.puntosReferencia = cantidad;
+        referencias = new AtomicReferenceArray<>(4);
+        publicar(CausaRecalculo.CONFIGURACION);
+    }
+
+    // Modelo de pesos por región y hora que usan llegadaMasTemprana y las consultas temporales del estado
+    public synchronized void setModeloTemporal(ModeloTemporal modelo) {
+        this.modeloTemporal = Objects.requireNonNull(modelo);
+        prepararConexionesTemporales();
+        publicar(CausaRecalculo.CONFIGURACION);
+    }
+
+    public ModeloTemporal getModeloTemporal() {
+        return estado.getModeloTemporal();
+    }
+
+    // Asigna la ciudad a una región del modelo temporal
+    public synchronized void setRegion(String ciudad, int region) {
+        setModeloTemporal(modeloTemporal.conRegion(estado.indice(ciudad), region));
+    }
+
+    // Deja listas las consultas temporales y de rutas alternativas en los estados publicados. En modo denso
+    // construye la copia CSR de las conexiones (O(n²) una sola vez); llegadaMasTemprana y
+    // rutasAlternativas lo hacen solas la primera vez
+    public synchronized void prepararConsultasTemporales() {
+        if (prepararConexionesTemporales()) publicar(CausaRecalculo.CONFIGURACION);
+    }
+
+    // Devuelve true si ha tenido que construir las conexiones
+    private boolean prepararConexionesTemporales() {
+        if (disperso || conexionesTemporales != null) return false;
+        conexionesTemporales = ListaAdyacencia.desdeMatriz(matrizPesos);
+        return true;
+    }
+
+    // Tras sustituir la matriz de pesos entera, rehace la copia CSR si las consultas temporales estaban en uso
+    private void reconstruirConexionesTemporales() {
+        if (disperso) conexionesTemporales = null;
+        else if (conexionesTemporales != null) conexionesTemporales = ListaAdyacencia.desdeMatriz(matrizPesos);
+    }
+
+    // En modo disperso responde las consultas punto a punto con jerarquías de contracción
+    // (JerarquiaContraccion), una por clima construida al primer uso. Cuando cambian las conexiones se
+    // rehacen con el mismo orden de contracción. Con false se vuelve a Dijkstra o A*
+    public synchronized void setJerarquias(boolean activar) {
+        usarJerarquias = activar;
+        if (!activar) jerarquias = null;
+        publicar(CausaRecalculo.CONFIGURACION);
+    }
+
+    public synchronized boolean usaJerarquias() {
+        return usarJerarquias;
+    }
+
+    // Construye en paralelo las jerarquías de los cuatro climas que falten
+    public synchronized void precalcularJerarquias() {
+        if (!disperso || !usarJerarquias) return;
+        IndiceJerarquias indice = jerarquias;
+        IntStream.range(0, 4).parallel().forEach(indice::obtener);
+    }
+
+    // Jerarquía del clima actual, construida si hacía falta (por ejemplo, para guardarla con
+    // JerarquiaContraccion.guardar); null si no se usan jerarquías o el modo es denso
+    public JerarquiaContraccion getJerarquia() {
+        return estado.getJerarquia();
+    }
+
+    // Usa una jerarquía leída de un archivo en lugar de construirla. Debe venir de estas mismas conexiones
+    // y pesos: se comprueba con su huella y si no coincide lanza IllegalArgumentException
+    public synchronized void instalarJerarquia(JerarquiaContraccion jerarquia) {
+        if (!disperso || !usarJerarquias)
+            throw new IllegalStateException("Las jerarquías solo se usan en modo disperso tras setJerarquias(true)");
+        if (!jerarquias.instalar(jerarquia))
+            throw new IllegalArgumentException("La jerarquía no corresponde a las conexiones actuales");
+    }
+
+    // Decide la representación: dispersa si no cabe la densa o si hay muchas ciudades y pocas conexiones.
+    // Los tiempos negativos solo se admiten en la densa: Floyd los maneja (y las actualizaciones
+    // incrementales recurren a él), pero las búsquedas dispersas asientan cada ciudad una sola vez y
+    // darían distancias erróneas. Con ellos el modo automático se queda en la densa mientras quepa;
+    // si no cabe, quien llama rechaza el cambio
+    private boolean usarDisperso(int n, long conexiones, boolean negativos) {
+        if (modo != Modo.AUTOMATICO) return modo == Modo.DISPERSO;
+        if (n > CIUDADES_MAX_DENSO) return true;
+        return !negativos && n >= CIUDADES_MIN_DISPERSO && conexiones < DENSIDAD_MAX_DISPERSO * n * n;
+    }
+
+    private long contarConexiones() {
+        if (disperso) return adyacencia.m;
+        return ListaAdyacencia.desdeMatriz(matrizPesos).m;
+    }
+
+    private void convertirADisperso() {
+        adyacencia = ListaAdyacencia.desdeMatriz(matrizPesos);
+        matrizPesos = null;
+        conexionesTemporales = null;
+        invalidarClimas();
+        disperso = true;
+    }
+
+    private void convertirADenso() {
+        matrizPesos = new MatrizPesos(adyacencia.n, pesosCompactos);
+        adyacencia.escribirEn(matrizPesos);
+        // La lista dispersa ya es la copia CSR que necesitan las consultas temporales
+        conexionesTemporales = adyacencia;
+        adyacencia = null;
+        referencias = new AtomicReferenceArray<>(4);
+        disperso = false;
+        invalidarClimas();
+    }
+
+    // Indica si la capa del clima dado está calculada y en caché
+    public synchronized boolean climaEnCache(int clima) {
+        return tablas[clima] != null;
+    }
+
+    // Devuelve la tabla del clima actual, calculándola si no está en caché (solo para escritores)
+    private TablaRutas tablaActual(CausaRecalculo causa) {
+        TablaRutas tabla = tablas[clima];
+        if (tabla == null) {
+            tabla = calcularTabla(clima, causa);
+            guardarEnCache(clima, tabla);
+        }
+        tabla.ultimoUso = ++reloj;
+        return tabla;
+    }
+
+    // Guarda una capa en caché y descarta capas frías si se supera el límite de memoria
+    private void guardarEnCache(int c, TablaRutas tabla) {
+        tabla.ultimoUso = ++reloj;
+        tablas[c] = tabla;
+        liberarCapasFrias(c);
+    }
+
+    // Descarta las capas usadas hace más tiempo hasta respetar el límite, sin tocar la capa indicada
+    private void liberarCapasFrias(int conservar) {
+        int capas = capasPermitidas(numeroCiudades);
+        while (capasEnCache() > capas) {
+            int masFria = -1;
+            for (int c = 0; c < 4; c++)
+                if (c != conservar && tablas[c] != null
+                        && (masFria == -1 || tablas[c].ultimoUso < tablas[masFria].ultimoUso))
+                    masFria = c;
+            if (masFria == -1) return;
+            tablas[masFria] = null;
+        }
+    }
+
+    // Número de capas que caben en el límite de memoria (al menos una)
+    private int capasPermitidas(int n) {
+        long porCapa = Math.max(1, TablaRutas.bytesPorTabla(n));
+        return (int) Math.max(1, Math.min(4, limiteMemoriaClimas / porCapa));
+    }
+
+    private int capasEnCache() {
+        int total = 0;
+        for (TablaRutas tabla : tablas)
+            if (tabla != null) total++;
+        return total;
+    }
+
+    // Descarta todas las capas calculadas (por ejemplo, al cambiar el número de ciudades)
+    private void invalidarClimas() {
+        Arrays.fill(tablas, null);
     }
 
     // Devuelve el camino más corto entre dos ciudades en forma de lista
     public List<String> caminoMasCorto(String origen, String destino) {
-        int i = ciudadIndices.get(origen);
-        int j = ciudadIndices.get(destino);
-        if (distancias[i][j] == INF) return Collections.emptyList();
-
-        LinkedList<String> camino = new LinkedList<>();
-        camino.add(ciudades.get(j).getNombre());
-        while (j != i) {
-            j = rutas[i][j];
-            camino.addFirst(ciudades.get(j).getNombre());
-        }
+        long inicio = System.nanoTime();
+        List<String> camino = estado.caminoMasCorto(origen, destino);
+        metricas.registrarCamino(System.nanoTime() - inicio);
+        return camino;
+    }
+
+    // Camino más corto como lista de ciudades (vacía si no hay ruta)
+    public List<Ciudad> caminoMasCorto(Ciudad origen, Ciudad destino) {
+        long inicio = System.nanoTime();
+        List<Ciudad> camino = estado.caminoMasCorto(origen, destino);
+        metricas.registrarCamino(System.nanoTime() - inicio);
         return camino;
     }
 
+    // Escribe en el buffer el camino más corto por índices de ciudad, sin crear objetos si el buffer
+    // ya tiene capacidad suficiente. Devuelve false (y deja el buffer vacío) si no hay ruta
+    public boolean caminoMasCorto(int origen, int destino, BufferRuta buffer) {
+        long inicio = System.nanoTime();
+        boolean hayRuta = estado.caminoMasCorto(origen, destino, buffer);
+        metricas.registrarCamino(System.nanoTime() - inicio);
+        return hayRuta;
+    }
+
+    // Escribe en salida los índices del camino más corto y devuelve cuántas ciudades tiene
+    // (0 si no hay ruta). Si salida es demasiado corto no escribe nada y devuelve -longitud necesaria
+    public int caminoMasCorto(int origen, int destino, int[] salida) {
+        long inicio = System.nanoTime();
+        int longitud = estado.caminoMasCorto(origen, destino, salida);
+        metricas.registrarCamino(System.nanoTime() - inicio);
+        return longitud;
+    }
+
+    // Índice de la ciudad con ese nombre, o -1 si no existe
+    public int getIndice(String nombre) {
+        return estado.getIndice(nombre);
+    }
+
+    // Ciudad correspondiente a un índice, para mostrar caminos obtenidos por índices
+    public Ciudad getCiudad(int indice) {
+        return estado.getCiudad(indice);
+    }
+
+    // Ciudad con ese nombre (lleva su índice, ver Ciudad.getId), o null si no existe
+    public Ciudad getCiudad(String nombre) {
+        return estado.getCiudad(nombre);
+    }
+
+    // Indica si hay ruta de origen a destino (con origen == destino, si hay un ciclo que vuelva).
+    // En modo disperso lo contesta el índice de componentes sin buscar casi siempre
+    public boolean hayRuta(String origen, String destino) {
+        long inicio = System.nanoTime();
+        boolean hayRuta = estado.hayRuta(origen, destino);
+        metricas.registrarDistancia(System.nanoTime() - inicio);
+        return hayRuta;
+    }
+
+    public boolean hayRuta(int origen, int destino) {
+        long inicio = System.nanoTime();
+        boolean hayRuta = estado.hayRuta(origen, destino);
+        metricas.registrarDistancia(System.nanoTime() - inicio);
+        return hayRuta;
+    }
+
     // Returns the shortest path distance between two cities
     public int getDistancia(String origen, String destino) {
-        int i = ciudadIndices.get(origen);
-        int j = ciudadIndices.get(destino);
-        return distancias[i][j] == INF ? -1 : distancias[i][j];
+        long inicio = System.nanoTime();
+        int distancia = estado.getDistancia(origen, destino);
+        metricas.registrarDistancia(System.nanoTime() - inicio);
+        return distancia;
+    }
+
+    // Igual que la anterior sin buscar nombres: por índice o por la Ciudad devuelta por el grafo
+    public int getDistancia(int origen, int destino) {
+        long inicio = System.nanoTime();
+        int distancia = estado.getDistancia(origen, destino);
+        metricas.registrarDistancia(System.nanoTime() - inicio);
+        return distancia;
+    }
+
+    public int getDistancia(Ciudad origen, Ciudad destino) {
+        long inicio = System.nanoTime();
+        int distancia = estado.getDistancia(origen, destino);
+        metricas.registrarDistancia(System.nanoTime() - inicio);
+        return distancia;
+    }
+
+    // Distancias de cada origen a cada destino en una tabla fila a fila (ver GrafoSnapshot.tablaDistancias):
+    // la celda i * destinos.length + j es la distancia de origenes[i] a destinos[j], o -1 si no hay ruta
+    public int[] tablaDistancias(String[] origenes, String[] destinos) {
+        long inicio = System.nanoTime();
+        int[] tabla = estado.tablaDistancias(origenes, destinos);
+        metricas.registrarTabla(System.nanoTime() - inicio);
+        return tabla;
+    }
+
+    public int[] tablaDistancias(Ciudad[] origenes, Ciudad[] destinos) {
+        long inicio = System.nanoTime();
+        int[] tabla = estado.tablaDistancias(origenes, destinos);
+        metricas.registrarTabla(System.nanoTime() - inicio);
+        return tabla;
+    }
+
+    public int[] tablaDistancias(int[] origenes, int[] destinos) {
+        long inicio = System.nanoTime();
+        int[] tabla = estado.tablaDistancias(origenes, destinos);
+        metricas.registrarTabla(System.nanoTime() - inicio);
+        return tabla;
+    }
+
+    public void tablaDistancias(int[] origenes, int[] destinos, int[] salida) {
+        long inicio = System.nanoTime();
+        estado.tablaDistancias(origenes, destinos, salida);
+        metricas.registrarTabla(System.nanoTime() - inicio);
     }
 
     // Calcula el centro del grafo: la ciudad con menor excentricidad
     public String centroDelGrafo() {
-        int n = ciudades.size();
-        int[] excentricidades = new int[n];
-        for (int i = 0; i < n; i++) {
-            excentricidades[i] = Arrays.stream(distancias[i]).max().orElse(INF);
-        }
+        long inicio = System.nanoTime();
+        String ciudad = estado.centroDelGrafo();
+        metricas.registrarCentro(System.nanoTime() - inicio);
+        return ciudad;
+    }
 
-        int centro = 0;
-        for (int i = 1; i < n; i++) {
-            if (excentricidades[i] < excentricidades[centro]) {
-                centro = i;
-            }
+    // Ciudad con menor suma de distancias a las demás
+    public String medianaDelGrafo() {
+        long inicio = System.nanoTime();
+        String ciudad = estado.medianaDelGrafo();
+        metricas.registrarCentro(System.nanoTime() - inicio);
+        return ciudad;
+    }
+
+    // Las k ciudades con menor excentricidad, de más a menos central
+    public List<String> ciudadesMasCentrales(int k) {
+        long inicio = System.nanoTime();
+        List<String> centrales = estado.ciudadesMasCentrales(k);
+        metricas.registrarCentro(System.nanoTime() - inicio);
+        return centrales;
+    }
+
+    // Camino con la llegada más temprana saliendo de origen en el minuto salida (contado desde una
+    // medianoche), con los tiempos del modelo temporal. Null si no hay ruta
+    public RutaTemporal llegadaMasTemprana(String origen, String destino, int salida) {
+        GrafoSnapshot actual = conConexionesPreparadas();
+        long inicio = System.nanoTime();
+        RutaTemporal ruta = actual.llegadaMasTemprana(origen, destino, salida);
+        metricas.registrarCamino(System.nanoTime() - inicio);
+        return ruta;
+    }
+
+    // Hasta k rutas alternativas sin ciclos entre dos ciudades distintas en el clima actual, de menor
+    // a mayor distancia, sin tocar el grafo. En modo denso prepara antes las conexiones en CSR
+    // (como llegadaMasTemprana) y usa la tabla de Floyd como heurística del A* de cada desvío
+    public List<RutaAlternativa> rutasAlternativas(String origen, String destino, int k) {
+        GrafoSnapshot actual = conConexionesPreparadas();
+        long inicio = System.nanoTime();
+        List<RutaAlternativa> rutas = actual.rutasAlternativas(origen, destino, k);
+        metricas.registrarCamino(System.nanoTime() - inicio);
+        return rutas;
+    }
+
+    public List<RutaAlternativa> rutasAlternativas(int origen, int destino, int k) {
+        GrafoSnapshot actual = conConexionesPreparadas();
+        long inicio = System.nanoTime();
+        List<RutaAlternativa> rutas = actual.rutasAlternativas(origen, destino, k);
+        metricas.registrarCamino(System.nanoTime() - inicio);
+        return rutas;
+    }
+
+    private GrafoSnapshot conConexionesPreparadas() {
+        GrafoSnapshot actual = estado;
+        if (!actual.tieneConsultasTemporales()) {
+            prepararConsultasTemporales();
+            actual = estado;
         }
-        return ciudades.get(centro).getNombre();
+        return actual;
     }
 
-    // Muestra la matriz de distancias en una ventana con formato HTML
+    // Exportador de la matriz de distancias del estado actual (CSV, binario o HTML por páginas)
+    public ExportadorMatriz exportador() {
+        return new ExportadorMatriz(estado);
+    }
+
+    // Muestra la matriz de distancias en una tabla con scroll; solo se calculan las celdas visibles
     public void mostrarMatrizEnVentana() {
-        int n = ciudades.size();
-        StringBuilder html = new StringBuilder("<html>");
+        GrafoSnapshot actual = estado;
 
         // Explicación del contenido
         String[] climas = {"Normal ☀️", "Lluvia 🌧️", "Nieve ❄️", "Tormenta ⛈️"};
-        String climaActual = climas[clima];
+        String climaActual = climas[actual.getClima()];
+        StringBuilder html = new StringBuilder("<html>");
         html.append("<div style='padding:10px; font-family:Arial;'>")
             .append("<h2 style='text-align:center;'>📍 Matriz de distancias mínimas entre ciudades</h2>")
             .append("<p style='text-align:center;'>")
             .append("🔹 <b>Clima actual: " + climaActual + "</b>");
-        if (temperaturaActual != null) {
-            html.append(" (Temperatura: " + temperaturaActual + "°C)");
+        if (actual.getTemperatura() != null) {
+            html.append(" (Temperatura: " + actual.getTemperatura() + "°C)");
         }
         html.append("<br>")
             .append("🔹 Filas = <b>Ciudad origen</b>, Columnas = <b>Ciudad destino</b><br>")
             .append("🔹 Los valores indican el <b>tiempo mínimo de ruta</b> según el clima actual<br>")
             .append("🔹 <b>∞</b> significa que no existe una conexión disponible<br>")
             .append("</p>")
-            .append("</div>");
+            .append("</div></html>");
 
-        // Cabecera de tabla
-        html.append("<table border='1' cellpadding='5' cellspacing='0' style='border-collapse: collapse;'>");
-        html.append("<tr><th></th>");
-        for (Ciudad c : ciudades) {
-            html.append("<th>").append(c.getNombre()).append("</th>");
-        }
-        html.append("</tr>");
-
-        // Filas con valores
-        for (int i = 0; i < n; i++) {
-            html.append("<tr><th>").append(ciudades.get(i).getNombre()).append("</th>");
-            for (int j = 0; j < n; j++) {
-                String val = (distancias[i][j] == INF) ? "∞" : String.valueOf(distancias[i][j]);
-                html.append("<td align='center'>").append(val).append("</td>");
-            }
-            html.append("</tr>");
-        }
-
-        html.append("</table></html>");
-
-        // Muestra el resultado en un JOptionPane con scroll
-        JLabel label = new JLabel(html.toString());
-        JScrollPane scrollPane = new JScrollPane(label);
+        // Tabla virtual: JTable solo pide al modelo las celdas que están a la vista
+        JTable tabla = new JTable(new ModeloMatrizDistancias(actual));
+        tabla.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        tabla.getTableHeader().setReorderingAllowed(false);
+        DefaultTableCellRenderer centrado = new DefaultTableCellRenderer();
+        centrado.setHorizontalAlignment(SwingConstants.CENTER);
+        tabla.setDefaultRenderer(Object.class, centrado);
+        JScrollPane scrollPane = new JScrollPane(tabla);
         scrollPane.setPreferredSize(new Dimension(900, 500));
-        JOptionPane.showMessageDialog(null, scrollPane, "📊 Matriz de distancias", JOptionPane.INFORMATION_MESSAGE);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(new JLabel(html.toString()), BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(null, panel, "📊 Matriz de distancias", JOptionPane.INFORMATION_MESSAGE);
     }
 
-    // Getter for ciudadIndices to allow validation of city names
+    // Getter for ciudadIndices to allow validation of city names (vista de solo lectura del estado actual)
     public Map<String, Integer> getCiudadIndices() {
-        return ciudadIndices;
+        return estado.getIndices();
     }
 
     // Getter for ciudades (for testing)
     public List<Ciudad> getCiudades() {
-        return ciudades;
+        return estado.getCiudades();
     }
 }
\ No newline at end of file
@@ -0,0 +1,486 @@
+package Datos;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class GrafoDispersoTest {
+    private static final int N = 60;
+    private Grafo denso;
+    private Grafo disperso;
+
+    // Escribe un grafo aleatorio con pesos pequeños (muchos empates) y algunas ciudades inalcanzables
+    private static Path generar(int n, int grado, long semilla) throws Exception {
+        Random random = new Random(semilla);
+        Path archivo = Files.createTempFile("disperso", ".txt");
+        try (BufferedWriter out = Files.newBufferedWriter(archivo)) {
+            for (int i = 0; i < n; i++)
+                for (int e = 0; e < grado; e++) {
+                    int j = random.nextInt(n);
+                    int w = 1 + random.nextInt(5);
+                    out.write("C" + i + " C" + j + " " + w + " " + (w + random.nextInt(3)) + " " + (2 * w) + " " + (3 * w));
+                    out.newLine();
+                }
+        }
+        return archivo;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Path archivo = generar(N, 2, 5);
+        denso = new Grafo();
+        denso.setModo(Grafo.Modo.DENSO);
+        denso.cargarDesdeArchivo(archivo.toString());
+        disperso = new Grafo();
+        disperso.setModo(Grafo.Modo.DISPERSO);
+        disperso.cargarDesdeArchivo(archivo.toString());
+        Files.delete(archivo);
+    }
+
+    // Compara todas las distancias (diagonal incluida) y que cada camino disperso sea mínimo
+    private void compararTodo() {
+        for (int c = 0; c < 4; c++) {
+            denso.establecerClima(c);
+            disperso.establecerClima(c);
+            for (int i = 0; i < N; i++)
+                for (int j = 0; j < N; j++) {
+                    String a = "C" + i, b = "C" + j;
+                    int esperado = denso.getDistancia(a, b);
+                    assertEquals(a + "->" + b, esperado, disperso.getDistancia(a, b));
+                    List<String> camino = disperso.caminoMasCorto(a, b);
+                    assertEquals(esperado == -1, camino.isEmpty());
+                    if (esperado > 0 && i != j) {
+                        assertEquals(a, camino.get(0));
+                        assertEquals(b, camino.get(camino.size() - 1));
+                        int suma = 0;
+                        for (int k = 0; k + 1 < camino.size(); k++)
+                            suma += denso.getDistancia(camino.get(k), camino.get(k + 1));
+                        assertEquals(esperado, suma);
+                    }
+                }
+        }
+    }
+
+    @Test
+    public void testDijkstraCoincideConFloyd() {
+        assertTrue(disperso.esDisperso());
+        assertFalse(denso.esDisperso());
+        compararTodo();
+    }
+
+    @Test
+    public void testAEstrellaBidireccionalCoincideConFloyd() {
+        disperso.setPuntosReferencia(4);
+        compararTodo();
+    }
+
+    @Test
+    public void testJerarquiasDeContraccionCoincidenConFloyd() throws Exception {
+        disperso.setJerarquias(true);
+        disperso.precalcularJerarquias();
+        assertTrue(disperso.snapshot().usaJerarquias());
+        compararTodo();
+
+        // Tras editar, la jerarquía se rehace con el mismo orden y sigue dando lo mismo que Floyd
+        Random random = new Random(4);
+        for (int paso = 0; paso < 10; paso++) {
+            String a = "C" + random.nextInt(N), b = "C" + random.nextInt(N);
+            int[] tiempos = {1 + random.nextInt(4), 2, 3, 4};
+            denso.agregarConexion(a, b, tiempos);
+            disperso.agregarConexion(a, b, tiempos);
+        }
+        denso.eliminarConexion("C0", "C1");
+        disperso.eliminarConexion("C0", "C1");
+        compararTodo();
+
+        // Guardada y leída de archivo se puede instalar en las mismas conexiones, pero no en otras
+        disperso.establecerClima(1);
+        Path archivo = Files.createTempFile("jerarquia", ".bin");
+        disperso.getJerarquia().guardar(archivo);
+        JerarquiaContraccion leida = JerarquiaContraccion.cargar(archivo);
+        assertEquals(disperso.getJerarquia().getNumeroAtajos(), leida.getNumeroAtajos());
+        disperso.setJerarquias(false);
+        disperso.setJerarquias(true);
+        disperso.instalarJerarquia(leida);
+        assertSame(leida, disperso.getJerarquia());
+        compararTodo();
+        disperso.agregarConexion("C2", "C3", new int[]{1, 1, 1, 1});
+        try {
+            disperso.instalarJerarquia(leida);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // La huella ya no coincide
+        }
+        Files.write(archivo, new byte[]{1, 2, 3});
+        try {
+            JerarquiaContraccion.cargar(archivo);
+            fail("Se esperaba IOException");
+        } catch (java.io.IOException e) {
+            // Archivo dañado
+        } finally {
+            Files.delete(archivo);
+        }
+    }
+
+    @Test
+    public void testEdicionesEnModoDisperso() {
+        disperso.setPuntosReferencia(3);
+        Random random = new Random(9);
+        for (int paso = 0; paso < 30; paso++) {
+            String a = "C" + random.nextInt(N), b = "C" + random.nextInt(N);
+            if (paso % 3 == 0) {
+                denso.eliminarConexion(a, b);
+                disperso.eliminarConexion(a, b);
+            } else {
+                int[] tiempos = {1 + random.nextInt(4), 2, 3, 4};
+                denso.agregarConexion(a, b, tiempos);
+                disperso.agregarConexion(a, b, tiempos);
+            }
+        }
+        denso.agregarConexion("C0", "Nueva", new int[]{1, 1, 1, 1});
+        disperso.agregarConexion("C0", "Nueva", new int[]{1, 1, 1, 1});
+        assertEquals(denso.getDistancia("C5", "Nueva"), disperso.getDistancia("C5", "Nueva"));
+        assertEquals(denso.centroDelGrafo(), disperso.centroDelGrafo());
+        assertEquals(denso.medianaDelGrafo(), disperso.medianaDelGrafo());
+        assertEquals(denso.ciudadesMasCentrales(5), disperso.ciudadesMasCentrales(5));
+    }
+
+    @Test
+    public void testLlegadaMasTempranaSinPerfilCoincideConDijkstra() {
+        // Con el modelo uniforme y sin perfil horario la duración es la distancia mínima del clima global
+        disperso.establecerClima(2);
+        denso.establecerClima(2);
+        denso.lote(b -> b.agregar("C1", "C2", new int[]{1, 1, 1, 1})); // La copia CSR sigue a los lotes
+        disperso.lote(b -> b.agregar("C1", "C2", new int[]{1, 1, 1, 1}));
+        for (int i = 0; i < N; i++)
+            for (int j = 0; j < N; j++) {
+                if (i == j) continue;
+                String a = "C" + i, b = "C" + j;
+                int esperado = denso.getDistancia(a, b);
+                for (Grafo grafo : new Grafo[]{denso, disperso}) {
+                    RutaTemporal ruta = grafo.llegadaMasTemprana(a, b, 600);
+                    assertEquals(a + "->" + b, esperado, ruta == null ? -1 : ruta.getDuracion());
+                }
+            }
+    }
+
+    @Test
+    public void testTablaDistanciasCoincideConFloyd() {
+        // Orígenes y destinos repetidos y desordenados, con el origen entre los destinos
+        int[] origenes = {5, 0, 17, 5, 42};
+        int[] destinos = new int[N + 3];
+        for (int j = 0; j < N; j++) destinos[j] = N - 1 - j;
+        destinos[N] = 5;
+        destinos[N + 1] = 5;
+        destinos[N + 2] = 0;
+        for (boolean jerarquias : new boolean[]{false, true}) {
+            disperso.setJerarquias(jerarquias);
+            for (int c = 0; c < 4; c++) {
+                denso.establecerClima(c);
+                disperso.establecerClima(c);
+                int[] tabla = disperso.tablaDistancias(origenes, destinos);
+                assertArrayEquals(denso.tablaDistancias(origenes, destinos), tabla);
+                for (int i = 0; i < origenes.length; i++)
+                    for (int j = 0; j < destinos.length; j++)
+                        assertEquals(denso.snapshot().getDistancia(origenes[i], destinos[j]), tabla[i * destinos.length + j]);
+            }
+        }
+        try {
+            disperso.tablaDistancias(new int[]{N}, new int[]{0});
+            fail("Se esperaba IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // Ciudad fuera de rango
+        }
+    }
+
+    // Comprueba hayRuta en los cuatro climas contra las distancias de Floyd, diagonal incluida
+    private void compararRutas() {
+        for (int c = 0; c < 4; c++) {
+            denso.establecerClima(c);
+            disperso.establecerClima(c);
+            for (int i = 0; i < N; i++)
+                for (int j = 0; j < N; j++) {
+                    boolean esperado = denso.getDistancia(i, j) != -1;
+                    assertEquals("C" + i + "->C" + j, esperado, denso.hayRuta(i, j));
+                    assertEquals("C" + i + "->C" + j, esperado, disperso.hayRuta(i, j));
+                }
+        }
+    }
+
+    @Test
+    public void testAlcanzabilidadCoincideConFloyd() {
+        compararRutas();
+        // Conexiones entre ciudades que ya tenían ruta (se conserva el índice) y otras que unen componentes
+        disperso.agregarConexion("C1", "C1", new int[]{1, 1, 1, 1});
+        denso.agregarConexion("C1", "C1", new int[]{1, 1, 1, 1});
+        Random random = new Random(8);
+        for (int paso = 0; paso < 20; paso++) {
+            int a = random.nextInt(N), b = random.nextInt(N);
+            int[] tiempos = {1, 2, 3, 4};
+            denso.agregarConexion(a, b, tiempos);
+            disperso.agregarConexion(a, b, tiempos);
+            assertEquals(denso.getDistancia(a, b), disperso.getDistancia(a, b));
+        }
+        compararRutas();
+        compararTodo();
+        for (int paso = 0; paso < 20; paso++) {
+            String a = "C" + random.nextInt(N), b = "C" + random.nextInt(N);
+            denso.lote(l -> l.eliminar(a, b));
+            disperso.lote(l -> l.eliminar(a, b));
+        }
+        compararRutas();
+        compararTodo();
+    }
+
+    @Test
+    public void testComponentesEnCadenaYCicloLargos() {
+        // Cadena de 20 000 ciudades: tantas componentes que no se guarda el cierre, y Tarjan no puede recursar
+        int n = 20000;
+        int[] origenes = new int[n - 1], destinos = new int[n - 1], tiempos = new int[4 * (n - 1)];
+        for (int v = 0; v + 1 < n; v++) {
+            origenes[v] = v;
+            destinos[v] = v + 1;
+            Arrays.fill(tiempos, 4 * v, 4 * v + 4, 1);
+        }
+        ListaAdyacencia cadena = ListaAdyacencia.desdeAristas(n, origenes, destinos, tiempos, n - 1);
+        Alcanzabilidad componentes = Alcanzabilidad.construir(cadena, 0);
+        assertEquals(n, componentes.getNumeroComponentes());
+        assertFalse(componentes.exacta());
+        assertTrue(componentes.sinRuta(n - 1, 0));
+        assertTrue(componentes.sinRuta(5, 5));
+        assertFalse(componentes.sinRuta(0, n - 1));
+        assertFalse(componentes.conRuta(0, n - 1));
+
+        // Cerrando la cadena queda una sola componente con ciclo
+        ListaAdyacencia ciclo = cadena.conArista(n - 1, 0, new int[]{1, 1, 1, 1});
+        componentes = Alcanzabilidad.construir(ciclo, 0);
+        assertEquals(1, componentes.getNumeroComponentes());
+        assertTrue(componentes.exacta());
+        assertTrue(componentes.conRuta(n - 1, 0));
+        assertTrue(componentes.conRuta(7, 7));
+    }
+
+    // Tiempos [clima][origen][destino] del archivo por índice de ciudad del grafo (-1 = sin conexión);
+    // si una conexión se repite gana la última, como al cargar
+    private static int[][][] leerPesos(Path archivo, Grafo g) throws Exception {
+        int n = g.snapshot().getNumeroCiudades();
+        int[][][] pesos = new int[4][n][n];
+        for (int[][] capa : pesos)
+            for (int[] fila : capa) Arrays.fill(fila, -1);
+        for (String linea : Files.readAllLines(archivo)) {
+            String[] campos = linea.split(" ");
+            for (int c = 0; c < 4; c++)
+                pesos[c][g.getIndice(campos[0])][g.getIndice(campos[1])] = Integer.parseInt(campos[2 + c]);
+        }
+        return pesos;
+    }
+
+    // Distancias de todas las rutas sin ciclos de u a destino, por DFS
+    private static void enumerar(int[][] pesos, int u, int destino, boolean[] usada, int distancia,
+                                 List<Integer> distancias) {
+        if (u == destino) {
+            distancias.add(distancia);
+            return;
+        }
+        for (int v = 0; v < pesos.length; v++) {
+            if (usada[v] || pesos[u][v] < 0) continue;
+            usada[v] = true;
+            enumerar(pesos, v, destino, usada, distancia + pesos[u][v], distancias);
+            usada[v] = false;
+        }
+    }
+
+    @Test
+    public void testRutasAlternativasCoincidenConEnumeracion() throws Exception {
+        // Grafo pequeño: se pueden enumerar todas las rutas sin ciclos y ordenar sus distancias
+        Path archivo = generar(9, 3, 11);
+        Grafo pequenoDenso = new Grafo();
+        pequenoDenso.setModo(Grafo.Modo.DENSO);
+        pequenoDenso.cargarDesdeArchivo(archivo.toString());
+        Grafo pequenoDisperso = new Grafo();
+        pequenoDisperso.setModo(Grafo.Modo.DISPERSO);
+        pequenoDisperso.cargarDesdeArchivo(archivo.toString());
+        int[][][] pesos = leerPesos(archivo, pequenoDenso);
+        Files.delete(archivo);
+        int n = pequenoDenso.snapshot().getNumeroCiudades();
+        for (int c = 0; c < 4; c++) {
+            pequenoDenso.establecerClima(c);
+            pequenoDisperso.establecerClima(c);
+            for (int o = 0; o < n; o++)
+                for (int d = 0; d < n; d++) {
+                    if (o == d) continue;
+                    List<Integer> esperadas = new ArrayList<>();
+                    boolean[] usada = new boolean[n];
+                    usada[o] = true;
+                    enumerar(pesos[c], o, d, usada, 0, esperadas);
+                    Collections.sort(esperadas);
+                    List<Integer> primeras = esperadas.subList(0, Math.min(8, esperadas.size()));
+                    for (Grafo g : new Grafo[]{pequenoDenso, pequenoDisperso}) {
+                        List<RutaAlternativa> rutas = g.rutasAlternativas(o, d, 8);
+                        List<Integer> distancias = new ArrayList<>();
+                        for (RutaAlternativa ruta : rutas) {
+                            distancias.add(ruta.getDistancia());
+                            comprobarRuta(pesos[c], ruta, o, d);
+                        }
+                        assertEquals("C" + o + "->C" + d, primeras, distancias);
+                    }
+                }
+        }
+    }
+
+    // La ruta empieza y acaba donde debe, no repite ciudades y su distancia es la suma de sus conexiones
+    private static void comprobarRuta(int[][] pesos, RutaAlternativa ruta, int origen, int destino) {
+        int[] ciudades = ruta.getIndices();
+        assertEquals(origen, ciudades[0]);
+        assertEquals(destino, ciudades[ciudades.length - 1]);
+        assertEquals(ciudades.length, Arrays.stream(ciudades).distinct().count());
+        int suma = 0;
+        for (int k = 0; k + 1 < ciudades.length; k++) {
+            assertTrue(pesos[ciudades[k]][ciudades[k + 1]] >= 0);
+            suma += pesos[ciudades[k]][ciudades[k + 1]];
+        }
+        assertEquals(ruta.getDistancia(), suma);
+    }
+
+    @Test
+    public void testRutasAlternativasDensoYDispersoCoinciden() {
+        Random random = new Random(12);
+        for (int c = 0; c < 4; c++) {
+            denso.establecerClima(c);
+            disperso.establecerClima(c);
+            for (int q = 0; q < 30; q++) {
+                int o = random.nextInt(N), d = random.nextInt(N);
+                if (o == d) continue;
+                List<RutaAlternativa> esperadas = denso.rutasAlternativas(o, d, 6);
+                List<RutaAlternativa> rutas = disperso.rutasAlternativas(o, d, 6);
+                assertEquals(esperadas.size(), rutas.size());
+                for (int k = 0; k < rutas.size(); k++) {
+                    assertEquals(esperadas.get(k).getDistancia(), rutas.get(k).getDistancia());
+                    int[] ciudades = rutas.get(k).getIndices();
+                    assertEquals(ciudades.length, Arrays.stream(ciudades).distinct().count());
+                    assertEquals(d, ciudades[ciudades.length - 1]);
+                }
+                if (!rutas.isEmpty()) assertEquals(denso.getDistancia(o, d), rutas.get(0).getDistancia());
+            }
+        }
+    }
+
+    @Test
+    public void testCambioDeModoConservaConexiones() {
+        disperso.setModo(Grafo.Modo.DENSO);
+        assertFalse(disperso.esDisperso());
+        compararTodo();
+    }
+
+    @Test
+    public void testTiemposNegativosSoloEnModoDenso() throws Exception {
+        // C1 -> C2 negativa con un atajo directo más caro: Dijkstra asentaría C2 antes de ver el camino bueno
+        int[] negativa = {-20, 1, 1, 1};
+        denso.agregarConexion("C0", "C1", new int[]{10, 10, 10, 10});
+        denso.agregarConexion("C0", "C2", new int[]{3, 3, 3, 3});
+        denso.agregarConexion("C1", "C2", negativa);
+        int esperado = denso.getDistancia("C0", "C2");
+        assertTrue(esperado <= -10);
+        try {
+            denso.setModo(Grafo.Modo.DISPERSO);
+            fail("El modo disperso no admite tiempos negativos");
+        } catch (IllegalStateException e) {
+            assertFalse(denso.esDisperso());
+            assertEquals(Grafo.Modo.DENSO, denso.getModo());
+        }
+        denso.setModo(Grafo.Modo.AUTOMATICO);
+        assertFalse(denso.esDisperso());
+        assertEquals(esperado, denso.getDistancia("C0", "C2"));
+
+        // La representación dispersa rechaza el cambio y queda como estaba
+        int antes = disperso.getDistancia("C1", "C2");
+        try {
+            disperso.agregarConexion("C1", "C2", negativa);
+            fail("Debía rechazar el tiempo negativo");
+        } catch (IllegalArgumentException e) {
+            assertEquals(antes, disperso.getDistancia("C1", "C2"));
+        }
+        try {
+            disperso.lote(b -> b.agregar("C1", "C2", negativa).agregar("C1", "Nueva", new int[]{1, 1, 1, 1}));
+            fail("Debía rechazar el lote con un tiempo negativo");
+        } catch (IllegalArgumentException e) {
+            assertEquals(N, disperso.getCiudades().size());
+        }
+        Path archivo = Files.createTempFile("negativo", ".txt");
+        try {
+            Files.writeString(archivo, "C1 C2 -20 1 1 1\n");
+            Grafo forzado = new Grafo();
+            forzado.setModo(Grafo.Modo.DISPERSO);
+            try {
+                forzado.cargarDesdeArchivo(archivo.toString());
+                fail("Debía rechazar el archivo con un tiempo negativo");
+            } catch (IllegalArgumentException e) {
+                assertEquals(0, forzado.getCiudades().size());
+            }
+        } finally {
+            Files.delete(archivo);
+        }
+    }
+
+    @Test
+    public void testCaminoQueLlegaAInfNoEsRuta() {
+        // Dos tramos de 600 millones suman más que INF: la tabla de Floyd lo da como sin ruta
+        int[] largo = {600_000_000, 600_000_000, 600_000_000, 600_000_000};
+        for (Grafo g : new Grafo[]{denso, disperso}) {
+            g.agregarConexion("C0", "Lejos1", largo);
+            g.agregarConexion("Lejos1", "Lejos2", largo);
+        }
+        assertEquals(-1, denso.getDistancia("C0", "Lejos2"));
+        for (int configuracion = 0; configuracion < 3; configuracion++) {
+            if (configuracion == 1) disperso.setPuntosReferencia(4);
+            if (configuracion == 2) disperso.setJerarquias(true);
+            assertEquals(600_000_000, disperso.getDistancia("Lejos1", "Lejos2"));
+            assertEquals(-1, disperso.getDistancia("C0", "Lejos2"));
+            assertTrue(disperso.caminoMasCorto("C0", "Lejos2").isEmpty());
+            assertArrayEquals(new int[]{-1, 600_000_000},
+                    disperso.tablaDistancias(new String[]{"C0", "Lejos1"}, new String[]{"Lejos2"}));
+            assertTrue(disperso.rutasAlternativas("C0", "Lejos2", 3).isEmpty());
+        }
+    }
+
+    @Test
+    public void testModoAutomaticoEligeDispersoEnGrafosGrandes() throws Exception {
+        Path archivo = generar(Grafo.CIUDADES_MIN_DISPERSO + 100, 3, 1);
+        Grafo grande = new Grafo();
+        grande.cargarDesdeArchivo(archivo.toString());
+        Files.delete(archivo);
+        assertTrue(grande.esDisperso());
+        assertEquals(Grafo.CIUDADES_MIN_DISPERSO + 100, grande.getCiudades().size());
+    }
+
+    @Test
+    public void testArchivoBinarioConservaAmbasRepresentaciones() throws Exception {
+        denso.precalcularClimas();
+        Path archivoDenso = Files.createTempFile("denso", ".bin");
+        Path archivoDisperso = Files.createTempFile("disperso", ".bin");
+        try {
+            denso.guardarBinario(archivoDenso.toString());
+            disperso.guardarBinario(archivoDisperso.toString());
+            denso = new Grafo();
+            denso.cargarBinario(archivoDenso.toString());
+            disperso = new Grafo();
+            disperso.cargarBinario(archivoDisperso.toString());
+        } finally {
+            Files.delete(archivoDenso);
+            Files.delete(archivoDisperso);
+        }
+        // Las cuatro capas se leen del archivo, sin ejecutar Floyd
+        for (int c = 0; c < 4; c++) assertTrue(denso.climaEnCache(c));
+        assertFalse(denso.esDisperso());
+        assertTrue(disperso.esDisperso());
+        compararTodo();
+    }
+}
@@ -0,0 +1,525 @@
+package Datos;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+// Estado inmutable y consistente de un Grafo en un momento dado: ciudades, clima y distancias/rutas
+// (o la lista de adyacencia en modo disperso). Grafo publica uno nuevo de forma atómica tras cada cambio,
+// así que cualquier número de hilos puede consultar sin bloqueos mientras se aplica una modificación
+public final class GrafoSnapshot {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    // Celdas a partir de las cuales una tabla de distancias en modo denso se rellena en paralelo
+    private static final long CELDAS_TABLA_PARALELA = 1 << 16;
+
+    // Espacio de búsqueda reutilizable de cada hilo para el modo disperso
+    private static final ThreadLocal<BusquedaDispersa> BUSQUEDAS = ThreadLocal.withInitial(BusquedaDispersa::new);
+    private static final ThreadLocal<ConsultaJerarquia> CONSULTAS_JERARQUIA = ThreadLocal.withInitial(ConsultaJerarquia::new);
+
+    private final long version;
+
+    // Las primeras n posiciones del arreglo son las ciudades de este estado; el arreglo solo se amplía
+    // al final, así que puede compartirse con estados posteriores
+    private final Ciudad[] ciudades;
+    private final int n;
+
+    // Índice compartido de nombres; los índices >= n pertenecen a estados posteriores
+    private final IndiceNombres indices;
+
+    private final int clima;
+    private final Double temperatura;
+
+    // Distancias y rutas del clima actual (null en modo disperso); nunca se modifican tras publicarse
+    private final TablaRutas tabla;
+
+    // Conexiones para Dijkstra en modo disperso (null en modo denso)
+    private final ListaAdyacencia adyacencia;
+
+    // Puntos de referencia del A* por clima, calculados al primer uso (0 = Dijkstra simple)
+    private final int puntosReferencia;
+    private final AtomicReferenceArray<PuntosReferencia> referencias;
+
+    // Jerarquías de contracción de las conexiones en modo disperso (null = Dijkstra o A*)
+    private final IndiceJerarquias jerarquias;
+
+    // Componentes de las conexiones en modo disperso para descartar sin buscar los pares sin ruta
+    private final IndiceAlcanzabilidad alcanzabilidad;
+
+    // Conexiones y modelo para las consultas de llegada más temprana; en modo denso las conexiones
+    // son null hasta que se llama a Grafo.prepararConsultasTemporales
+    private final ListaAdyacencia conexiones;
+    private final ModeloTemporal modeloTemporal;
+
+    // En modo disperso la centralidad se calcula con n búsquedas la primera vez que se pide
+    private volatile Centralidad centralidadDispersa;
+
+    GrafoSnapshot(long version, Ciudad[] ciudades, int n, IndiceNombres indices, int clima,
+                  Double temperatura, TablaRutas tabla, ListaAdyacencia adyacencia,
+                  int puntosReferencia, AtomicReferenceArray<PuntosReferencia> referencias,
+                  ListaAdyacencia conexiones, ModeloTemporal modeloTemporal, IndiceJerarquias jerarquias,
+                  IndiceAlcanzabilidad alcanzabilidad) {
+        this.version = version;
+        this.ciudades = ciudades;
+        this.n = n;
+        this.indices = indices;
+        this.clima = clima;
+        this.temperatura = temperatura;
+        this.tabla = tabla;
+        this.adyacencia = adyacencia;
+        this.puntosReferencia = puntosReferencia;
+        this.referencias = referencias;
+        this.conexiones = conexiones;
+        this.modeloTemporal = modeloTemporal;
+        this.jerarquias = jerarquias != null && adyacencia != null && jerarquias.conexiones == adyacencia ? jerarquias : null;
+        this.alcanzabilidad = alcanzabilidad != null && adyacencia != null && alcanzabilidad.conexiones == adyacencia
+                ? alcanzabilidad : null;
+    }
+
+    // Número que crece con cada estado publicado por el grafo
+    public long getVersion() {
+        return version;
+    }
+
+    public int getClima() {
+        return clima;
+    }
+
+    // Temperatura con la que se eligió el clima, o null si se eligió directamente
+    public Double getTemperatura() {
+        return temperatura;
+    }
+
+    public boolean esDisperso() {
+        return adyacencia != null;
+    }
+
+    public int getNumeroCiudades() {
+        return n;
+    }
+
+    // Índice de la ciudad con ese nombre, o -1 si no existe en este estado
+    public int getIndice(String nombre) {
+        int indice = indices.buscar(nombre);
+        return indice >= n ? -1 : indice;
+    }
+
+    // Ciudad con ese nombre, o null si no existe en este estado
+    public Ciudad getCiudad(String nombre) {
+        int indice = getIndice(nombre);
+        return indice < 0 ? null : ciudades[indice];
+    }
+
+    // Vista de solo lectura de nombre -> índice de este estado
+    public Map<String, Integer> getIndices() {
+        return new AbstractMap<String, Integer>() {
+            @Override
+            public Integer get(Object nombre) {
+                int indice = nombre instanceof String ? getIndice((String) nombre) : -1;
+                return indice < 0 ? null : indice;
+            }
+
+            @Override
+            public boolean containsKey(Object nombre) {
+                return get(nombre) != null;
+            }
+
+            @Override
+            public int size() {
+                return n;
+            }
+
+            @Override
+            public Set<Map.Entry<String, Integer>> entrySet() {
+                return new AbstractSet<Map.Entry<String, Integer>>() {
+                    @Override
+                    public int size() {
+                        return n;
+                    }
+
+                    @Override
+                    public Iterator<Map.Entry<String, Integer>> iterator() {
+                        return new Iterator<Map.Entry<String, Integer>>() {
+                            private int siguiente = 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return siguiente < n;
+                            }
+
+                            @Override
+                            public Map.Entry<String, Integer> next() {
+                                if (siguiente >= n) throw new NoSuchElementException();
+                                int indice = siguiente++;
+                                return new AbstractMap.SimpleImmutableEntry<>(ciudades[indice].getNombre(), indice);
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+
+    public boolean contieneCiudad(String nombre) {
+        return getIndice(nombre) >= 0;
+    }
+
+    public Ciudad getCiudad(int indice) {
+        if (indice < 0 || indice >= n) throw new IndexOutOfBoundsException("Ciudad " + indice + " fuera de rango");
+        return ciudades[indice];
+    }
+
+    // Vista de solo lectura de las ciudades en orden de índice
+    public List<Ciudad> getCiudades() {
+        return Collections.unmodifiableList(Arrays.asList(ciudades).subList(0, n));
+    }
+
+    // Índice de una ciudad que debe existir
+    int indice(String nombre) {
+        int indice = getIndice(nombre);
+        if (indice < 0) throw new IllegalArgumentException("La ciudad " + nombre + " no existe en el grafo");
+        return indice;
+    }
+
+    // Una Ciudad de este grafo lleva su índice; cualquier otra se busca por nombre
+    int indice(Ciudad ciudad) {
+        int id = ciudad.getId();
+        return id >= 0 && id < n && ciudades[id] == ciudad ? id : indice(ciudad.getNombre());
+    }
+
+    // Tiempo mínimo entre dos ciudades, o -1 si no hay ruta
+    public int getDistancia(String origen, String destino) {
+        return getDistancia(indice(origen), indice(destino));
+    }
+
+    public int getDistancia(Ciudad origen, Ciudad destino) {
+        return getDistancia(indice(origen), indice(destino));
+    }
+
+    public int getDistancia(int origen, int destino) {
+        comprobarIndice(origen);
+        comprobarIndice(destino);
+        int distancia = distancia(origen, destino);
+        return distancia == INF ? -1 : distancia;
+    }
+
+    private int distancia(int origen, int destino) {
+        if (adyacencia != null) return distanciaDispersa(BUSQUEDAS.get(), origen, destino);
+        return tabla.distancia(origen, destino);
+    }
+
+    // Devuelve el camino más corto entre dos ciudades en forma de lista de nombres
+    public List<String> caminoMasCorto(String origen, String destino) {
+        BufferRuta buffer = new BufferRuta();
+        if (!caminoMasCorto(indice(origen), indice(destino), buffer))
+            return Collections.emptyList();
+        List<String> camino = new ArrayList<>(buffer.getLongitud());
+        for (int k = 0; k < buffer.getLongitud(); k++)
+            camino.add(ciudades[buffer.getCiudad(k)].getNombre());
+        return camino;
+    }
+
+    public List<Ciudad> caminoMasCorto(Ciudad origen, Ciudad destino) {
+        BufferRuta buffer = new BufferRuta();
+        if (!caminoMasCorto(indice(origen), indice(destino), buffer))
+            return Collections.emptyList();
+        List<Ciudad> camino = new ArrayList<>(buffer.getLongitud());
+        for (int k = 0; k < buffer.getLongitud(); k++)
+            camino.add(ciudades[buffer.getCiudad(k)]);
+        return camino;
+    }
+
+    // Indica si hay ruta (con origen == destino, si hay un ciclo que vuelva). En modo denso lo dice la tabla;
+    // en modo disperso, las componentes y su cierre, y solo se busca si no caben en el cierre
+    public boolean hayRuta(String origen, String destino) {
+        return hayRuta(indice(origen), indice(destino));
+    }
+
+    public boolean hayRuta(int origen, int destino) {
+        comprobarIndice(origen);
+        comprobarIndice(destino);
+        if (alcanzabilidad != null) {
+            Alcanzabilidad componentes = alcanzabilidad.obtener(clima);
+            if (componentes.sinRuta(origen, destino)) return false;
+            if (componentes.conRuta(origen, destino)) return true;
+        }
+        return distancia(origen, destino) != INF;
+    }
+
+    // Escribe en el buffer el camino más corto por índices de ciudad, sin crear objetos si el buffer
+    // ya tiene capacidad suficiente. Devuelve false (y deja el buffer vacío) si no hay ruta
+    public boolean caminoMasCorto(int origen, int destino, BufferRuta buffer) {
+        comprobarIndice(origen);
+        comprobarIndice(destino);
+        if (!buscarRuta(origen, destino)) {
+            buffer.vaciar();
+            return false;
+        }
+        int longitud = copiarRuta(origen, destino, buffer.reservar(0));
+        if (longitud < 0)
+            longitud = copiarRuta(origen, destino, buffer.reservar(-longitud));
+        int distancia = adyacencia == null ? tabla.distancia(origen, destino)
+                : jerarquias != null ? CONSULTAS_JERARQUIA.get().getDistancia() : BUSQUEDAS.get().distanciaA(destino);
+        buffer.fijar(longitud, distancia);
+        return true;
+    }
+
+    // Escribe en salida los índices del camino más corto y devuelve cuántas ciudades tiene
+    // (0 si no hay ruta). Si salida es demasiado corto no escribe nada y devuelve -longitud necesaria
+    public int caminoMasCorto(int origen, int destino, int[] salida) {
+        comprobarIndice(origen);
+        comprobarIndice(destino);
+        return buscarRuta(origen, destino) ? copiarRuta(origen, destino, salida) : 0;
+    }
+
+    // Indica si hay ruta; en modo disperso deja la búsqueda hecha para copiarRuta
+    private boolean buscarRuta(int origen, int destino) {
+        return distancia(origen, destino) != INF;
+    }
+
+    // Copia el camino ya encontrado por buscarRuta; -longitud si salida es demasiado corto
+    private int copiarRuta(int origen, int destino, int[] salida) {
+        if (jerarquias != null) return CONSULTAS_JERARQUIA.get().copiarCamino(salida);
+        if (adyacencia != null) return BUSQUEDAS.get().copiarCamino(destino, salida);
+
+        // Cuenta los saltos y después rellena desde el final siguiendo los predecesores
+        int longitud = 1;
+        for (int j = destino; j != origen; j = tabla.ruta(origen, j)) longitud++;
+        if (longitud > salida.length) return -longitud;
+        int p = longitud;
+        for (int j = destino; j != origen; j = tabla.ruta(origen, j)) salida[--p] = j;
+        salida[0] = origen;
+        return longitud;
+    }
+
+    // Distancia en la representación dispersa; deja el camino listo en la búsqueda del hilo
+    private int distanciaDispersa(BusquedaDispersa busqueda, int i, int j) {
+        if (alcanzabilidad != null && alcanzabilidad.obtener(clima).sinRuta(i, j)) return INF;
+        if (jerarquias != null)
+            return CONSULTAS_JERARQUIA.get().distancia(jerarquias.obtener(clima), i, j);
+        if (puntosReferencia <= 0)
+            return busqueda.dijkstra(adyacencia, clima, i, j);
+        PuntosReferencia alt = referencias.get(clima);
+        if (alt == null) {
+            // Si dos hilos los calculan a la vez ambos obtienen el mismo resultado; se queda el primero
+            referencias.compareAndSet(clima, null, PuntosReferencia.elegir(adyacencia, clima, puntosReferencia));
+            alt = referencias.get(clima);
+        }
+        return busqueda.bidireccional(adyacencia, clima, i, j, alt);
+    }
+
+    // Indica si este estado puede responder llegadaMasTemprana (ver Grafo.prepararConsultasTemporales)
+    public boolean tieneConsultasTemporales() {
+        return conexiones != null;
+    }
+
+    public ModeloTemporal getModeloTemporal() {
+        return modeloTemporal;
+    }
+
+    // Llegada más temprana saliendo de origen en el minuto salida, con los pesos por región y hora del
+    // modelo temporal (las regiones sin clima propio usan el de este estado). Null si no hay ruta
+    public RutaTemporal llegadaMasTemprana(String origen, String destino, int salida) {
+        BufferRuta buffer = new BufferRuta();
+        int llegada = llegadaMasTemprana(indice(origen), indice(destino), salida, buffer);
+        if (llegada < 0) return null;
+        List<String> camino = new ArrayList<>(buffer.getLongitud());
+        for (int k = 0; k < buffer.getLongitud(); k++)
+            camino.add(ciudades[buffer.getCiudad(k)].getNombre());
+        return new RutaTemporal(salida, llegada, camino);
+    }
+
+    // Escribe el camino en el buffer (con la duración como distancia) y devuelve el minuto de llegada,
+    // o -1 si no hay ruta
+    public int llegadaMasTemprana(int origen, int destino, int salida, BufferRuta buffer) {
+        if (conexiones == null)
+            throw new IllegalStateException("Consultas temporales sin preparar: use Grafo.prepararConsultasTemporales");
+        if (origen < 0 || origen >= n || destino < 0 || destino >= n)
+            throw new IndexOutOfBoundsException("Ciudad fuera de rango");
+        double climaGlobal = temperatura != null ? ModeloTemporal.posicionPorTemperatura(temperatura) : clima;
+        BusquedaDispersa busqueda = BUSQUEDAS.get();
+        int duracion = busqueda.llegadaMasTemprana(conexiones, modeloTemporal, climaGlobal, origen, destino, salida);
+        if (duracion == INF) {
+            buffer.vaciar();
+            return -1;
+        }
+        int longitud = busqueda.copiarCamino(destino, buffer.reservar(0));
+        if (longitud < 0)
+            longitud = busqueda.copiarCamino(destino, buffer.reservar(-longitud));
+        buffer.fijar(longitud, duracion);
+        return salida + duracion;
+    }
+
+    // Hasta k rutas sin ciclos de origen a destino en el clima de este estado, de menor a mayor distancia
+    // (algoritmo de Yen, ver RutasAlternativas). Usa las mismas conexiones que llegadaMasTemprana y en modo
+    // denso toma de la tabla de Floyd la distancia de cada ciudad al destino como heurística
+    public List<RutaAlternativa> rutasAlternativas(String origen, String destino, int k) {
+        return rutasAlternativas(indice(origen), indice(destino), k);
+    }
+
+    public List<RutaAlternativa> rutasAlternativas(int origen, int destino, int k) {
+        if (conexiones == null)
+            throw new IllegalStateException("Conexiones sin preparar: use Grafo.prepararConsultasTemporales");
+        comprobarIndice(origen);
+        comprobarIndice(destino);
+        if (k < 1) throw new IllegalArgumentException("k debe ser al menos 1");
+        if (origen == destino) throw new IllegalArgumentException("El origen y el destino deben ser distintos");
+        if (alcanzabilidad != null && alcanzabilidad.obtener(clima).sinRuta(origen, destino))
+            return Collections.emptyList();
+        int[] cotas = null;
+        if (tabla != null) {
+            cotas = new int[n];
+            for (int x = 0; x < n; x++) cotas[x] = x == destino ? 0 : tabla.distancia(x, destino);
+        }
+        List<RutaAlternativa> rutas = new ArrayList<>();
+        for (RutasAlternativas.Candidata ruta : RutasAlternativas.calcular(conexiones, clima, origen, destino, k, cotas)) {
+            List<String> camino = new ArrayList<>(ruta.ciudades.length);
+            for (int ciudad : ruta.ciudades) camino.add(ciudades[ciudad].getNombre());
+            rutas.add(new RutaAlternativa(ruta.distancia, camino, ruta.ciudades));
+        }
+        return rutas;
+    }
+
+    // Indica si las consultas punto a punto usan jerarquías de contracción (ver Grafo.setJerarquias)
+    public boolean usaJerarquias() {
+        return jerarquias != null;
+    }
+
+    // Jerarquía de contracción del clima de este estado, construida si hacía falta; null si no se usan
+    public JerarquiaContraccion getJerarquia() {
+        return jerarquias == null ? null : jerarquias.obtener(clima);
+    }
+
+    // Tabla de distancias entre varios orígenes y destinos, fila a fila: el resultado tiene
+    // origenes.length * destinos.length celdas y la distancia de origenes[i] a destinos[j] está en
+    // i * destinos.length + j (-1 si no hay ruta, el ciclo más corto si origen y destino coinciden)
+    public int[] tablaDistancias(String[] origenes, String[] destinos) {
+        return tablaDistancias(indices(origenes), indices(destinos));
+    }
+
+    public int[] tablaDistancias(Ciudad[] origenes, Ciudad[] destinos) {
+        return tablaDistancias(indices(origenes), indices(destinos));
+    }
+
+    public int[] tablaDistancias(int[] origenes, int[] destinos) {
+        int[] salida = new int[Math.multiplyExact(origenes.length, destinos.length)];
+        tablaDistancias(origenes, destinos, salida);
+        return salida;
+    }
+
+    // Igual que la anterior pero escribe en un arreglo del llamante (al menos origenes * destinos celdas).
+    // Los orígenes se reparten entre hilos; en modo disperso cada uno es un Dijkstra de uno a varios
+    // que para al asentar todos los destinos
+    public void tablaDistancias(int[] origenes, int[] destinos, int[] salida) {
+        int columnas = destinos.length;
+        if (salida.length < (long) origenes.length * columnas)
+            throw new IllegalArgumentException("La salida necesita " + (long) origenes.length * columnas + " celdas");
+        comprobarIndices(origenes);
+        comprobarIndices(destinos);
+        Alcanzabilidad componentes = alcanzabilidad == null ? null : alcanzabilidad.obtener(clima);
+        IntStream filas = IntStream.range(0, origenes.length);
+        // En modo denso cada fila es solo una copia: repartirla entre hilos compensa en tablas grandes
+        if (adyacencia != null ? origenes.length > 1 : (long) origenes.length * columnas >= CELDAS_TABLA_PARALELA)
+            filas = filas.parallel();
+        filas.forEach(i -> {
+            int desde = i * columnas;
+            if (adyacencia != null) {
+                BUSQUEDAS.get().unoAVarios(adyacencia, clima, origenes[i], destinos, salida, desde, componentes);
+            } else {
+                MatrizDensa distancias = tabla.distancias;
+                int inicio = distancias.inicioFila(origenes[i]);
+                for (int j = 0; j < columnas; j++) salida[desde + j] = distancias.datos[inicio + destinos[j]];
+            }
+            for (int j = desde; j < desde + columnas; j++)
+                if (salida[j] == INF) salida[j] = -1;
+        });
+    }
+
+    private int[] indices(String[] nombres) {
+        int[] resultado = new int[nombres.length];
+        for (int k = 0; k < nombres.length; k++) resultado[k] = indice(nombres[k]);
+        return resultado;
+    }
+
+    private int[] indices(Ciudad[] ciudadesPedidas) {
+        int[] resultado = new int[ciudadesPedidas.length];
+        for (int k = 0; k < ciudadesPedidas.length; k++) resultado[k] = indice(ciudadesPedidas[k]);
+        return resultado;
+    }
+
+    private void comprobarIndices(int[] indices) {
+        for (int indice : indices) comprobarIndice(indice);
+    }
+
+    private void comprobarIndice(int indice) {
+        if (indice < 0 || indice >= n) throw new IndexOutOfBoundsException("Ciudad fuera de rango: " + indice);
+    }
+
+    // Copia en fila las distancias mínimas desde la ciudad i (INF si no hay camino)
+    void filaDistancias(int i, int[] fila) {
+        if (adyacencia != null) {
+            BusquedaDispersa busqueda = BUSQUEDAS.get();
+            busqueda.dijkstra(adyacencia, clima, i, -1);
+            for (int j = 0; j < n; j++) fila[j] = busqueda.distanciaA(j);
+        } else {
+            MatrizDensa distancias = tabla.distancias;
+            System.arraycopy(distancias.datos, distancias.inicioFila(i), fila, 0, n);
+        }
+    }
+
+    // Centralidad de este estado: en modo denso se mantiene junto con la tabla de rutas
+    private Centralidad centralidad() {
+        if (tabla != null) return tabla.centralidad();
+        Centralidad resultado = centralidadDispersa;
+        if (resultado == null) {
+            // Si dos hilos la calculan a la vez obtienen lo mismo; se queda la última
+            resultado = new Centralidad(n);
+            int[] fila = new int[n];
+            for (int i = 0; i < n; i++) {
+                filaDistancias(i, fila);
+                resultado.fijarFila(i, fila, 0);
+            }
+            resultado.ordenar();
+            centralidadDispersa = resultado;
+        }
+        return resultado;
+    }
+
+    // Centro del grafo: la ciudad con menor excentricidad (la mayor de sus distancias, contando
+    // el ciclo que vuelve a ella). Null si no hay ciudades
+    public String centroDelGrafo() {
+        int centro = centralidad().centro();
+        return centro < 0 ? null : ciudades[centro].getNombre();
+    }
+
+    // Mediana del grafo: la ciudad con menor suma de distancias a las demás. Null si no hay ciudades
+    public String medianaDelGrafo() {
+        int mediana = centralidad().mediana();
+        return mediana < 0 ? null : ciudades[mediana].getNombre();
+    }
+
+    // Las k ciudades más centrales (menor excentricidad primero), en O(k)
+    public List<String> ciudadesMasCentrales(int k) {
+        Centralidad c = centralidad();
+        int cantidad = Math.min(Math.max(k, 0), n);
+        List<String> resultado = new ArrayList<>(cantidad);
+        for (int p = 0; p < cantidad; p++)
+            resultado.add(ciudades[c.enPosicion(p)].getNombre());
+        return resultado;
+    }
+
+    // Mayor distancia desde la ciudad (ciclo incluido), o -1 si no llega a alguna ciudad o no puede volver a ella
+    public int getExcentricidad(String ciudad) {
+        int excentricidad = centralidad().excentricidad(indice(ciudad));
+        return excentricidad >= INF ? -1 : excentricidad;
+    }
+}
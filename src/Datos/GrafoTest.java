@@ -3,7 +3,12 @@ package Datos;
 import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 public class GrafoTest {
     private Grafo grafo;
@@ -58,4 +63,773 @@ public class GrafoTest {
         grafo.establecerClima(1); // Lluvia
         assertEquals(15 + 15, grafo.getDistancia("A", "C")); // A->B (15) + B->C (15)
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testActualizacionIncrementalCoincideConFloyd() {
+        Random random = new Random(42);
+        Grafo g = new Grafo();
+        int n = 25;
+        // Pesos del clima normal, para comprobar los caminos (-1 = sin conexión)
+        int[][] pesos = new int[n][n];
+        for (int[] fila : pesos) Arrays.fill(fila, -1);
+        for (int i = 0; i < n; i++) g.agregarCiudad("C" + i);
+        for (int e = 0; e < 80; e++) {
+            int w = 1 + random.nextInt(9);
+            int a = random.nextInt(n), b = random.nextInt(n);
+            g.agregarConexion("C" + a, "C" + b, new int[]{w, w + 1, w + 2, w + 3});
+            pesos[a][b] = w;
+        }
+
+        // Mezcla eliminaciones, subidas y bajadas de peso comparando contra el recálculo completo
+        for (int paso = 0; paso < 150; paso++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            if (random.nextInt(3) == 0) {
+                g.eliminarConexion("C" + a, "C" + b);
+                pesos[a][b] = -1;
+            } else {
+                int w = 1 + random.nextInt(12);
+                g.agregarConexion("C" + a, "C" + b, new int[]{w, w, w, w});
+                pesos[a][b] = w;
+            }
+
+            // Los predecesores de la tabla incremental dan caminos válidos de la distancia indicada
+            // (con empates pueden ser otros que los de Floyd)
+            int[][] incremental = new int[n][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++) {
+                    incremental[i][j] = g.getDistancia("C" + i, "C" + j);
+                    if (i == j) continue;
+                    List<String> camino = g.caminoMasCorto("C" + i, "C" + j);
+                    assertEquals(incremental[i][j] == -1, camino.isEmpty());
+                    if (camino.isEmpty()) continue;
+                    assertEquals("C" + i, camino.get(0));
+                    assertEquals("C" + j, camino.get(camino.size() - 1));
+                    int suma = 0;
+                    for (int k = 1; k < camino.size(); k++) {
+                        int w = pesos[Integer.parseInt(camino.get(k - 1).substring(1))][Integer.parseInt(camino.get(k).substring(1))];
+                        assertTrue(camino + " usa una conexión inexistente", w >= 0);
+                        suma += w;
+                    }
+                    assertEquals(camino.toString(), incremental[i][j], suma);
+                }
+            g.recalcularFloyd();
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    assertEquals(g.getDistancia("C" + i, "C" + j), incremental[i][j]);
+        }
+    }
+
+    @Test
+    public void testActualizacionConOtraAristaNegativa() {
+        // B -> C es negativa: Dijkstra desde A asentaría C con 3 antes de ver el camino por B
+        Grafo g = new Grafo();
+        g.agregarConexion("A", "B", new int[]{10, 10, 10, 10});
+        g.agregarConexion("A", "C", new int[]{3, 3, 3, 3});
+        g.agregarConexion("B", "C", new int[]{-20, 1, 1, 1});
+        assertEquals(-10, g.getDistancia("A", "C"));
+        g.agregarConexion("A", "B", new int[]{12, 10, 10, 10});
+        assertEquals(-8, g.getDistancia("A", "C"));
+        g.agregarConexion("D", "A", new int[]{1, 1, 1, 1});
+        assertEquals(-7, g.getDistancia("D", "C"));
+
+        // Al quitar la última arista negativa vuelven las actualizaciones incrementales
+        g.eliminarConexion("B", "C");
+        assertEquals(3, g.getDistancia("A", "C"));
+        g.agregarConexion("A", "C", new int[]{2, 3, 3, 3});
+        assertEquals(3, g.getDistancia("D", "C"));
+    }
+
+    @Test
+    public void testRelajarAristaSinDesbordar() {
+        // Tres tramos de 900 millones suman más que Integer.MAX_VALUE
+        Grafo g = new Grafo();
+        int[] largo = {900_000_000, 900_000_000, 900_000_000, 900_000_000};
+        g.agregarConexion("A", "B", largo);
+        g.agregarConexion("C", "D", largo);
+        g.agregarConexion("B", "C", largo);
+        assertEquals(-1, g.getDistancia("A", "D"));
+        assertEquals(-1, g.getDistancia("A", "C"));
+        g.recalcularFloyd();
+        assertEquals(-1, g.getDistancia("A", "D"));
+    }
+
+    @Test
+    public void testCaminoTrasEliminarConexionIntermedia() {
+        grafo.eliminarConexion("B", "C");
+        assertEquals(List.of("A", "C"), grafo.caminoMasCorto("A", "C"));
+        assertEquals(30, grafo.getDistancia("A", "C"));
+        grafo.agregarConexion("B", "C", new int[]{1, 1, 1, 1});
+        assertEquals(List.of("A", "B", "C"), grafo.caminoMasCorto("A", "C"));
+        assertEquals(11, grafo.getDistancia("A", "C"));
+    }
+
+    @Test
+    public void testClimasEnCacheSeMantienenTrasEditar() {
+        grafo.precalcularClimas();
+        for (int c = 0; c < 4; c++)
+            assertTrue(grafo.climaEnCache(c));
+
+        // Las capas en caché se actualizan junto con la actual
+        grafo.eliminarConexion("B", "C");
+        grafo.establecerClima(2);
+        assertTrue(grafo.climaEnCache(0));
+        assertEquals(40, grafo.getDistancia("A", "C"));
+        grafo.establecerClimaPorTemperatura(20);
+        assertEquals(30, grafo.getDistancia("A", "C"));
+    }
+
+    @Test
+    public void testLimiteMemoriaDescartaClimasFrios() {
+        grafo.precalcularClimas();
+        grafo.establecerClima(3);
+        grafo.setLimiteMemoriaClimas(1);
+        assertTrue(grafo.climaEnCache(3));
+        assertFalse(grafo.climaEnCache(0));
+
+        // Una capa descartada se recalcula al volver a usarla
+        grafo.establecerClima(0);
+        assertEquals(20, grafo.getDistancia("A", "C"));
+        assertFalse(grafo.climaEnCache(3));
+    }
+
+    @Test
+    public void testPesosCompactos() {
+        Grafo compacto = new Grafo(true);
+        compacto.agregarConexion("A", "B", new int[]{10, 15, 20, 25});
+        compacto.agregarConexion("B", "C", new int[]{10, 15, 20, 25});
+        compacto.agregarConexion("A", "C", new int[]{30, 35, 40, 45});
+        assertEquals(List.of("A", "B", "C"), compacto.caminoMasCorto("A", "C"));
+        assertEquals(20, compacto.getDistancia("A", "C"));
+
+        // Un tiempo que no cabe en short pasa la matriz a enteros sin perder datos
+        compacto.agregarConexion("C", "D", new int[]{100000, 1, 1, 1});
+        assertEquals(100020, compacto.getDistancia("A", "D"));
+        assertEquals(20, compacto.getDistancia("A", "C"));
+    }
+
+    @Test
+    public void testCrecimientoConservaConexiones() {
+        // Supera varias veces la capacidad inicial de las matrices
+        for (int i = 0; i < 40; i++)
+            grafo.agregarCiudad("X" + i);
+        grafo.agregarConexion("C", "X39", new int[]{1, 1, 1, 1});
+        assertEquals(43, grafo.getCiudades().size());
+        assertEquals(List.of("A", "B", "C", "X39"), grafo.caminoMasCorto("A", "X39"));
+        assertEquals(21, grafo.getDistancia("A", "X39"));
+    }
+
+    @Test
+    public void testCargarDesdeArchivo() throws Exception {
+        Path archivo = Files.createTempFile("grafo", ".txt");
+        Files.writeString(archivo, "A B 10 15 20 25\n\nB  C 10 15 20 25\nA C 30 35 40 45\n");
+        try {
+            Grafo cargado = new Grafo();
+            cargado.cargarDesdeArchivo(archivo.toString());
+            assertEquals(3, cargado.getUltimaCarga().getFilas());
+            assertEquals(3, cargado.getUltimaCarga().getCiudades());
+            assertEquals(List.of("A", "B", "C"), cargado.caminoMasCorto("A", "C"));
+            assertEquals(20, cargado.getDistancia("A", "C"));
+            cargado.establecerClima(3);
+            assertEquals(45, cargado.getDistancia("A", "C"));
+        } finally {
+            Files.delete(archivo);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCargarLineaIncompleta() throws Exception {
+        Path archivo = Files.createTempFile("grafo", ".txt");
+        Files.writeString(archivo, "A B 10 15\n");
+        try {
+            new Grafo().cargarDesdeArchivo(archivo.toString());
+        } finally {
+            Files.delete(archivo);
+        }
+    }
+
+    @Test
+    public void testCargarArchivoInvalidoNoCambiaElGrafo() throws Exception {
+        Path archivo = Files.createTempFile("grafo", ".txt");
+        try {
+            // Ciudades nuevas antes de una línea incompleta y antes de un número mal escrito
+            Files.writeString(archivo, "X Y 1 1 1 1\nA Z 1 1 1 1\nZ W 5\n");
+            try {
+                grafo.cargarDesdeArchivo(archivo.toString());
+                fail("Debía rechazar la línea incompleta");
+            } catch (IllegalArgumentException esperada) {
+                // Correcto
+            }
+            Files.writeString(archivo, "X Y 1 1 1 1\nY A 1 1 uno 1\n");
+            try {
+                grafo.cargarDesdeArchivo(archivo.toString());
+                fail("Debía rechazar el número mal escrito");
+            } catch (NumberFormatException esperada) {
+                // Correcto
+            }
+        } finally {
+            Files.delete(archivo);
+        }
+        assertEquals(3, grafo.getCiudades().size());
+        assertFalse(grafo.getCiudadIndices().containsKey("X"));
+        assertEquals(20, grafo.getDistancia("A", "C"));
+
+        // Sigue siendo utilizable: las ciudades nuevas reciben los índices siguientes
+        grafo.agregarConexion("C", "D", new int[]{5, 5, 5, 5});
+        assertEquals(3, grafo.getIndice("D"));
+        assertEquals(List.of("A", "B", "C", "D"), grafo.caminoMasCorto("A", "D"));
+        assertEquals(25, grafo.getDistancia("A", "D"));
+    }
+
+    @Test
+    public void testCaminoEnBuffer() {
+        BufferRuta buffer = new BufferRuta(1);
+        int a = grafo.getIndice("A");
+        int c = grafo.getIndice("C");
+        assertTrue(grafo.caminoMasCorto(a, c, buffer));
+        assertEquals(3, buffer.getLongitud());
+        assertEquals(20, buffer.getDistancia());
+        assertEquals("B", grafo.getCiudad(buffer.getCiudad(1)).getNombre());
+
+        // Sin ruta el buffer queda vacío
+        assertFalse(grafo.caminoMasCorto(c, a, buffer));
+        assertEquals(0, buffer.getLongitud());
+        assertEquals(-1, buffer.getDistancia());
+        assertEquals(-1, grafo.getIndice("Z"));
+    }
+
+    @Test
+    public void testCaminoEnArreglo() {
+        int a = grafo.getIndice("A");
+        int c = grafo.getIndice("C");
+        assertEquals(-3, grafo.caminoMasCorto(a, c, new int[2]));
+        int[] salida = new int[5];
+        assertEquals(3, grafo.caminoMasCorto(a, c, salida));
+        assertEquals(grafo.getIndice("B"), salida[1]);
+        assertEquals(0, grafo.caminoMasCorto(c, a, salida));
+    }
+
+    @Test
+    public void testCaminoConIndiceFueraDeRango() {
+        // En modo denso un índice de más leería el relleno de la matriz en lugar de fallar
+        grafo.agregarCiudad("D");
+        for (Grafo.Modo modo : new Grafo.Modo[]{Grafo.Modo.DENSO, Grafo.Modo.DISPERSO}) {
+            grafo.setModo(modo);
+            for (int[] par : new int[][]{{0, 4}, {4, 0}, {-1, 2}, {2, -1}}) {
+                try {
+                    grafo.caminoMasCorto(par[0], par[1], new BufferRuta());
+                    fail("Debía rechazar " + Arrays.toString(par) + " en modo " + modo);
+                } catch (IndexOutOfBoundsException esperada) {
+                    // Correcto
+                }
+                try {
+                    grafo.caminoMasCorto(par[0], par[1], new int[8]);
+                    fail("Debía rechazar " + Arrays.toString(par) + " en modo " + modo);
+                } catch (IndexOutOfBoundsException esperada) {
+                    // Correcto
+                }
+            }
+            assertEquals(3, grafo.caminoMasCorto(0, 2, new int[8]));
+        }
+    }
+
+    @Test
+    public void testTablaDistancias() {
+        int[] tabla = grafo.tablaDistancias(new String[]{"A", "C"}, new String[]{"A", "B", "C"});
+        // Fila A: sin ciclo que vuelva a A, 10 hasta B y 20 hasta C; fila C: no llega a ninguna
+        assertArrayEquals(new int[]{-1, 10, 20, -1, -1, -1}, tabla);
+        int[] salida = new int[2];
+        grafo.tablaDistancias(new int[]{grafo.getIndice("B")}, new int[]{grafo.getIndice("C"), grafo.getIndice("B")}, salida);
+        assertArrayEquals(new int[]{10, -1}, salida);
+        assertEquals(2, grafo.getMetricas().getHistogramaTablas().getCuenta());
+    }
+
+    @Test
+    public void testCiudadesConIndice() {
+        Ciudad a = grafo.getCiudad("A");
+        Ciudad c = grafo.getCiudad("C");
+        assertEquals(grafo.getIndice("A"), a.getId());
+        assertNull(grafo.getCiudad("Z"));
+        assertEquals(20, grafo.getDistancia(a, c));
+        assertEquals(20, grafo.getDistancia(a.getId(), c.getId()));
+        // Una Ciudad creada fuera del grafo se busca por su nombre
+        assertEquals(20, grafo.getDistancia(new Ciudad("A"), c));
+        assertEquals(Arrays.asList(a, grafo.getCiudad("B"), c), grafo.caminoMasCorto(a, c));
+        assertTrue(grafo.caminoMasCorto(c, a).isEmpty());
+
+        grafo.agregarConexion(c.getId(), a.getId(), new int[]{3, 3, 3, 3});
+        assertEquals(3, grafo.getDistancia(c, a));
+        grafo.eliminarConexion(c, a);
+        assertEquals(-1, grafo.getDistancia(c, a));
+        try {
+            grafo.agregarConexion(0, 7, new int[]{1, 1, 1, 1});
+            fail("Se esperaba IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // La ciudad 7 no existe
+        }
+
+        // El índice de nombres crece sin perder entradas y la vista de mapa sigue al estado
+        GrafoSnapshot antes = grafo.snapshot();
+        for (int k = 0; k < 200; k++) grafo.agregarCiudad("N" + k);
+        for (int k = 0; k < 200; k++) assertEquals(3 + k, grafo.getIndice("N" + k));
+        assertEquals(-1, antes.getIndice("N0"));
+        Map<String, Integer> indices = grafo.getCiudadIndices();
+        assertEquals(203, indices.size());
+        assertEquals(Integer.valueOf(2), indices.get("C"));
+        assertFalse(antes.getIndices().containsKey("N199"));
+        assertEquals(3, antes.getIndices().entrySet().size());
+    }
+
+    @Test
+    public void testRutasAlternativas() {
+        List<RutaAlternativa> rutas = grafo.rutasAlternativas("A", "C", 3);
+        assertEquals(2, rutas.size());
+        assertEquals(Arrays.asList("A", "B", "C"), rutas.get(0).getCamino());
+        assertEquals(20, rutas.get(0).getDistancia());
+        assertEquals(Arrays.asList("A", "C"), rutas.get(1).getCamino());
+        assertEquals(30, rutas.get(1).getDistancia());
+        // El grafo no cambia y sin ruta no hay alternativas
+        assertEquals(20, grafo.getDistancia("A", "C"));
+        assertTrue(grafo.rutasAlternativas("C", "A", 3).isEmpty());
+        try {
+            grafo.rutasAlternativas("A", "A", 3);
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Origen y destino iguales
+        }
+    }
+
+    @Test
+    public void testSnapshotNoCambiaTrasEditar() {
+        GrafoSnapshot antes = grafo.snapshot();
+        grafo.agregarConexion("A", "C", new int[]{5, 5, 5, 5});
+        grafo.agregarCiudad("D");
+
+        // El estado anterior conserva sus distancias y ciudades
+        assertEquals(20, antes.getDistancia("A", "C"));
+        assertEquals(3, antes.getNumeroCiudades());
+        assertFalse(antes.contieneCiudad("D"));
+        assertEquals(5, grafo.getDistancia("A", "C"));
+        assertTrue(grafo.snapshot().getVersion() > antes.getVersion());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCiudadInexistente() {
+        grafo.getDistancia("A", "Z");
+    }
+
+    @Test
+    public void testLecturasConcurrentes() throws Exception {
+        Random random = new Random(7);
+        int n = 30;
+        for (int i = 0; i < n; i++)
+            grafo.agregarConexion("N" + i, "N" + ((i + 1) % n), new int[]{10, 20, 30, 40});
+        java.util.concurrent.atomic.AtomicBoolean fin = new java.util.concurrent.atomic.AtomicBoolean();
+        java.util.concurrent.atomic.AtomicReference<String> error = new java.util.concurrent.atomic.AtomicReference<>();
+
+        // Cada lector comprueba que el camino y la distancia de un mismo estado sean coherentes
+        Thread[] lectores = new Thread[3];
+        for (int h = 0; h < lectores.length; h++) {
+            lectores[h] = new Thread(() -> {
+                Random r = new Random(Thread.currentThread().getId());
+                BufferRuta buffer = new BufferRuta(4);
+                while (!fin.get() && error.get() == null) {
+                    GrafoSnapshot s = grafo.snapshot();
+                    int o = s.getIndice("N" + r.nextInt(n));
+                    int d = s.getIndice("N" + r.nextInt(n));
+                    if (o == d || !s.caminoMasCorto(o, d, buffer)) continue;
+                    int suma = 0;
+                    for (int k = 1; k < buffer.getLongitud(); k++) {
+                        int tramo = s.getDistancia(buffer.getCiudad(k - 1), buffer.getCiudad(k));
+                        if (tramo < 0) { error.set("tramo inexistente"); return; }
+                        suma += tramo;
+                    }
+                    if (buffer.getCiudad(0) != o || buffer.getCiudad(buffer.getLongitud() - 1) != d
+                            || suma != buffer.getDistancia() || s.getDistancia(o, d) != suma)
+                        error.set("camino incoherente de " + o + " a " + d);
+                }
+            });
+            lectores[h].start();
+        }
+
+        for (int k = 0; k < 300; k++) {
+            String u = "N" + random.nextInt(n);
+            String v = "N" + random.nextInt(n);
+            if (random.nextBoolean()) grafo.agregarConexion(u, v, new int[]{1 + random.nextInt(50), 30, 40, 50});
+            else if (!u.equals(v) && !v.equals("N" + ((Integer.parseInt(u.substring(1)) + 1) % n)))
+                grafo.eliminarConexion(u, v);
+        }
+        fin.set(true);
+        for (Thread lector : lectores) lector.join();
+        assertNull(error.get());
+    }
+
+    @Test
+    public void testLoteIgualQueCambiosSeparados() {
+        for (int cambios : new int[]{2, 400}) {
+            Grafo separado = new Grafo();
+            Grafo agrupado = new Grafo();
+            Random random = new Random(cambios);
+            int n = 40;
+            for (int i = 0; i < n; i++) {
+                int[] tiempos = {5, 6, 7, 8};
+                separado.agregarConexion("N" + i, "N" + ((i + 1) % n), tiempos);
+                agrupado.agregarConexion("N" + i, "N" + ((i + 1) % n), tiempos);
+            }
+            String[] a = new String[cambios], b = new String[cambios];
+            int[][] t = new int[cambios][];
+            for (int k = 0; k < cambios; k++) {
+                a[k] = "N" + random.nextInt(n);
+                b[k] = "N" + random.nextInt(n);
+                int w = 1 + random.nextInt(30);
+                t[k] = random.nextInt(3) == 0 ? null : new int[]{w, w + 1, w + 2, w + 3};
+                if (t[k] == null) separado.eliminarConexion(a[k], b[k]);
+                else separado.agregarConexion(a[k], b[k], t[k]);
+            }
+            agrupado.lote(lote -> {
+                for (int k = 0; k < a.length; k++) {
+                    if (t[k] == null) lote.eliminar(a[k], b[k]);
+                    else lote.agregar(a[k], b[k], t[k]);
+                }
+            });
+
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    assertEquals(separado.getDistancia("N" + i, "N" + j), agrupado.getDistancia("N" + i, "N" + j));
+            EstadisticasLotes estadisticas = agrupado.getEstadisticasLotes();
+            assertEquals(1, estadisticas.getLotes());
+            assertEquals(cambios == 2 ? 1 : 0, estadisticas.getLotesIncrementales());
+            assertEquals(cambios == 2 ? 0 : 1, estadisticas.getRecalculos());
+            assertEquals(cambios - 1, estadisticas.getPublicacionesAhorradas());
+        }
+    }
+
+    @Test
+    public void testLoteDisperso() {
+        grafo.setModo(Grafo.Modo.DISPERSO);
+        grafo.lote(b -> b.eliminar("A", "B").agregar("C", "D", new int[]{1, 2, 3, 4}).agregar("A", "D", new int[]{50, 50, 50, 50}));
+        assertEquals(30, grafo.getDistancia("A", "C"));
+        assertEquals(31, grafo.getDistancia("A", "D"));
+        assertEquals(0, grafo.getEstadisticasLotes().getRecalculos());
+        assertEquals(2, grafo.getEstadisticasLotes().getPublicacionesAhorradas());
+    }
+
+    @Test
+    public void testLoteConCiudadInexistenteNoCambiaNada() {
+        GrafoSnapshot antes = grafo.snapshot();
+        try {
+            grafo.lote(b -> b.agregar("A", "B", new int[]{1, 1, 1, 1}).eliminar("A", "Z"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertSame(antes, grafo.snapshot());
+            assertEquals(10, grafo.getDistancia("A", "B"));
+        }
+    }
+
+    @Test
+    public void testArchivoBinario() throws Exception {
+        Path archivo = Files.createTempFile("grafo", ".bin");
+        try {
+            grafo.establecerClima(2);
+            grafo.guardarBinario(archivo.toString());
+            Grafo cargado = new Grafo(true);
+            cargado.cargarBinario(archivo.toString());
+            assertEquals(40, cargado.getDistancia("A", "C"));
+            assertTrue(cargado.climaEnCache(2));
+            cargado.establecerClima(0);
+            assertEquals(List.of("A", "B", "C"), cargado.caminoMasCorto("A", "C"));
+            assertEquals(20, cargado.getDistancia("A", "C"));
+
+            // Un byte cambiado hace fallar el CRC y el grafo queda como estaba
+            byte[] datos = Files.readAllBytes(archivo);
+            datos[datos.length / 2] ^= 1;
+            Files.write(archivo, datos);
+            try {
+                cargado.cargarBinario(archivo.toString());
+                fail();
+            } catch (java.io.IOException e) {
+                assertEquals(20, cargado.getDistancia("A", "C"));
+            }
+        } finally {
+            Files.delete(archivo);
+        }
+    }
+
+    @Test
+    public void testArchivoBinarioConNombresEntreVentanas() throws Exception {
+        // Nombres de longitudes distintas: con ventanas de 8 bytes muchos quedarían partidos sin el relleno
+        String[] nombres = {"A", "Bb", "Ccc", "Dddd", "Eeeee", "Añón"};
+        Grafo g = new Grafo();
+        for (int i = 0; i < nombres.length; i++)
+            g.agregarConexion(nombres[i], nombres[(i + 1) % nombres.length], new int[]{i + 1, 2, 3, 4});
+        Path archivo = Files.createTempFile("grafo", ".bin");
+        try {
+            g.guardarBinario(archivo.toString());
+            for (int ventana : new int[]{8, 12, 20}) {
+                ArchivoGrafo.Contenido contenido = ArchivoGrafo.cargar(archivo, false, ventana);
+                assertArrayEquals(nombres, contenido.nombres);
+                assertEquals(1 + 2 + 3 + 4 + 5, contenido.tablas[0].distancia(0, 5));
+            }
+        } finally {
+            Files.delete(archivo);
+        }
+    }
+
+    @Test
+    public void testCentralidadSeMantieneAlEditar() {
+        Grafo red = new Grafo();
+        Random random = new Random(21);
+        int n = 25;
+        for (int i = 0; i < n; i++)
+            red.agregarConexion("N" + i, "N" + ((i + 1) % n), new int[]{10, 10, 10, 10});
+        for (int k = 0; k < 150; k++) {
+            String u = "N" + random.nextInt(n), v = "N" + random.nextInt(n);
+            if (random.nextInt(3) == 0) red.eliminarConexion(u, v);
+            else red.agregarConexion(u, v, new int[]{1 + random.nextInt(15), 5, 5, 5});
+            if (k == 140) red.agregarCiudad("X");
+
+            // Recalcula todo desde las distancias y lo compara con lo mantenido
+            List<Ciudad> ciudades = red.getCiudades();
+            int total = ciudades.size();
+            long[] excentricidad = new long[total];
+            long[] suma = new long[total];
+            for (int i = 0; i < total; i++)
+                for (int j = 0; j < total; j++) {
+                    int d = red.getDistancia(ciudades.get(i).getNombre(), ciudades.get(j).getNombre());
+                    long valor = d < 0 ? Integer.MAX_VALUE / 2 : d;
+                    excentricidad[i] = Math.max(excentricidad[i], valor);
+                    if (i != j) suma[i] += valor;
+                }
+            Integer[] orden = new Integer[total];
+            for (int i = 0; i < total; i++) orden[i] = i;
+            java.util.Arrays.sort(orden, (a, b) -> excentricidad[a] != excentricidad[b]
+                    ? Long.compare(excentricidad[a], excentricidad[b]) : Integer.compare(a, b));
+            int mediana = 0;
+            for (int i = 1; i < total; i++) if (suma[i] < suma[mediana]) mediana = i;
+
+            assertEquals(ciudades.get(orden[0]).getNombre(), red.centroDelGrafo());
+            assertEquals(ciudades.get(mediana).getNombre(), red.medianaDelGrafo());
+            List<String> masCentrales = red.ciudadesMasCentrales(5);
+            for (int p = 0; p < 5; p++)
+                assertEquals(ciudades.get(orden[p]).getNombre(), masCentrales.get(p));
+        }
+    }
+
+    @Test
+    public void testExportarMatriz() throws Exception {
+        ExportadorMatriz exportador = grafo.exportador();
+        java.io.StringWriter csv = new java.io.StringWriter();
+        exportador.escribirCsv(csv);
+        assertEquals("origen,A,B,C\nA,,10,20\nB,,,10\nC,,,\n", csv.toString());
+
+        // Un bloque: filas A-B, columnas B-C
+        java.io.StringWriter bloque = new java.io.StringWriter();
+        exportador.escribirCsv(bloque, 0, 2, 1, 3);
+        assertEquals("origen,B,C\nA,10,20\nB,,10\n", bloque.toString());
+
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        exportador.escribirBinario(java.nio.channels.Channels.newChannel(bytes), 0, 2, 1, 3);
+        java.nio.ByteBuffer binario = java.nio.ByteBuffer.wrap(bytes.toByteArray()).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        assertEquals(ExportadorMatriz.MAGIA, binario.getInt());
+        assertEquals(ExportadorMatriz.VERSION, binario.getInt());
+        binario.position(7 * 4);
+        assertEquals(10, binario.getInt());
+        assertEquals(20, binario.getInt());
+        assertEquals(-1, binario.getInt());
+        assertEquals(10, binario.getInt());
+        assertFalse(binario.hasRemaining());
+
+        Path directorio = Files.createTempDirectory("matriz");
+        try {
+            assertEquals(4, exportador.exportarHtml(directorio, 2));
+            String pagina = Files.readString(directorio.resolve(ExportadorMatriz.nombrePagina(0, 1)));
+            assertTrue(pagina.contains("<th>C</th>"));
+            assertTrue(pagina.contains(ExportadorMatriz.nombrePagina(0, 0)));
+            assertTrue(pagina.contains(ExportadorMatriz.nombrePagina(1, 1)));
+        } finally {
+            try (java.util.stream.Stream<Path> archivos = Files.list(directorio)) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) Files.delete(archivo);
+            }
+            Files.delete(directorio);
+        }
+
+        ModeloMatrizDistancias modelo = new ModeloMatrizDistancias(grafo.snapshot());
+        assertEquals(4, modelo.getColumnCount());
+        assertEquals("B", modelo.getColumnName(2));
+        assertEquals(20, modelo.getValueAt(0, 3));
+        assertEquals("∞", modelo.getValueAt(2, 1));
+    }
+
+    // Hace una petición al servidor local y devuelve "código cuerpo"
+    private static String pedir(int puerto, String metodo, String ruta, String cuerpo) throws Exception {
+        java.net.HttpURLConnection conexion = (java.net.HttpURLConnection)
+                new java.net.URL("http://localhost:" + puerto + ruta).openConnection();
+        conexion.setRequestMethod(metodo);
+        if (cuerpo != null) {
+            conexion.setDoOutput(true);
+            conexion.getOutputStream().write(cuerpo.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        }
+        int codigo = conexion.getResponseCode();
+        java.io.InputStream entrada = codigo < 400 ? conexion.getInputStream() : conexion.getErrorStream();
+        return codigo + " " + new String(entrada.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testServidorRutas() throws Exception {
+        ServidorRutas servidor = new ServidorRutas(grafo, 0);
+        servidor.iniciar();
+        try {
+            int puerto = servidor.getPuerto();
+            assertEquals("200 {\"origen\":\"A\",\"destino\":\"C\",\"distancia\":20}",
+                    pedir(puerto, "GET", "/distancia?origen=A&destino=C", null));
+            assertEquals("200 {\"distancia\":20,\"camino\":[\"A\",\"B\",\"C\"]}",
+                    pedir(puerto, "GET", "/ruta?origen=A&destino=C", null));
+            assertEquals("200 {\"rutas\":[{\"distancia\":20,\"camino\":[\"A\",\"B\",\"C\"]},"
+                    + "{\"distancia\":30,\"camino\":[\"A\",\"C\"]}]}",
+                    pedir(puerto, "GET", "/alternativas?origen=A&destino=C&k=5", null));
+            assertEquals("200 {\"centro\":\"A\",\"mediana\":\"A\"}", pedir(puerto, "GET", "/centro", null));
+            assertTrue(pedir(puerto, "GET", "/distancia?origen=A&destino=Z", null).startsWith("404"));
+            assertTrue(pedir(puerto, "GET", "/distancia?origen=A", null).startsWith("400"));
+            assertEquals("200 A C 20\nC A -1\n", pedir(puerto, "POST", "/lote", "A C\nC A\n"));
+            assertEquals("200 A C 20 A B C\n", pedir(puerto, "POST", "/lote?rutas=1", "A C\n"));
+            assertEquals("200 {\"clima\":3,\"temperatura\":null}", pedir(puerto, "POST", "/clima?valor=3", null));
+            assertTrue(pedir(puerto, "POST", "/clima?temperatura=NaN", null).startsWith("400"));
+            assertTrue(pedir(puerto, "POST", "/clima?temperatura=-Infinity", null).startsWith("400"));
+            assertTrue(pedir(puerto, "GET", "/alternativas?origen=A&destino=C&k=1000000", null).startsWith("400"));
+            assertTrue(pedir(puerto, "GET", "/alternativas?origen=A&destino=C&k=0", null).startsWith("400"));
+            assertEquals(45, grafo.getDistancia("A", "C"));
+        } finally {
+            servidor.detener(0);
+        }
+    }
+
+    @Test
+    public void testMetricas() throws Exception {
+        MetricasGrafo metricas = grafo.getMetricas();
+        assertEquals(3, metricas.getActualizacionesIncrementales());
+        long antes = metricas.getRecalculos();
+        grafo.recalcularFloyd();
+        grafo.establecerClima(2);
+        grafo.establecerClima(0); // Ya en caché: no recalcula
+        assertEquals(1, metricas.getRecalculos(CausaRecalculo.MANUAL));
+        assertEquals(1, metricas.getRecalculos(CausaRecalculo.CLIMA));
+        assertEquals(antes + 2, metricas.getRecalculos());
+
+        for (int k = 0; k < 100; k++) grafo.getDistancia("A", "C");
+        grafo.caminoMasCorto("A", "C");
+        assertEquals(100, metricas.getHistogramaDistancias().getCuenta());
+        assertEquals(101, metricas.getConsultas());
+        assertTrue(metricas.getHistogramaDistancias().percentil(50) <= metricas.getHistogramaDistancias().percentil(99));
+        assertTrue(metricas.volcarTexto().contains("manual: 1"));
+
+        metricas.registrarMBean("prueba");
+        try {
+            javax.management.MBeanServer servidor = java.lang.management.ManagementFactory.getPlatformMBeanServer();
+            assertEquals(3L, servidor.getAttribute(metricas.getNombreMBean(), "ActualizacionesIncrementales"));
+        } finally {
+            metricas.desregistrarMBean();
+        }
+        metricas.reiniciar();
+        assertEquals(0, metricas.getConsultas());
+    }
+
+    @Test
+    public void testHistogramaLatencias() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        for (long v = 1; v <= 1000; v++) histograma.registrar(v * 1000);
+        assertEquals(1000, histograma.getCuenta());
+        assertEquals(1_000_000, histograma.getMaximo());
+        // Error relativo de las cubetas menor del 12,5 %
+        assertEquals(500_000, histograma.percentil(50), 500_000 * 0.125);
+        assertEquals(990_000, histograma.percentil(99), 990_000 * 0.125);
+        assertEquals(1_000_000, histograma.percentil(100));
+    }
+
+    @Test
+    public void testPercentilesDeConsultasJuntanDistanciasYCaminos() throws Exception {
+        // Un camino lento no debe tapar las 99 distancias rápidas en los percentiles conjuntos
+        MetricasGrafo metricas = new Grafo().getMetricas();
+        for (int k = 0; k < 99; k++) metricas.registrarDistancia(1000);
+        metricas.registrarCamino(1_000_000_000);
+        assertEquals(0.001, metricas.getConsultaP50Ms(), 0.001 * 0.125);
+        assertEquals(0.001, metricas.getConsultaP99Ms(), 0.001 * 0.125);
+        assertEquals(1000, metricas.getCaminoP50Ms(), 1000 * 0.125);
+        assertEquals(0.001, metricas.getDistanciaP99Ms(), 0.001 * 0.125);
+        assertEquals(1e9, HistogramaLatencias.percentil(100,
+                metricas.getHistogramaDistancias(), metricas.getHistogramaCaminos()), 1e9 * 0.125);
+
+        metricas.registrarMBean("percentiles");
+        try {
+            javax.management.MBeanServer servidor = java.lang.management.ManagementFactory.getPlatformMBeanServer();
+            assertEquals(0.001, (Double) servidor.getAttribute(metricas.getNombreMBean(), "DistanciaP50Ms"), 0.001 * 0.125);
+            assertEquals(1000, (Double) servidor.getAttribute(metricas.getNombreMBean(), "CaminoP99Ms"), 1000 * 0.125);
+        } finally {
+            metricas.desregistrarMBean();
+        }
+    }
+
+    @Test
+    public void testCapacidadMatrizPesos() {
+        // Duplicar 16384 pasaría del máximo: se queda en él en lugar de fallar
+        assertEquals(MatrizPesos.CAPACIDAD_MAXIMA, MatrizPesos.capacidadAmpliada(16384, 16385));
+        assertEquals(MatrizPesos.CAPACIDAD_MAXIMA, MatrizPesos.capacidadAmpliada(12000, 12001));
+        assertEquals(MatrizPesos.CAPACIDAD_MAXIMA, MatrizPesos.capacidadAmpliada(4096, MatrizPesos.CAPACIDAD_MAXIMA));
+        assertEquals(8192, MatrizPesos.capacidadAmpliada(4096, 4097));
+        assertEquals(6000, MatrizPesos.capacidadAmpliada(16, 6000));
+        assertTrue((long) MatrizPesos.CLIMAS * MatrizPesos.CAPACIDAD_MAXIMA * MatrizPesos.CAPACIDAD_MAXIMA <= Integer.MAX_VALUE);
+        assertTrue((long) MatrizPesos.CLIMAS * (MatrizPesos.CAPACIDAD_MAXIMA + 1) * (MatrizPesos.CAPACIDAD_MAXIMA + 1) > Integer.MAX_VALUE);
+        assertTrue(Grafo.CIUDADES_MAX_DENSO <= MatrizPesos.CAPACIDAD_MAXIMA);
+        try {
+            MatrizPesos.capacidadAmpliada(16384, MatrizPesos.CAPACIDAD_MAXIMA + 1);
+            fail("Debía rechazar más ciudades que la capacidad máxima");
+        } catch (IllegalStateException esperada) {
+            // Correcto
+        }
+
+        // Crecer de verdad cruzando una potencia de dos conserva los tiempos
+        MatrizPesos pesos = new MatrizPesos(1000, true);
+        pesos.set(2, 999, 3, 42);
+        pesos.crecer(1025);
+        pesos.crecer(2049);
+        assertEquals(42, pesos.get(2, 999, 3));
+        assertEquals(MatrizPesos.INF, pesos.get(2, 2048, 3));
+    }
+
+    @Test
+    public void testLlegadaMasTempranaConRegionesYPerfil() {
+        RutaTemporal ruta = grafo.llegadaMasTemprana("A", "C", 480);
+        assertEquals(List.of("A", "B", "C"), ruta.getCamino());
+        assertEquals(500, ruta.getLlegada());
+        assertNull(grafo.llegadaMasTemprana("C", "A", 480));
+        assertEquals(480, grafo.llegadaMasTemprana("A", "A", 480).getLlegada());
+
+        // Tormenta solo en la región de A: sus salidas usan la capa 3 y las de B la normal
+        grafo.setRegion("A", 1);
+        grafo.setModeloTemporal(grafo.getModeloTemporal().conClimaRegion(1, 3));
+        assertEquals(480 + 25 + 10, grafo.llegadaMasTemprana("A", "C", 480).getLlegada());
+        assertEquals(20, grafo.getDistancia("A", "C")); // Las consultas sin hora no cambian
+
+        // 10 °C queda a medio camino entre normal y lluvia: 12,5 se redondea a 13
+        grafo.setModeloTemporal(grafo.getModeloTemporal().conTemperaturaRegion(1, 10));
+        assertEquals(480 + 13 + 10, grafo.llegadaMasTemprana("A", "C", 480).getLlegada());
+
+        // Hora punta con factor 2,5 de 8:00 a 9:00 en la región de B: en ella conviene ir directo
+        PerfilHorario puntaManana = new PerfilHorario(new int[]{0, 420, 480, 540, 600}, new double[]{1, 1, 2.5, 2.5, 1});
+        assertEquals(2.5, puntaManana.factor(500), 1e-9);
+        assertEquals(1.75, puntaManana.factor(450 + PerfilHorario.MINUTOS_DIA), 1e-9);
+        assertEquals(40, puntaManana.pesoMaximoFifo(), 1e-9);
+        grafo.setModeloTemporal(grafo.getModeloTemporal().conPerfil(0, puntaManana));
+        RutaTemporal punta = grafo.llegadaMasTemprana("A", "C", 480);
+        assertEquals(List.of("A", "C"), punta.getCamino());
+        assertEquals(480 + 33, punta.getLlegada());
+        assertEquals(List.of("A", "B", "C"), grafo.llegadaMasTemprana("A", "C", 60).getCamino());
+        assertEquals(60 + 13 + 10, grafo.llegadaMasTemprana("A", "C", 60).getLlegada());
+
+        // La copia de las conexiones sigue a los cambios y a las ciudades nuevas
+        grafo.agregarConexion("C", "D", new int[]{5, 5, 5, 5});
+        grafo.eliminarConexion("B", "C");
+        ruta = grafo.llegadaMasTemprana("A", "D", 0);
+        assertEquals(List.of("A", "C", "D"), ruta.getCamino());
+        assertEquals(Math.round(32.5) + 5, ruta.getLlegada());
+    }
+}
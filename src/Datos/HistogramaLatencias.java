@@ -0,0 +1,104 @@
+package Datos;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latencias en nanosegundos con cubetas logarítmicas al estilo HDR: cada potencia de 2
+// se divide en 8 cubetas, así que cualquier percentil tiene un error relativo menor del 12,5 %.
+// Los valores menores que 16 ns tienen cubeta propia. Registrar es seguro y barato desde varios hilos
+public final class HistogramaLatencias {
+    private static final int SUBCUBETAS = 8;
+    private static final int EXACTAS = 16;
+    private static final int CUBETAS = EXACTAS + (63 - 4) * SUBCUBETAS;
+
+    private final LongAdder[] cuentas = new LongAdder[CUBETAS];
+    private final LongAdder total = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    public HistogramaLatencias() {
+        for (int b = 0; b < CUBETAS; b++) cuentas[b] = new LongAdder();
+    }
+
+    public void registrar(long nanos) {
+        if (nanos < 0) nanos = 0;
+        cuentas[cubeta(nanos)].increment();
+        total.increment();
+        suma.add(nanos);
+        maximo.accumulate(nanos);
+    }
+
+    private static int cubeta(long valor) {
+        if (valor < EXACTAS) return (int) valor;
+        int potencia = 63 - Long.numberOfLeadingZeros(valor); // >= 4
+        int sub = (int) (valor >>> (potencia - 3)) & (SUBCUBETAS - 1);
+        return EXACTAS + (potencia - 4) * SUBCUBETAS + sub;
+    }
+
+    // Valor central de la cubeta b
+    private static long centro(int b) {
+        if (b < EXACTAS) return b;
+        int potencia = (b - EXACTAS) / SUBCUBETAS + 4;
+        int sub = (b - EXACTAS) % SUBCUBETAS;
+        long inicio = (long) (SUBCUBETAS + sub) << (potencia - 3);
+        return inicio + (1L << (potencia - 3)) / 2;
+    }
+
+    public long getCuenta() {
+        return total.sum();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    public double getMedia() {
+        long cuenta = total.sum();
+        return cuenta == 0 ? 0 : (double) suma.sum() / cuenta;
+    }
+
+    // Percentil aproximado (0 < p <= 100) en nanosegundos; 0 si no hay registros
+    public long percentil(double p) {
+        long cuenta = total.sum();
+        if (cuenta == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(cuenta * p / 100));
+        long acumulado = 0;
+        for (int b = 0; b < CUBETAS; b++) {
+            acumulado += cuentas[b].sum();
+            if (acumulado >= objetivo) return Math.min(centro(b), getMaximo());
+        }
+        return getMaximo();
+    }
+
+    // Percentil de la unión de varios histogramas, como si todos los valores se hubieran registrado en uno
+    public static long percentil(double p, HistogramaLatencias... histogramas) {
+        long cuenta = 0;
+        long maximoTotal = 0;
+        for (HistogramaLatencias h : histogramas) {
+            cuenta += h.getCuenta();
+            maximoTotal = Math.max(maximoTotal, h.getMaximo());
+        }
+        if (cuenta == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(cuenta * p / 100));
+        long acumulado = 0;
+        for (int b = 0; b < CUBETAS; b++) {
+            for (HistogramaLatencias h : histogramas) acumulado += h.cuentas[b].sum();
+            if (acumulado >= objetivo) return Math.min(centro(b), maximoTotal);
+        }
+        return maximoTotal;
+    }
+
+    // Pone el histograma a cero; los registros concurrentes con el reinicio pueden perderse
+    public void reiniciar() {
+        for (LongAdder cuenta : cuentas) cuenta.reset();
+        total.reset();
+        suma.reset();
+        maximo.reset();
+    }
+
+    // Resumen en milisegundos: cuenta, media, p50, p99 y máximo
+    public String resumen() {
+        return String.format("n=%d media=%.3f ms p50=%.3f ms p99=%.3f ms max=%.3f ms", getCuenta(),
+                getMedia() / 1e6, percentil(50) / 1e6, percentil(99) / 1e6, getMaximo() / 1e6);
+    }
+}
@@ -0,0 +1,50 @@
+package Datos;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Alcanzabilidad por clima de una lista de conexiones concreta, calculada al primer uso en O(n + m)
+// más el cierre. Cuando solo se agregan conexiones entre ciudades que ya tenían ruta, la alcanzabilidad
+// no cambia y Grafo la pasa a las conexiones nuevas con trasAgregar; cualquier otro cambio la descarta
+final class IndiceAlcanzabilidad {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    final ListaAdyacencia conexiones;
+    private final AtomicReferenceArray<Alcanzabilidad> porClima;
+
+    IndiceAlcanzabilidad(ListaAdyacencia conexiones) {
+        this(conexiones, new AtomicReferenceArray<>(4));
+    }
+
+    private IndiceAlcanzabilidad(ListaAdyacencia conexiones, AtomicReferenceArray<Alcanzabilidad> porClima) {
+        this.conexiones = conexiones;
+        this.porClima = porClima;
+    }
+
+    // Alcanzabilidad del clima; si dos hilos la calculan a la vez ambos obtienen lo mismo y se queda la primera
+    Alcanzabilidad obtener(int clima) {
+        Alcanzabilidad alcanzabilidad = porClima.get(clima);
+        if (alcanzabilidad == null) {
+            porClima.compareAndSet(clima, null, Alcanzabilidad.construir(conexiones, clima));
+            alcanzabilidad = porClima.get(clima);
+        }
+        return alcanzabilidad;
+    }
+
+    // Índice para las conexiones nuevas tras agregar o actualizar las aristas origenes[k] -> destinos[k]
+    // con tiempos[k * 4 + clima]. Conserva la de cada clima en la que todas las aristas tienen tiempo
+    // finito y su origen ya llegaba a su destino: entonces no se gana ni se pierde ninguna ruta.
+    // Un tiempo infinito puede ser una arista quitada, así que ese clima se vuelve a calcular
+    IndiceAlcanzabilidad trasAgregar(ListaAdyacencia nuevas, int[] origenes, int[] destinos, int[] tiempos, int cambios) {
+        AtomicReferenceArray<Alcanzabilidad> conservadas = new AtomicReferenceArray<>(4);
+        if (nuevas.n == conexiones.n)
+            for (int c = 0; c < 4; c++) {
+                Alcanzabilidad anterior = porClima.get(c);
+                if (anterior == null) continue;
+                boolean igual = true;
+                for (int k = 0; k < cambios && igual; k++)
+                    igual = tiempos[k * 4 + c] != INF && anterior.conRuta(origenes[k], destinos[k]);
+                if (igual) conservadas.set(c, anterior);
+            }
+        return new IndiceAlcanzabilidad(nuevas, conservadas);
+    }
+}
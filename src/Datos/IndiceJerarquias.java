@@ -0,0 +1,51 @@
+package Datos;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Jerarquías de contracción por clima de una lista de conexiones concreta, construidas al primer uso.
+// Cuando las conexiones cambian, Grafo crea el índice de las nuevas con trasCambio: sus jerarquías se
+// rehacen con el orden de contracción de las anteriores (recontraer), mucho más barato que elegirlo de nuevo
+final class IndiceJerarquias {
+    final ListaAdyacencia conexiones;
+    private final AtomicReferenceArray<JerarquiaContraccion> porClima = new AtomicReferenceArray<>(4);
+
+    // Jerarquías de conexiones anteriores, solo para reutilizar su orden (null si no hay)
+    private final JerarquiaContraccion[] anteriores;
+
+    IndiceJerarquias(ListaAdyacencia conexiones) {
+        this(conexiones, new JerarquiaContraccion[4]);
+    }
+
+    private IndiceJerarquias(ListaAdyacencia conexiones, JerarquiaContraccion[] anteriores) {
+        this.conexiones = conexiones;
+        this.anteriores = anteriores;
+    }
+
+    // Jerarquía del clima; si dos hilos la construyen a la vez se queda la primera
+    JerarquiaContraccion obtener(int clima) {
+        JerarquiaContraccion jerarquia = porClima.get(clima);
+        if (jerarquia == null) {
+            JerarquiaContraccion anterior = anteriores[clima];
+            porClima.compareAndSet(clima, null, anterior != null
+                    ? anterior.recontraer(conexiones, clima) : JerarquiaContraccion.construir(conexiones, clima));
+            jerarquia = porClima.get(clima);
+        }
+        return jerarquia;
+    }
+
+    // Usa una jerarquía ya construida (por ejemplo, leída de un archivo) si corresponde a estas conexiones
+    boolean instalar(JerarquiaContraccion jerarquia) {
+        if (jerarquia.n != conexiones.n || jerarquia.huella != JerarquiaContraccion.huella(conexiones, jerarquia.clima))
+            return false;
+        porClima.set(jerarquia.clima, jerarquia);
+        return true;
+    }
+
+    // Índice para conexiones nuevas que conserva el orden de las jerarquías ya construidas
+    IndiceJerarquias trasCambio(ListaAdyacencia nuevas) {
+        JerarquiaContraccion[] ordenes = anteriores.clone();
+        for (int c = 0; c < 4; c++)
+            if (porClima.get(c) != null) ordenes[c] = porClima.get(c);
+        return new IndiceJerarquias(nuevas, ordenes);
+    }
+}
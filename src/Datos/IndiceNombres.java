@@ -0,0 +1,72 @@
+package Datos;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Mapa de nombre de ciudad a índice con direccionamiento abierto (sondeo lineal) sobre arreglos
+// primitivos: buscar no crea objetos ni desempaqueta Integer. Un solo hilo escribe (Grafo, dentro de
+// sus métodos synchronized) y cualquier número de hilos lee sin bloqueos: cada ranura se publica
+// escribiendo su nombre con semántica release después del hash y el índice, y al crecer se construye
+// una tabla nueva que sustituye a la anterior de una sola vez. Los nombres nunca se quitan
+final class IndiceNombres {
+    private static final VarHandle NOMBRES = MethodHandles.arrayElementVarHandle(String[].class);
+
+    private static final class Tabla {
+        final String[] nombres;
+        final int[] hashes;
+        final int[] indices;
+        final int mascara;
+
+        Tabla(int capacidad) {
+            nombres = new String[capacidad];
+            hashes = new int[capacidad];
+            indices = new int[capacidad];
+            mascara = capacidad - 1;
+        }
+    }
+
+    private volatile Tabla tabla = new Tabla(16);
+    private int tamano = 0;
+
+    // Mezcla los bits del hash de String para que el sondeo lineal no forme racimos con nombres parecidos
+    private static int mezclar(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Índice del nombre, o -1 si no está
+    int buscar(String nombre) {
+        Tabla t = tabla;
+        int h = mezclar(nombre.hashCode());
+        for (int k = h & t.mascara; ; k = (k + 1) & t.mascara) {
+            String actual = (String) NOMBRES.getAcquire(t.nombres, k);
+            if (actual == null) return -1;
+            if (t.hashes[k] == h && (actual == nombre || actual.equals(nombre))) return t.indices[k];
+        }
+    }
+
+    // Agrega un nombre que no está (solo desde el hilo que escribe)
+    void agregar(String nombre, int indice) {
+        if (2 * (tamano + 1) > tabla.nombres.length) {
+            Tabla mayor = new Tabla(2 * tabla.nombres.length);
+            Tabla t = tabla;
+            for (int k = 0; k < t.nombres.length; k++)
+                if (t.nombres[k] != null) colocar(mayor, t.nombres[k], t.hashes[k], t.indices[k]);
+            tabla = mayor;
+        }
+        colocar(tabla, nombre, mezclar(nombre.hashCode()), indice);
+        tamano++;
+    }
+
+    private static void colocar(Tabla t, String nombre, int h, int indice) {
+        int k = h & t.mascara;
+        while (t.nombres[k] != null) k = (k + 1) & t.mascara;
+        t.hashes[k] = h;
+        t.indices[k] = indice;
+        NOMBRES.setRelease(t.nombres, k, nombre);
+    }
+
+    int tamano() {
+        return tamano;
+    }
+}
@@ -0,0 +1,549 @@
+package Datos;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+// Jerarquía de contracción (Contraction Hierarchies) de un clima. Las ciudades se contraen de una en una
+// en orden de importancia creciente; al quitar v, cada camino u -> v -> x que no tenga otro igual de corto
+// (búsqueda de testigos) se conserva con un atajo u -> x que recuerda v para desempaquetarlo.
+// Una consulta solo sube de rango desde ambos extremos (ConsultaJerarquia), así que visita unos pocos
+// cientos de ciudades aunque el grafo tenga millones. Inmutable una vez construida
+public final class JerarquiaContraccion {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    // Formato binario: MAGIA, VERSION, n, clima, aristas de subida, aristas de bajada, huella (2 enteros),
+    // seguidos de rango, ciclo y los CSR de subida y bajada, y un CRC32 (8 bytes), en little-endian
+    static final int MAGIA = 0x4A544448; // "HDTJ" en little-endian
+    static final int VERSION = 1;
+    private static final int ENTEROS_CABECERA = 8;
+
+    // Ciudades asentadas como máximo en cada búsqueda de testigos; si se agota se añade el atajo,
+    // lo que nunca da resultados incorrectos, solo alguna arista de más. Al simular para calcular
+    // prioridades basta una estimación y se usa un límite mucho menor
+    private static final int LIMITE_TESTIGOS = 500;
+    private static final int LIMITE_TESTIGOS_SIMULACION = 40;
+
+    // Con al menos tantos vecinos sus prioridades se recalculan en paralelo
+    private static final int VECINOS_PARALELO = 64;
+
+    final int n;
+    final int clima;
+
+    // Huella de las conexiones con las que se construyó (ver huella), para no usarla con otras
+    final long huella;
+
+    // Posición de cada ciudad en el orden de contracción (mayor = más importante)
+    final int[] rango;
+
+    // Ciclo más corto que sale y vuelve a cada ciudad pasando solo por ciudades de menor rango
+    // (o un lazo directo); INF si no hay
+    final int[] ciclo;
+
+    // Aristas u -> x con rango[x] > rango[u], agrupadas por u y ordenadas por x.
+    // medio = ciudad contraída que sustituye el atajo, o -1 si es una conexión original
+    final int[] inicioSubida;
+    final int[] destinoSubida;
+    final int[] pesoSubida;
+    final int[] medioSubida;
+
+    // Aristas u -> x con rango[u] > rango[x], agrupadas por x y ordenadas por u
+    final int[] inicioBajada;
+    final int[] origenBajada;
+    final int[] pesoBajada;
+    final int[] medioBajada;
+
+    private JerarquiaContraccion(int n, int clima, long huella, int[] rango, int[] ciclo,
+                                 int[] inicioSubida, int[] destinoSubida, int[] pesoSubida, int[] medioSubida,
+                                 int[] inicioBajada, int[] origenBajada, int[] pesoBajada, int[] medioBajada) {
+        this.n = n;
+        this.clima = clima;
+        this.huella = huella;
+        this.rango = rango;
+        this.ciclo = ciclo;
+        this.inicioSubida = inicioSubida;
+        this.destinoSubida = destinoSubida;
+        this.pesoSubida = pesoSubida;
+        this.medioSubida = medioSubida;
+        this.inicioBajada = inicioBajada;
+        this.origenBajada = origenBajada;
+        this.pesoBajada = pesoBajada;
+        this.medioBajada = medioBajada;
+    }
+
+    // Construye la jerarquía del clima eligiendo el orden con la heurística habitual (diferencia de
+    // aristas, vecinos ya contraídos y nivel). Las prioridades se calculan en paralelo
+    static JerarquiaContraccion construir(ListaAdyacencia g, int clima) {
+        Contraccion contraccion = new Contraccion(g, clima);
+        int n = g.n;
+        long[] prioridades = new long[n];
+        IntStream.range(0, n).parallel().forEach(v -> prioridades[v] = contraccion.prioridad(v));
+        MonticuloBinario cola = new MonticuloBinario(n);
+        for (int v = 0; v < n; v++) cola.insertarODisminuir(v, prioridades[v]);
+
+        int[] orden = new int[n];
+        int contraidas = 0;
+        while (!cola.vacio()) {
+            int v = cola.extraerMinimo();
+            // Actualización perezosa: si su prioridad ha subido y ya no es la menor, vuelve a la cola
+            long actual = contraccion.prioridad(v);
+            if (!cola.vacio() && actual > cola.claveMinima()) {
+                cola.insertarODisminuir(v, actual);
+                continue;
+            }
+            contraccion.contraer(v);
+            orden[contraidas++] = v;
+
+            int[] vecinos = contraccion.vecinosSinContraer(v);
+            for (int u : vecinos) {
+                contraccion.vecinosContraidos[u]++;
+                contraccion.nivel[u] = Math.max(contraccion.nivel[u], contraccion.nivel[v] + 1);
+            }
+            long[] nuevas = new long[vecinos.length];
+            IntStream indices = IntStream.range(0, vecinos.length);
+            if (vecinos.length >= VECINOS_PARALELO) indices = indices.parallel();
+            indices.forEach(k -> nuevas[k] = contraccion.prioridad(vecinos[k]));
+            for (int k = 0; k < vecinos.length; k++) cola.insertarODisminuir(vecinos[k], nuevas[k]);
+        }
+        return contraccion.terminar(orden);
+    }
+
+    // Vuelve a construir la jerarquía con otras conexiones o pesos respetando el orden de esta
+    // (recustomización): no hay que simular contracciones para elegir el orden, solo contraer.
+    // Las ciudades que no existían cuando se construyó se contraen al final
+    JerarquiaContraccion recontraer(ListaAdyacencia g, int clima) {
+        int[] orden = new int[g.n];
+        for (int v = 0; v < Math.min(n, g.n); v++) orden[rango[v]] = v;
+        int siguiente = n;
+        if (g.n < n) {
+            // Sin ciudades quitadas esto no ocurre; por si acaso, se compacta el orden
+            int k = 0;
+            for (int r = 0; r < n; r++)
+                if (orden[r] < g.n) orden[k++] = orden[r];
+            siguiente = k;
+        }
+        for (int v = n; v < g.n; v++) orden[siguiente++] = v;
+        Contraccion contraccion = new Contraccion(g, clima);
+        for (int v : orden) contraccion.contraer(v);
+        return contraccion.terminar(orden);
+    }
+
+    public int getNumeroCiudades() {
+        return n;
+    }
+
+    public int getClima() {
+        return clima;
+    }
+
+    // Número de atajos añadidos por la contracción
+    public int getNumeroAtajos() {
+        int atajos = 0;
+        for (int medio : medioSubida) if (medio >= 0) atajos++;
+        for (int medio : medioBajada) if (medio >= 0) atajos++;
+        return atajos;
+    }
+
+    // Tamaño aproximado en memoria (y en el archivo) de la jerarquía
+    public long bytes() {
+        return 4L * (2L * n + 2L * (n + 1) + 3L * destinoSubida.length + 3L * origenBajada.length);
+    }
+
+    // Posición de la arista u -> x en la subida de u, o -1
+    int aristaSubida(int u, int x) {
+        int e = Arrays.binarySearch(destinoSubida, inicioSubida[u], inicioSubida[u + 1], x);
+        return e >= 0 ? e : -1;
+    }
+
+    // Posición de la arista u -> x en la bajada de x, o -1
+    int aristaBajada(int x, int u) {
+        int e = Arrays.binarySearch(origenBajada, inicioBajada[x], inicioBajada[x + 1], u);
+        return e >= 0 ? e : -1;
+    }
+
+    // Huella de las conexiones de un clima: CRC32 de n, del CSR y de los pesos de esa capa
+    static long huella(ListaAdyacencia g, int clima) {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 14).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(g.n).putInt(g.m);
+        huella(crc, buffer, g.inicio, 0, g.n + 1);
+        huella(crc, buffer, g.destino, 0, g.m);
+        huella(crc, buffer, g.pesos, clima * g.m, g.m);
+        buffer.flip();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    private static void huella(CRC32 crc, ByteBuffer buffer, int[] datos, int desde, int cantidad) {
+        for (int k = 0; k < cantidad; k++) {
+            if (buffer.remaining() < Integer.BYTES) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+            buffer.putInt(datos[desde + k]);
+        }
+    }
+
+    // Guarda la jerarquía en formato binario (ver MAGIA); escribe en un temporal y lo renombra al final
+    public void guardar(Path archivo) throws IOException {
+        int mSubida = destinoSubida.length;
+        int mBajada = origenBajada.length;
+        long enteros = ENTEROS_CABECERA + 2L * n + 2L * (n + 1) + 3L * mSubida + 3L * mBajada;
+        if (enteros * 4 + 8 > Integer.MAX_VALUE)
+            throw new IOException("La jerarquía es demasiado grande para un solo archivo");
+        ByteBuffer buffer = ByteBuffer.allocate((int) enteros * 4 + 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIA).putInt(VERSION).putInt(n).putInt(clima).putInt(mSubida).putInt(mBajada)
+                .putLong(huella);
+        // asIntBuffer no mueve la posición del buffer de bytes: se avanza a mano
+        for (int[] datos : new int[][]{rango, ciclo, inicioSubida, destinoSubida, pesoSubida, medioSubida,
+                inicioBajada, origenBajada, pesoBajada, medioBajada}) {
+            buffer.asIntBuffer().put(datos);
+            buffer.position(buffer.position() + datos.length * 4);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) canal.write(buffer);
+            canal.force(false);
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Lee una jerarquía guardada con guardar; IOException si el archivo no es válido o está dañado
+    public static JerarquiaContraccion cargar(Path archivo) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(archivo)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < ENTEROS_CABECERA * 4 + 8 || buffer.getInt(0) != MAGIA)
+            throw new IOException(archivo + " no es una jerarquía de contracción");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Versión " + buffer.getInt(4) + " de jerarquía no soportada");
+        int n = buffer.getInt(8);
+        int clima = buffer.getInt(12);
+        int mSubida = buffer.getInt(16);
+        int mBajada = buffer.getInt(20);
+        long huella = buffer.getLong(24);
+        long enteros = ENTEROS_CABECERA + 2L * n + 2L * (n + 1) + 3L * mSubida + 3L * mBajada;
+        if (n < 0 || mSubida < 0 || mBajada < 0 || clima < 0 || clima > 3 || enteros * 4 + 8 != buffer.capacity())
+            throw new IOException("Cabecera de jerarquía incoherente en " + archivo);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, (int) enteros * 4);
+        if (crc.getValue() != buffer.getLong((int) enteros * 4))
+            throw new IOException("Suma de comprobación incorrecta en " + archivo);
+
+        buffer.position(ENTEROS_CABECERA * 4);
+        int[][] datos = new int[10][];
+        int[] tamanos = {n, n, n + 1, mSubida, mSubida, mSubida, n + 1, mBajada, mBajada, mBajada};
+        for (int k = 0; k < datos.length; k++) {
+            datos[k] = new int[tamanos[k]];
+            buffer.asIntBuffer().get(datos[k]);
+            buffer.position(buffer.position() + tamanos[k] * 4);
+        }
+        return new JerarquiaContraccion(n, clima, huella, datos[0], datos[1], datos[2], datos[3], datos[4],
+                datos[5], datos[6], datos[7], datos[8], datos[9]);
+    }
+
+    // Estado de la contracción: aristas salientes y entrantes de cada ciudad que crecen con los atajos.
+    // Entre cada par de ciudades hay como mucho una arista (la más corta)
+    private static final class Contraccion {
+        final int n;
+        final int clima;
+        final long huella;
+        final int[][] salida;
+        final int[][] pesoSalida;
+        final int[][] medioSalida;
+        final int[] numeroSalida;
+        final int[][] entrada;
+        final int[][] pesoEntrada;
+        final int[] numeroEntrada;
+        final boolean[] contraida;
+        final int[] vecinosContraidos;
+        final int[] nivel;
+        final int[] ciclo;
+
+        // Espacio de cada hilo para las búsquedas de testigos, solo mientras dura la construcción
+        final ThreadLocal<Testigos> testigos = ThreadLocal.withInitial(Testigos::new);
+
+        Contraccion(ListaAdyacencia g, int clima) {
+            this.n = g.n;
+            this.clima = clima;
+            this.huella = JerarquiaContraccion.huella(g, clima);
+            salida = new int[n][];
+            pesoSalida = new int[n][];
+            medioSalida = new int[n][];
+            numeroSalida = new int[n];
+            entrada = new int[n][];
+            pesoEntrada = new int[n][];
+            numeroEntrada = new int[n];
+            contraida = new boolean[n];
+            vecinosContraidos = new int[n];
+            nivel = new int[n];
+            ciclo = new int[n];
+            Arrays.fill(ciclo, INF);
+
+            int base = clima * g.m;
+            int[] grados = new int[n];
+            for (int u = 0; u < n; u++)
+                for (int e = g.inicio[u]; e < g.inicio[u + 1]; e++)
+                    if (g.pesos[base + e] != INF && g.destino[e] != u) grados[g.destino[e]]++;
+            for (int u = 0; u < n; u++) {
+                int grado = g.inicio[u + 1] - g.inicio[u];
+                salida[u] = new int[Math.max(grado, 2)];
+                pesoSalida[u] = new int[Math.max(grado, 2)];
+                medioSalida[u] = new int[Math.max(grado, 2)];
+                entrada[u] = new int[Math.max(grados[u], 2)];
+                pesoEntrada[u] = new int[Math.max(grados[u], 2)];
+            }
+            for (int u = 0; u < n; u++)
+                for (int e = g.inicio[u]; e < g.inicio[u + 1]; e++) {
+                    int w = g.pesos[base + e];
+                    if (w == INF) continue;
+                    int x = g.destino[e];
+                    if (x == u) ciclo[u] = Math.min(ciclo[u], w); // Lazo directo
+                    else agregarArista(u, x, w, -1);
+                }
+        }
+
+        // Agrega la arista u -> x o la acorta si ya existía con un peso mayor
+        void agregarArista(int u, int x, int w, int medio) {
+            int[] destinos = salida[u];
+            for (int k = 0; k < numeroSalida[u]; k++)
+                if (destinos[k] == x) {
+                    if (w < pesoSalida[u][k]) {
+                        pesoSalida[u][k] = w;
+                        medioSalida[u][k] = medio;
+                        int[] origenes = entrada[x];
+                        for (int q = 0; q < numeroEntrada[x]; q++)
+                            if (origenes[q] == u) pesoEntrada[x][q] = w;
+                    }
+                    return;
+                }
+            int k = numeroSalida[u]++;
+            if (k == destinos.length) {
+                salida[u] = Arrays.copyOf(destinos, 2 * k);
+                pesoSalida[u] = Arrays.copyOf(pesoSalida[u], 2 * k);
+                medioSalida[u] = Arrays.copyOf(medioSalida[u], 2 * k);
+            }
+            salida[u][k] = x;
+            pesoSalida[u][k] = w;
+            medioSalida[u][k] = medio;
+            int q = numeroEntrada[x]++;
+            if (q == entrada[x].length) {
+                entrada[x] = Arrays.copyOf(entrada[x], 2 * q);
+                pesoEntrada[x] = Arrays.copyOf(pesoEntrada[x], 2 * q);
+            }
+            entrada[x][q] = u;
+            pesoEntrada[x][q] = w;
+        }
+
+        // Prioridad de contracción de v: cuanto menor, antes se contrae. Simula la contracción
+        // (solo lee el grafo, así que varias pueden calcularse a la vez)
+        long prioridad(int v) {
+            int aristas = 0;
+            for (int k = 0; k < numeroEntrada[v]; k++) if (!contraida[entrada[v][k]]) aristas++;
+            for (int k = 0; k < numeroSalida[v]; k++) if (!contraida[salida[v][k]]) aristas++;
+            int atajos = atajos(v, false);
+            return 2L * (atajos - aristas) + vecinosContraidos[v] + nivel[v];
+        }
+
+        void contraer(int v) {
+            atajos(v, true);
+            contraida[v] = true;
+        }
+
+        // Recorre los caminos u -> v -> x entre vecinos sin contraer y cuenta los que necesitan atajo;
+        // si agregar es true además los añade (y anota los ciclos u -> v -> u)
+        int atajos(int v, boolean agregar) {
+            Testigos busqueda = testigos.get();
+            int atajos = 0;
+            int maximoSalida = 0;
+            int[] objetivos = busqueda.objetivos(numeroSalida[v]);
+            int numeroObjetivos = 0;
+            for (int k = 0; k < numeroSalida[v]; k++)
+                if (!contraida[salida[v][k]]) {
+                    maximoSalida = Math.max(maximoSalida, pesoSalida[v][k]);
+                    objetivos[numeroObjetivos++] = salida[v][k];
+                }
+            if (numeroObjetivos == 0) return 0;
+            for (int a = 0; a < numeroEntrada[v]; a++) {
+                int u = entrada[v][a];
+                if (contraida[u]) continue;
+                int w1 = pesoEntrada[v][a];
+                busqueda.buscar(this, u, v, (int) Math.min(INF, (long) w1 + maximoSalida), agregar ? LIMITE_TESTIGOS : LIMITE_TESTIGOS_SIMULACION,
+                        numeroObjetivos);
+                for (int b = 0; b < numeroSalida[v]; b++) {
+                    int x = salida[v][b];
+                    if (contraida[x]) continue;
+                    long suma = (long) w1 + pesoSalida[v][b];
+                    if (suma >= INF) continue; // Un atajo que llega a INF no es una ruta
+                    int candidato = (int) suma;
+                    if (x == u) {
+                        if (agregar && candidato < ciclo[u]) ciclo[u] = candidato;
+                        continue;
+                    }
+                    if (busqueda.distancia(x) <= candidato) continue; // Hay un testigo
+                    atajos++;
+                    if (agregar) agregarArista(u, x, candidato, v);
+                }
+            }
+            return atajos;
+        }
+
+        // Ciudades sin contraer conectadas con v en algún sentido, sin repetir
+        int[] vecinosSinContraer(int v) {
+            int[] vecinos = new int[numeroEntrada[v] + numeroSalida[v]];
+            int total = 0;
+            for (int k = 0; k < numeroEntrada[v]; k++) if (!contraida[entrada[v][k]]) vecinos[total++] = entrada[v][k];
+            for (int k = 0; k < numeroSalida[v]; k++) if (!contraida[salida[v][k]]) vecinos[total++] = salida[v][k];
+            Arrays.sort(vecinos, 0, total);
+            int distintos = 0;
+            for (int k = 0; k < total; k++)
+                if (distintos == 0 || vecinos[distintos - 1] != vecinos[k]) vecinos[distintos++] = vecinos[k];
+            return Arrays.copyOf(vecinos, distintos);
+        }
+
+        // Reparte las aristas finales en subida y bajada según el rango y las ordena para buscarlas
+        JerarquiaContraccion terminar(int[] orden) {
+            int[] rango = new int[n];
+            for (int r = 0; r < n; r++) rango[orden[r]] = r;
+            int[] inicioSubida = new int[n + 1];
+            int[] inicioBajada = new int[n + 1];
+            for (int u = 0; u < n; u++)
+                for (int k = 0; k < numeroSalida[u]; k++) {
+                    int x = salida[u][k];
+                    if (rango[x] > rango[u]) inicioSubida[u + 1]++;
+                    else inicioBajada[x + 1]++;
+                }
+            for (int v = 0; v < n; v++) {
+                inicioSubida[v + 1] += inicioSubida[v];
+                inicioBajada[v + 1] += inicioBajada[v];
+            }
+            int mSubida = inicioSubida[n];
+            int mBajada = inicioBajada[n];
+            long[] subida = new long[mSubida];
+            long[] bajada = new long[mBajada];
+            int[] libreSubida = Arrays.copyOf(inicioSubida, n);
+            int[] libreBajada = Arrays.copyOf(inicioBajada, n);
+            // Cada arista se numera y se guarda como (vecino << 32 | número) para ordenar por vecino;
+            // origenDe y posicionDe dicen dónde está en las listas de trabajo
+            int[] origenDe = new int[mSubida + mBajada];
+            int[] posicionDe = new int[mSubida + mBajada];
+            int arista = 0;
+            for (int u = 0; u < n; u++)
+                for (int k = 0; k < numeroSalida[u]; k++, arista++) {
+                    int x = salida[u][k];
+                    origenDe[arista] = u;
+                    posicionDe[arista] = k;
+                    if (rango[x] > rango[u]) subida[libreSubida[u]++] = (long) x << 32 | arista;
+                    else bajada[libreBajada[x]++] = (long) u << 32 | arista;
+                }
+            for (int v = 0; v < n; v++) {
+                Arrays.sort(subida, inicioSubida[v], inicioSubida[v + 1]);
+                Arrays.sort(bajada, inicioBajada[v], inicioBajada[v + 1]);
+            }
+
+            int[] destinoSubida = new int[mSubida];
+            int[] pesoSubida = new int[mSubida];
+            int[] medioSubida = new int[mSubida];
+            for (int e = 0; e < mSubida; e++) {
+                int a = (int) subida[e];
+                int u = origenDe[a];
+                int k = posicionDe[a];
+                destinoSubida[e] = salida[u][k];
+                pesoSubida[e] = pesoSalida[u][k];
+                medioSubida[e] = medioSalida[u][k];
+            }
+            int[] origenBajada = new int[mBajada];
+            int[] pesoBajada = new int[mBajada];
+            int[] medioBajada = new int[mBajada];
+            for (int e = 0; e < mBajada; e++) {
+                int a = (int) bajada[e];
+                int u = origenDe[a];
+                int k = posicionDe[a];
+                origenBajada[e] = u;
+                pesoBajada[e] = pesoSalida[u][k];
+                medioBajada[e] = medioSalida[u][k];
+            }
+            return new JerarquiaContraccion(n, clima, huella, rango, ciclo, inicioSubida, destinoSubida,
+                    pesoSubida, medioSubida, inicioBajada, origenBajada, pesoBajada, medioBajada);
+        }
+    }
+
+    // Dijkstra local desde u sin pasar por la ciudad que se contrae ni por las ya contraídas, hasta
+    // asentar todos los objetivos, superar la distancia límite o asentar el máximo de ciudades
+    private static final class Testigos {
+        private int[] distancia = new int[0];
+        private int[] marca = new int[0];
+        private int[] marcaObjetivo = new int[0];
+        private int[] objetivos = new int[8];
+        private int version = 0;
+        private final MonticuloBinario monticulo = new MonticuloBinario(0);
+
+        // Arreglo donde el llamante deja los objetivos de la próxima búsqueda
+        int[] objetivos(int capacidad) {
+            if (objetivos.length < capacidad) objetivos = new int[Math.max(capacidad, 2 * objetivos.length)];
+            return objetivos;
+        }
+
+        void buscar(Contraccion c, int origen, int excluida, int limite, int maximoAsentadas, int numeroObjetivos) {
+            if (distancia.length < c.n) {
+                distancia = new int[c.n];
+                marca = new int[c.n];
+                marcaObjetivo = new int[c.n];
+                version = 0;
+            }
+            monticulo.asegurarCapacidad(c.n);
+            monticulo.vaciar();
+            if (++version == Integer.MAX_VALUE) {
+                Arrays.fill(marca, 0);
+                Arrays.fill(marcaObjetivo, 0);
+                version = 1;
+            }
+            int pendientes = 0;
+            for (int k = 0; k < numeroObjetivos; k++)
+                if (objetivos[k] != origen && marcaObjetivo[objetivos[k]] != version) {
+                    marcaObjetivo[objetivos[k]] = version;
+                    pendientes++;
+                }
+            distancia[origen] = 0;
+            marca[origen] = version;
+            monticulo.insertarODisminuir(origen, 0);
+            int asentadas = 0;
+            while (pendientes > 0 && !monticulo.vacio() && monticulo.claveMinima() <= limite
+                    && asentadas++ < maximoAsentadas) {
+                int u = monticulo.extraerMinimo();
+                if (marcaObjetivo[u] == version) pendientes--;
+                int du = distancia[u];
+                for (int k = 0; k < c.numeroSalida[u]; k++) {
+                    int x = c.salida[u][k];
+                    if (x == excluida || c.contraida[x]) continue;
+                    long suma = (long) du + c.pesoSalida[u][k];
+                    if (suma > limite || suma >= INF) continue;
+                    int candidato = (int) suma;
+                    if (marca[x] != version || candidato < distancia[x]) {
+                        distancia[x] = candidato;
+                        marca[x] = version;
+                        monticulo.insertarODisminuir(x, candidato);
+                    }
+                }
+            }
+        }
+
+        // Distancia encontrada hasta x (cota superior de la real), o INF si no se alcanzó
+        int distancia(int x) {
+            return marca[x] == version ? distancia[x] : INF;
+        }
+    }
+}
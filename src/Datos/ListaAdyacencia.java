@@ -0,0 +1,213 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Representación dispersa (CSR) de las conexiones: las aristas salientes de la ciudad u ocupan
+// las posiciones inicio[u] .. inicio[u + 1] - 1, ordenadas por destino. Cada arista guarda sus
+// cuatro tiempos por clima en pesos[clima * m + arista]. También guarda el índice inverso
+// (aristas entrantes) para las búsquedas hacia atrás. Es inmutable: los cambios crean otra lista
+final class ListaAdyacencia {
+    static final int INF = Integer.MAX_VALUE / 2;
+    static final int CLIMAS = 4;
+
+    final int n;
+    final int m;
+    final int[] inicio;
+    final int[] destino;
+    final int[] pesos;
+
+    // Aristas entrantes de v: posiciones inicioInverso[v] .. inicioInverso[v + 1] - 1,
+    // con la ciudad de origen y el índice de la arista en el arreglo directo
+    final int[] inicioInverso;
+    final int[] origenInverso;
+    final int[] aristaInversa;
+
+    private ListaAdyacencia(int n, int[] inicio, int[] destino, int[] pesos) {
+        this.n = n;
+        this.m = destino.length;
+        this.inicio = inicio;
+        this.destino = destino;
+        this.pesos = pesos;
+
+        // Índice inverso por conteo
+        inicioInverso = new int[n + 1];
+        for (int e = 0; e < m; e++) inicioInverso[destino[e] + 1]++;
+        for (int v = 0; v < n; v++) inicioInverso[v + 1] += inicioInverso[v];
+        origenInverso = new int[m];
+        aristaInversa = new int[m];
+        int[] siguiente = Arrays.copyOf(inicioInverso, n);
+        for (int u = 0; u < n; u++)
+            for (int e = inicio[u]; e < inicio[u + 1]; e++) {
+                int p = siguiente[destino[e]]++;
+                origenInverso[p] = u;
+                aristaInversa[p] = e;
+            }
+    }
+
+    // Construye la lista a partir de conexiones sueltas (tiempos[f * 4 + clima]).
+    // Si una conexión aparece varias veces gana la última, igual que al escribir en la matriz
+    static ListaAdyacencia desdeAristas(int n, int[] origenes, int[] destinos, int[] tiempos, int total) {
+        // Ordena las filas por (origen, destino, orden de aparición) en una clave de 64 bits
+        long[] claves = new long[total];
+        for (int f = 0; f < total; f++)
+            claves[f] = ((long) origenes[f] * n + destinos[f]) << 24 | f;
+        if (total >= 1 << 24 || (long) n * n >= 1L << 39) {
+            // Demasiadas filas para la clave compacta: ordenación estable por índices
+            Integer[] orden = new Integer[total];
+            for (int f = 0; f < total; f++) orden[f] = f;
+            Arrays.sort(orden, (a, b) -> Long.compare((long) origenes[a] * n + destinos[a], (long) origenes[b] * n + destinos[b]));
+            for (int f = 0; f < total; f++) claves[f] = orden[f];
+        } else {
+            Arrays.sort(claves);
+            for (int f = 0; f < total; f++) claves[f] &= (1 << 24) - 1;
+        }
+
+        // Recorre en orden quedándose con la última aparición de cada par
+        int[] inicio = new int[n + 1];
+        int[] destino = new int[total];
+        int[] filaElegida = new int[total];
+        int m = 0;
+        for (int p = 0; p < total; p++) {
+            int f = (int) claves[p];
+            boolean ultima = p + 1 == total
+                    || origenes[(int) claves[p + 1]] != origenes[f] || destinos[(int) claves[p + 1]] != destinos[f];
+            if (!ultima || todosInfinitos(tiempos, f)) continue;
+            inicio[origenes[f] + 1]++;
+            destino[m] = destinos[f];
+            filaElegida[m++] = f;
+        }
+        for (int u = 0; u < n; u++) inicio[u + 1] += inicio[u];
+        int[] pesos = new int[CLIMAS * m];
+        for (int e = 0; e < m; e++)
+            for (int c = 0; c < CLIMAS; c++)
+                pesos[c * m + e] = tiempos[filaElegida[e] * CLIMAS + c];
+        return new ListaAdyacencia(n, inicio, Arrays.copyOf(destino, m), pesos);
+    }
+
+    // Lista con arreglos CSR ya construidos (por ejemplo, leídos de un archivo binario)
+    static ListaAdyacencia desdeCsr(int n, int[] inicio, int[] destino, int[] pesos) {
+        return new ListaAdyacencia(n, inicio, destino, pesos);
+    }
+
+    // Extrae las conexiones de una matriz de pesos densa
+    static ListaAdyacencia desdeMatriz(MatrizPesos matriz) {
+        int n = matriz.n();
+        int[] fila = new int[n];
+        int[] inicio = new int[n + 1];
+        int m = 0;
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                if (existe(matriz, i, j)) m++;
+        int[] destino = new int[m];
+        int[] pesos = new int[CLIMAS * m];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++)
+                if (existe(matriz, i, j)) destino[e++] = j;
+            inicio[i + 1] = e;
+        }
+        for (int c = 0; c < CLIMAS; c++)
+            for (int i = 0; i < n; i++) {
+                matriz.copiarFila(c, i, fila, 0);
+                for (int a = inicio[i]; a < inicio[i + 1]; a++)
+                    pesos[c * m + a] = fila[destino[a]];
+            }
+        return new ListaAdyacencia(n, inicio, destino, pesos);
+    }
+
+    private static boolean existe(MatrizPesos matriz, int i, int j) {
+        for (int c = 0; c < CLIMAS; c++)
+            if (matriz.get(c, i, j) != INF) return true;
+        return false;
+    }
+
+    private static boolean todosInfinitos(int[] tiempos, int fila) {
+        for (int c = 0; c < CLIMAS; c++)
+            if (tiempos[fila * CLIMAS + c] != INF) return false;
+        return true;
+    }
+
+    // Escribe las conexiones en una matriz densa (que debe empezar en INF)
+    void escribirEn(MatrizPesos matriz) {
+        for (int u = 0; u < n; u++)
+            for (int e = inicio[u]; e < inicio[u + 1]; e++)
+                for (int c = 0; c < CLIMAS; c++)
+                    matriz.set(c, u, destino[e], pesos[c * m + e]);
+    }
+
+    // Posición de la arista u -> v, o -1 si no existe (búsqueda binaria entre las salientes de u)
+    int arista(int u, int v) {
+        int e = Arrays.binarySearch(destino, inicio[u], inicio[u + 1], v);
+        return e >= 0 ? e : -1;
+    }
+
+    int peso(int clima, int u, int v) {
+        int e = arista(u, v);
+        return e < 0 ? INF : pesos[clima * m + e];
+    }
+
+    // Copia con la conexión u -> v agregada o actualizada (tiempos) o eliminada (tiempos == null)
+    ListaAdyacencia conArista(int u, int v, int[] tiempos) {
+        int e = arista(u, v);
+        if (tiempos == null && e < 0) return this;
+        if (e >= 0 && tiempos != null) {
+            int[] nuevosPesos = pesos.clone();
+            for (int c = 0; c < CLIMAS; c++) nuevosPesos[c * m + e] = tiempos[c];
+            return new ListaAdyacencia(n, inicio, destino, nuevosPesos);
+        }
+
+        // Inserta o quita una posición manteniendo el orden por destino
+        int nuevoM = tiempos == null ? m - 1 : m + 1;
+        int pos = tiempos == null ? e : -Arrays.binarySearch(destino, inicio[u], inicio[u + 1], v) - 1;
+        int[] nuevoInicio = inicio.clone();
+        for (int x = u + 1; x <= n; x++) nuevoInicio[x] += tiempos == null ? -1 : 1;
+        int[] nuevoDestino = new int[nuevoM];
+        int[] nuevosPesos = new int[CLIMAS * nuevoM];
+        if (tiempos == null) {
+            System.arraycopy(destino, 0, nuevoDestino, 0, pos);
+            System.arraycopy(destino, pos + 1, nuevoDestino, pos, m - pos - 1);
+            for (int c = 0; c < CLIMAS; c++) {
+                System.arraycopy(pesos, c * m, nuevosPesos, c * nuevoM, pos);
+                System.arraycopy(pesos, c * m + pos + 1, nuevosPesos, c * nuevoM + pos, m - pos - 1);
+            }
+        } else {
+            System.arraycopy(destino, 0, nuevoDestino, 0, pos);
+            nuevoDestino[pos] = v;
+            System.arraycopy(destino, pos, nuevoDestino, pos + 1, m - pos);
+            for (int c = 0; c < CLIMAS; c++) {
+                System.arraycopy(pesos, c * m, nuevosPesos, c * nuevoM, pos);
+                nuevosPesos[c * nuevoM + pos] = tiempos[c];
+                System.arraycopy(pesos, c * m + pos, nuevosPesos, c * nuevoM + pos + 1, m - pos);
+            }
+        }
+        return new ListaAdyacencia(n, nuevoInicio, nuevoDestino, nuevosPesos);
+    }
+
+    // Copia con varios cambios aplicados en orden (tiempos[k * 4 + clima], todo INF para eliminar),
+    // reconstruyendo la lista una sola vez en lugar de una por cambio
+    ListaAdyacencia conAristas(int[] origenes, int[] destinos, int[] tiempos, int cambios) {
+        int total = m + cambios;
+        int[] o = new int[total];
+        int[] d = new int[total];
+        int[] t = new int[total * CLIMAS];
+        int f = 0;
+        for (int u = 0; u < n; u++)
+            for (int e = inicio[u]; e < inicio[u + 1]; e++, f++) {
+                o[f] = u;
+                d[f] = destino[e];
+                for (int c = 0; c < CLIMAS; c++) t[f * CLIMAS + c] = pesos[c * m + e];
+            }
+        System.arraycopy(origenes, 0, o, m, cambios);
+        System.arraycopy(destinos, 0, d, m, cambios);
+        System.arraycopy(tiempos, 0, t, m * CLIMAS, cambios * CLIMAS);
+        return desdeAristas(n, o, d, t, total);
+    }
+
+    // Copia con ciudades nuevas sin conexiones al final
+    ListaAdyacencia conCiudades(int nuevoN) {
+        if (nuevoN <= n) return this;
+        int[] nuevoInicio = Arrays.copyOf(inicio, nuevoN + 1);
+        Arrays.fill(nuevoInicio, n + 1, nuevoN + 1, m);
+        return new ListaAdyacencia(nuevoN, nuevoInicio, destino, pesos);
+    }
+}
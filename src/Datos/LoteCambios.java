@@ -0,0 +1,52 @@
+package Datos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Cambios de conexiones acumulados para aplicarlos juntos con Grafo.lote. Solo se registran aquí;
+// el grafo no cambia hasta que termina el lote, y entonces recalcula las rutas una sola vez
+public final class LoteCambios {
+    private final List<String> origenes = new ArrayList<>();
+    private final List<String> destinos = new ArrayList<>();
+
+    // Tiempos por clima de cada cambio; null indica que la conexión se elimina
+    private final List<int[]> tiempos = new ArrayList<>();
+
+    LoteCambios() {
+    }
+
+    // Agrega o actualiza una conexión; las ciudades nuevas se crean al aplicar el lote
+    public LoteCambios agregar(String origen, String destino, int[] tiempos) {
+        if (tiempos.length != 4)
+            throw new IllegalArgumentException("Se esperan 4 tiempos (uno por clima)");
+        return registrar(origen, destino, tiempos.clone());
+    }
+
+    // Elimina una conexión en todos los climas
+    public LoteCambios eliminar(String origen, String destino) {
+        return registrar(origen, destino, null);
+    }
+
+    private LoteCambios registrar(String origen, String destino, int[] t) {
+        origenes.add(origen);
+        destinos.add(destino);
+        tiempos.add(t);
+        return this;
+    }
+
+    public int tamano() {
+        return origenes.size();
+    }
+
+    String origen(int k) {
+        return origenes.get(k);
+    }
+
+    String destino(int k) {
+        return destinos.get(k);
+    }
+
+    int[] tiempos(int k) {
+        return tiempos.get(k);
+    }
+}
@@ -4,6 +4,14 @@ package Datos;
 import javax.swing.*;
 import java.awt.*;
 import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 public class Main {
     // Se instancia un objeto global del grafo
@@ -11,13 +19,87 @@ public class Main {
 
     // Método principal del programa
     public static void main(String[] args) throws Exception {
-        // Carga el grafo desde el archivo "logistica.txt"
-        grafo.cargarDesdeArchivo("logistica.txt");
+        // Carga el grafo desde "logistica.bin" si está al día; si no, desde "logistica.txt",
+        // y guarda el binario para que el próximo arranque no tenga que ejecutar Floyd
+        cargarGrafo("logistica.txt", "logistica.bin");
+        // Las métricas quedan visibles en JConsole o VisualVM como Datos:type=Grafo,name="logistica"
+        grafo.getMetricas().registrarMBean("logistica");
+
+        // Sin interfaz: "exportar csv|bin|html destino" escribe la matriz de distancias y termina
+        if (args.length == 3 && args[0].equals("exportar")) {
+            exportar(args[1], args[2]);
+            return;
+        }
+
+        // Sin interfaz: "servidor [puerto] [todas]" atiende consultas HTTP (ver ServidorRutas) hasta que se
+        // detenga el proceso. Solo escucha en la interfaz local salvo que se pida "todas"
+        if (args.length >= 1 && args[0].equals("servidor")) {
+            activarNoDelay();
+            boolean todas = args.length > 2 && args[2].equals("todas");
+            ServidorRutas servidor = new ServidorRutas(grafo, args.length > 1 ? Integer.parseInt(args[1]) : 8080, todas);
+            servidor.iniciar();
+            System.out.println("Servidor de rutas escuchando en el puerto " + servidor.getPuerto());
+            return;
+        }
 
         // Ejecuta la creación del menú gráfico en el hilo de la interfaz
         SwingUtilities.invokeLater(() -> crearMenu());
     }
 
+    // Sin TCP_NODELAY la cabecera y el cuerpo de cada respuesta salen en paquetes separados
+    // y el ACK retrasado del cliente añade unos 40 ms a cada petición. Es una propiedad de toda la JVM,
+    // así que solo se fija al arrancar en modo servidor y sin pisar un valor dado con -D
+    static void activarNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static void cargarGrafo(String texto, String binario) throws Exception {
+        File archivoTexto = new File(texto);
+        File archivoBinario = new File(binario);
+        if (archivoBinario.isFile() && archivoBinario.lastModified() >= archivoTexto.lastModified()) {
+            long inicio = System.nanoTime();
+            try {
+                grafo.cargarBinario(binario);
+                System.out.printf("Grafo cargado desde %s: %d ciudades en %.1f ms%n",
+                        binario, grafo.getCiudades().size(), (System.nanoTime() - inicio) / 1e6);
+                return;
+            } catch (IOException e) {
+                System.out.println("No se pudo usar " + binario + " (" + e.getMessage() + "), se lee " + texto);
+            }
+        }
+        grafo.cargarDesdeArchivo(texto);
+        System.out.println("Grafo cargado: " + grafo.getUltimaCarga());
+        try {
+            grafo.guardarBinario(binario);
+        } catch (IOException e) {
+            System.out.println("No se pudo guardar " + binario + ": " + e.getMessage());
+        }
+    }
+
+    private static void exportar(String formato, String destino) throws IOException {
+        ExportadorMatriz exportador = grafo.exportador();
+        switch (formato) {
+            case "csv":
+                try (Writer salida = Files.newBufferedWriter(Paths.get(destino), StandardCharsets.UTF_8)) {
+                    exportador.escribirCsv(salida);
+                }
+                break;
+            case "bin":
+                try (FileChannel salida = FileChannel.open(Paths.get(destino), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    exportador.escribirBinario(salida);
+                }
+                break;
+            case "html":
+                int paginas = exportador.exportarHtml(Paths.get(destino), 100);
+                System.out.println(paginas + " páginas escritas en " + destino);
+                break;
+            default:
+                System.out.println("Formato desconocido: " + formato + " (csv, bin o html)");
+        }
+    }
+
     // Crea el menú gráfico principal con botones para cada funcionalidad
     public static void crearMenu() {
         JFrame frame = new JFrame("🚛 Sistema Logístico");
@@ -42,7 +124,8 @@ public class Main {
 
         // Acciones al presionar cada botón
         btn1.addActionListener(e -> mostrarRutaMasCorta());
-        btn2.addActionListener(e -> JOptionPane.showMessageDialog(null, "Centro del grafo: " + grafo.centroDelGrafo()));
+        btn2.addActionListener(e -> JOptionPane.showMessageDialog(null, "Centro del grafo: " + grafo.centroDelGrafo()
+                + "\nMediana (menor suma de distancias): " + grafo.medianaDelGrafo()));
         btn3.addActionListener(e -> mostrarModificarGrafo());
         btn4.addActionListener(e -> cambiarTemperatura());
         btn5.addActionListener(e -> cambiarClima());
@@ -0,0 +1,75 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Matriz cuadrada de enteros guardada en un único arreglo por filas (row-major).
+// La capacidad crece duplicándose, así que agregar una ciudad cuesta O(1) asignaciones amortizadas
+final class MatrizDensa {
+    // Mayor capacidad cuyo cuadrado cabe en un arreglo de Java
+    static final int CAPACIDAD_MAXIMA = 46340;
+
+    // Celdas de la matriz; la celda (i, j) está en datos[i * capacidad + j]
+    int[] datos;
+
+    // Longitud de cada fila dentro de datos (stride)
+    int capacidad;
+
+    // Número de filas y columnas en uso
+    int n;
+
+    // Valor de las celdas sin usar (INF para distancias, -1 para rutas)
+    final int relleno;
+
+    MatrizDensa(int n, int relleno) {
+        this(n, Math.max(n, 4), relleno);
+    }
+
+    private MatrizDensa(int n, int capacidad, int relleno) {
+        this.relleno = relleno;
+        this.n = n;
+        this.capacidad = capacidad;
+        this.datos = new int[capacidad * capacidad];
+        Arrays.fill(datos, relleno);
+    }
+
+    private MatrizDensa(MatrizDensa otra) {
+        this.relleno = otra.relleno;
+        this.n = otra.n;
+        this.capacidad = otra.capacidad;
+        this.datos = otra.datos.clone();
+    }
+
+    int get(int i, int j) {
+        return datos[i * capacidad + j];
+    }
+
+    void set(int i, int j, int valor) {
+        datos[i * capacidad + j] = valor;
+    }
+
+    // Posición en datos donde empieza la fila i
+    int inicioFila(int i) {
+        return i * capacidad;
+    }
+
+    // Matriz con nuevoN filas y columnas; las celdas nuevas quedan con el valor de relleno.
+    // Si cabe en la capacidad actual solo cambia n (las celdas sin usar ya valen relleno) y devuelve
+    // la misma matriz; si no, devuelve una copia con la capacidad duplicada y esta queda intacta
+    MatrizDensa ampliada(int nuevoN) {
+        if (nuevoN <= capacidad) {
+            n = Math.max(n, nuevoN);
+            return this;
+        }
+        if (nuevoN > CAPACIDAD_MAXIMA)
+            throw new IllegalStateException("La matriz densa no admite más de " + CAPACIDAD_MAXIMA + " ciudades");
+        int nuevaCapacidad = (int) Math.min(CAPACIDAD_MAXIMA, Math.max(nuevoN, 2L * capacidad));
+        MatrizDensa nueva = new MatrizDensa(nuevoN, nuevaCapacidad, relleno);
+        for (int i = 0; i < n; i++)
+            System.arraycopy(datos, i * capacidad, nueva.datos, i * nuevaCapacidad, n);
+        return nueva;
+    }
+
+    MatrizDensa copia() {
+        return new MatrizDensa(this);
+    }
+}
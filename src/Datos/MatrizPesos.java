@@ -0,0 +1,162 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Tiempos entre ciudades para los cuatro climas [clima][origen][destino], guardados en un único
+// arreglo plano. En modo compacto usa short (la mitad de memoria) mientras los tiempos quepan en él
+final class MatrizPesos {
+    static final int CLIMAS = 4;
+
+    // Valor que representa infinito, igual al usado por Grafo
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    // Mayor capacidad cuyas CLIMAS matrices caben en un arreglo de Java (4 * 23170² < 2^31).
+    // Acota también el modo denso: Grafo.CIUDADES_MAX_DENSO debe quedar por debajo
+    static final int CAPACIDAD_MAXIMA = 23170;
+
+    // En modo compacto infinito se guarda como el mayor short
+    private static final short INF_CORTO = Short.MAX_VALUE;
+
+    // Solo uno de los dos arreglos está en uso según el modo
+    private int[] datos;
+    private short[] datosCortos;
+
+    // Longitud de cada fila y número de ciudades en uso
+    private int capacidad;
+    private int n;
+
+    // Tiempos negativos de cada clima, al día con cada escritura (las actualizaciones incrementales
+    // de TablaRutas usan Dijkstra y solo valen si no hay ninguno)
+    private final int[] negativos = new int[CLIMAS];
+
+    MatrizPesos(int n, boolean compacta) {
+        if (n > CAPACIDAD_MAXIMA)
+            throw new IllegalStateException("La matriz de pesos no admite más de " + CAPACIDAD_MAXIMA + " ciudades");
+        this.n = n;
+        this.capacidad = Math.max(n, 4);
+        int celdas = CLIMAS * capacidad * capacidad;
+        if (compacta) {
+            datosCortos = new short[celdas];
+            Arrays.fill(datosCortos, INF_CORTO);
+        } else {
+            datos = new int[celdas];
+            Arrays.fill(datos, INF);
+        }
+    }
+
+    int n() {
+        return n;
+    }
+
+    boolean esCompacta() {
+        return datosCortos != null;
+    }
+
+    private int posicion(int c, int i, int j) {
+        return (c * capacidad + i) * capacidad + j;
+    }
+
+    int get(int c, int i, int j) {
+        if (datos != null) return datos[posicion(c, i, j)];
+        short valor = datosCortos[posicion(c, i, j)];
+        return valor == INF_CORTO ? INF : valor;
+    }
+
+    // Si el clima tiene algún tiempo negativo
+    boolean tieneNegativos(int c) {
+        return negativos[c] > 0;
+    }
+
+    // Si algún clima tiene tiempos negativos
+    boolean tieneNegativos() {
+        for (int c = 0; c < CLIMAS; c++)
+            if (negativos[c] > 0) return true;
+        return false;
+    }
+
+    void set(int c, int i, int j, int valor) {
+        if (get(c, i, j) < 0) negativos[c]--;
+        if (valor < 0) negativos[c]++;
+        if (datos != null) {
+            datos[posicion(c, i, j)] = valor;
+            return;
+        }
+        if (valor == INF) {
+            datosCortos[posicion(c, i, j)] = INF_CORTO;
+        } else if (valor >= Short.MIN_VALUE && valor < INF_CORTO) {
+            datosCortos[posicion(c, i, j)] = (short) valor;
+        } else {
+            // El tiempo no cabe en un short: se pasa a enteros y se guarda normalmente
+            expandir();
+            datos[posicion(c, i, j)] = valor;
+        }
+    }
+
+    // Copia los n tiempos de la fila i del clima c en destino a partir de la posición desde
+    void copiarFila(int c, int i, int[] destino, int desde) {
+        int inicio = posicion(c, i, 0);
+        if (datos != null) {
+            System.arraycopy(datos, inicio, destino, desde, n);
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            short valor = datosCortos[inicio + j];
+            destino[desde + j] = valor == INF_CORTO ? INF : valor;
+        }
+    }
+
+    // Escribe los n tiempos de origen, a partir de la posición desde, en la fila i del clima c
+    void fijarFila(int c, int i, int[] origen, int desde) {
+        if (datos != null) {
+            int inicio = posicion(c, i, 0);
+            for (int j = 0; j < n; j++) {
+                if (datos[inicio + j] < 0) negativos[c]--;
+                if (origen[desde + j] < 0) negativos[c]++;
+            }
+            System.arraycopy(origen, desde, datos, inicio, n);
+            return;
+        }
+        for (int j = 0; j < n; j++)
+            set(c, i, j, origen[desde + j]);
+    }
+
+    // Capacidad tras crecer de capacidad a nuevoN ciudades: el doble, sin pasar de CAPACIDAD_MAXIMA
+    static int capacidadAmpliada(int capacidad, int nuevoN) {
+        if (nuevoN > CAPACIDAD_MAXIMA)
+            throw new IllegalStateException("La matriz de pesos no admite más de " + CAPACIDAD_MAXIMA + " ciudades");
+        return (int) Math.min(CAPACIDAD_MAXIMA, Math.max(nuevoN, 2L * capacidad));
+    }
+
+    // Amplía a nuevoN ciudades duplicando la capacidad cuando hace falta; las celdas nuevas valen INF
+    void crecer(int nuevoN) {
+        if (nuevoN > capacidad) {
+            int nuevaCapacidad = capacidadAmpliada(capacidad, nuevoN);
+            int celdas = CLIMAS * nuevaCapacidad * nuevaCapacidad;
+            if (datos != null) {
+                int[] nuevos = new int[celdas];
+                Arrays.fill(nuevos, INF);
+                for (int c = 0; c < CLIMAS; c++)
+                    for (int i = 0; i < n; i++)
+                        System.arraycopy(datos, posicion(c, i, 0), nuevos, (c * nuevaCapacidad + i) * nuevaCapacidad, n);
+                datos = nuevos;
+            } else {
+                short[] nuevos = new short[celdas];
+                Arrays.fill(nuevos, INF_CORTO);
+                for (int c = 0; c < CLIMAS; c++)
+                    for (int i = 0; i < n; i++)
+                        System.arraycopy(datosCortos, posicion(c, i, 0), nuevos, (c * nuevaCapacidad + i) * nuevaCapacidad, n);
+                datosCortos = nuevos;
+            }
+            capacidad = nuevaCapacidad;
+        }
+        n = Math.max(n, nuevoN);
+    }
+
+    // Pasa del modo compacto a enteros
+    private void expandir() {
+        datos = new int[datosCortos.length];
+        for (int p = 0; p < datos.length; p++)
+            datos[p] = datosCortos[p] == INF_CORTO ? INF : datosCortos[p];
+        datosCortos = null;
+    }
+}
@@ -0,0 +1,247 @@
+package Datos;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Contadores e histogramas de latencia de un Grafo: recálculos completos por causa, actualizaciones
+// incrementales, cargas, consultas y publicaciones de estado. Todos los registros son seguros desde
+// varios hilos sin bloquear. Se publican por JMX (registrarMBean) y como texto (volcarTexto)
+public final class MetricasGrafo implements MetricasGrafoMXBean {
+    private final Map<CausaRecalculo, LongAdder> recalculosPorCausa = new EnumMap<>(CausaRecalculo.class);
+    private final HistogramaLatencias recalculos = new HistogramaLatencias();
+    private final HistogramaLatencias cargas = new HistogramaLatencias();
+    private final HistogramaLatencias distancias = new HistogramaLatencias();
+    private final HistogramaLatencias caminos = new HistogramaLatencias();
+    private final HistogramaLatencias centros = new HistogramaLatencias();
+    private final HistogramaLatencias tablas = new HistogramaLatencias();
+    private final LongAdder incrementales = new LongAdder();
+    private final LongAdder publicaciones = new LongAdder();
+    private final AtomicLong ultimaCarga = new AtomicLong();
+
+    private ObjectName nombreJmx;
+
+    public MetricasGrafo() {
+        for (CausaRecalculo causa : CausaRecalculo.values()) recalculosPorCausa.put(causa, new LongAdder());
+    }
+
+    void registrarRecalculo(CausaRecalculo causa, long nanos) {
+        recalculosPorCausa.get(causa).increment();
+        recalculos.registrar(nanos);
+    }
+
+    void registrarIncremental() {
+        incrementales.increment();
+    }
+
+    void registrarCarga(long nanos) {
+        cargas.registrar(nanos);
+        ultimaCarga.set(nanos);
+    }
+
+    void registrarDistancia(long nanos) {
+        distancias.registrar(nanos);
+    }
+
+    void registrarCamino(long nanos) {
+        caminos.registrar(nanos);
+    }
+
+    void registrarCentro(long nanos) {
+        centros.registrar(nanos);
+    }
+
+    void registrarTabla(long nanos) {
+        tablas.registrar(nanos);
+    }
+
+    void registrarPublicacion() {
+        publicaciones.increment();
+    }
+
+    public HistogramaLatencias getHistogramaRecalculos() {
+        return recalculos;
+    }
+
+    public HistogramaLatencias getHistogramaCargas() {
+        return cargas;
+    }
+
+    public HistogramaLatencias getHistogramaDistancias() {
+        return distancias;
+    }
+
+    public HistogramaLatencias getHistogramaCaminos() {
+        return caminos;
+    }
+
+    public HistogramaLatencias getHistogramaCentros() {
+        return centros;
+    }
+
+    public HistogramaLatencias getHistogramaTablas() {
+        return tablas;
+    }
+
+    public long getRecalculos(CausaRecalculo causa) {
+        return recalculosPorCausa.get(causa).sum();
+    }
+
+    @Override
+    public long getRecalculos() {
+        return recalculos.getCuenta();
+    }
+
+    @Override
+    public Map<String, Long> getRecalculosPorCausa() {
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        for (CausaRecalculo causa : CausaRecalculo.values()) resultado.put(causa.name(), getRecalculos(causa));
+        return resultado;
+    }
+
+    @Override
+    public double getRecalculoMediaMs() {
+        return recalculos.getMedia() / 1e6;
+    }
+
+    @Override
+    public double getRecalculoP99Ms() {
+        return recalculos.percentil(99) / 1e6;
+    }
+
+    @Override
+    public double getRecalculoMaximoMs() {
+        return recalculos.getMaximo() / 1e6;
+    }
+
+    @Override
+    public long getActualizacionesIncrementales() {
+        return incrementales.sum();
+    }
+
+    @Override
+    public long getCargas() {
+        return cargas.getCuenta();
+    }
+
+    @Override
+    public double getCargaUltimaMs() {
+        return ultimaCarga.get() / 1e6;
+    }
+
+    @Override
+    public long getConsultas() {
+        return distancias.getCuenta() + caminos.getCuenta() + centros.getCuenta() + tablas.getCuenta();
+    }
+
+    // Percentiles de las consultas punto a punto: distancias y caminos juntos
+    @Override
+    public double getConsultaP50Ms() {
+        return HistogramaLatencias.percentil(50, distancias, caminos) / 1e6;
+    }
+
+    @Override
+    public double getConsultaP99Ms() {
+        return HistogramaLatencias.percentil(99, distancias, caminos) / 1e6;
+    }
+
+    @Override
+    public double getDistanciaP50Ms() {
+        return distancias.percentil(50) / 1e6;
+    }
+
+    @Override
+    public double getDistanciaP99Ms() {
+        return distancias.percentil(99) / 1e6;
+    }
+
+    @Override
+    public double getCaminoP50Ms() {
+        return caminos.percentil(50) / 1e6;
+    }
+
+    @Override
+    public double getCaminoP99Ms() {
+        return caminos.percentil(99) / 1e6;
+    }
+
+    @Override
+    public long getPublicaciones() {
+        return publicaciones.sum();
+    }
+
+    @Override
+    public String getResumen() {
+        return volcarTexto();
+    }
+
+    // Pone a cero contadores e histogramas. No es atómico respecto a los registros concurrentes:
+    // un registro que coincida con el reinicio puede perderse o quedar a medias entre cuenta e histograma
+    @Override
+    public void reiniciar() {
+        for (LongAdder contador : recalculosPorCausa.values()) contador.reset();
+        recalculos.reiniciar();
+        cargas.reiniciar();
+        distancias.reiniciar();
+        caminos.reiniciar();
+        centros.reiniciar();
+        tablas.reiniciar();
+        incrementales.reset();
+        publicaciones.reset();
+        ultimaCarga.set(0);
+    }
+
+    // Volcado legible de todas las métricas, una por línea
+    public String volcarTexto() {
+        StringBuilder texto = new StringBuilder();
+        texto.append("recalculos: ").append(recalculos.resumen()).append('\n');
+        for (CausaRecalculo causa : CausaRecalculo.values()) {
+            long cuenta = getRecalculos(causa);
+            if (cuenta > 0) texto.append("  ").append(causa.name().toLowerCase(Locale.ROOT)).append(": ").append(cuenta).append('\n');
+        }
+        texto.append("actualizaciones incrementales: ").append(getActualizacionesIncrementales()).append('\n');
+        texto.append("cargas: ").append(cargas.resumen()).append('\n');
+        texto.append("consultas distancia: ").append(distancias.resumen()).append('\n');
+        texto.append("consultas camino: ").append(caminos.resumen()).append('\n');
+        texto.append("consultas centro: ").append(centros.resumen()).append('\n');
+        texto.append("tablas de distancias: ").append(tablas.resumen()).append('\n');
+        texto.append("publicaciones: ").append(getPublicaciones()).append('\n');
+        return texto.toString();
+    }
+
+    // Registra estas métricas en el MBeanServer de la plataforma como "Datos:type=Grafo,name=<nombre>"
+    // (visibles en JConsole o VisualVM). Si ya estaban registradas con otro nombre se desregistran antes
+    public synchronized void registrarMBean(String nombre) {
+        try {
+            desregistrarMBean();
+            ObjectName objeto = new ObjectName("Datos:type=Grafo,name=" + ObjectName.quote(nombre));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objeto);
+            nombreJmx = objeto;
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudieron registrar las métricas como " + nombre, e);
+        }
+    }
+
+    public synchronized void desregistrarMBean() {
+        if (nombreJmx == null) return;
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (servidor.isRegistered(nombreJmx)) servidor.unregisterMBean(nombreJmx);
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudieron desregistrar las métricas " + nombreJmx, e);
+        }
+        nombreJmx = null;
+    }
+
+    // Nombre JMX con el que están registradas, o null
+    public synchronized ObjectName getNombreMBean() {
+        return nombreJmx;
+    }
+}
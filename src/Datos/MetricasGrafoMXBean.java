@@ -0,0 +1,42 @@
+package Datos;
+
+import java.util.Map;
+
+// Vista JMX de MetricasGrafo (ver MetricasGrafo.registrarMBean). Tiempos en milisegundos
+public interface MetricasGrafoMXBean {
+    long getRecalculos();
+
+    Map<String, Long> getRecalculosPorCausa();
+
+    double getRecalculoMediaMs();
+
+    double getRecalculoP99Ms();
+
+    double getRecalculoMaximoMs();
+
+    long getActualizacionesIncrementales();
+
+    long getCargas();
+
+    double getCargaUltimaMs();
+
+    long getConsultas();
+
+    double getConsultaP50Ms();
+
+    double getConsultaP99Ms();
+
+    double getDistanciaP50Ms();
+
+    double getDistanciaP99Ms();
+
+    double getCaminoP50Ms();
+
+    double getCaminoP99Ms();
+
+    long getPublicaciones();
+
+    String getResumen();
+
+    void reiniciar();
+}
@@ -0,0 +1,66 @@
+package Datos;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+// Modelo de JTable sobre la matriz de distancias de un estado del grafo. No copia la matriz:
+// JTable solo pide las celdas visibles y cada una se lee del estado al pintarla.
+// La columna 0 es la ciudad de origen; la columna j + 1 es el destino j
+public class ModeloMatrizDistancias extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final int INF = Integer.MAX_VALUE / 2;
+
+    // En modo disperso cada fila cuesta una búsqueda: se guardan las últimas filas pedidas
+    private static final int FILAS_EN_CACHE = 64;
+
+    private final transient GrafoSnapshot estado;
+    private final transient Map<Integer, int[]> filas = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, int[]> mayor) {
+            return size() > FILAS_EN_CACHE;
+        }
+    };
+
+    public ModeloMatrizDistancias(GrafoSnapshot estado) {
+        this.estado = estado;
+    }
+
+    @Override
+    public int getRowCount() {
+        return estado.getNumeroCiudades();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return estado.getNumeroCiudades() + 1;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return columna == 0 ? "Origen \\ Destino" : estado.getCiudad(columna - 1).getNombre();
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        if (columna == 0) return estado.getCiudad(fila).getNombre();
+        if (estado.esDisperso()) {
+            int distancia = filaDispersa(fila)[columna - 1];
+            return distancia == INF ? "∞" : (Object) distancia;
+        }
+        int distancia = estado.getDistancia(fila, columna - 1);
+        return distancia == -1 ? "∞" : (Object) distancia;
+    }
+
+    private int[] filaDispersa(int i) {
+        int[] fila = filas.get(i);
+        if (fila == null) {
+            fila = new int[estado.getNumeroCiudades()];
+            estado.filaDistancias(i, fila);
+            filas.put(i, fila);
+        }
+        return fila;
+    }
+}
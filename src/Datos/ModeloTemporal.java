@@ -0,0 +1,129 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Modelo de pesos dependiente del lugar y de la hora para las consultas de llegada más temprana.
+// Cada ciudad pertenece a una región (0 por defecto). Cada región tiene su propio clima, como capa
+// (0..3) o como temperatura, y su perfil horario. Una conexión usa la región de su ciudad de origen:
+//   tiempo(salida) = round(interpolado(pesos por clima, posición del clima) * perfil.factor(salida))
+// La posición del clima es continua en [0, 3]: una temperatura entre dos umbrales mezcla
+// linealmente las dos capas vecinas en lugar de saltar de una a otra. Así no hace falta
+// precalcular una matriz por combinación de climas y horas. Inmutable: los métodos con... devuelven copias
+public final class ModeloTemporal {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    // Todas las ciudades en la región 0, que sigue el clima global del grafo con factor 1 a cualquier hora
+    public static final ModeloTemporal UNIFORME = new ModeloTemporal(new int[0],
+            new double[]{Double.NaN}, new PerfilHorario[]{PerfilHorario.CONSTANTE});
+
+    // Región de cada ciudad por índice; las ciudades fuera del arreglo están en la región 0
+    private final int[] regiones;
+
+    // Posición del clima por región en [0, 3]; NaN = usa el clima global del grafo
+    private final double[] climas;
+
+    private final PerfilHorario[] perfiles;
+
+    private ModeloTemporal(int[] regiones, double[] climas, PerfilHorario[] perfiles) {
+        this.regiones = regiones;
+        this.climas = climas;
+        this.perfiles = perfiles;
+    }
+
+    // Posición continua del clima para una temperatura, coherente con los umbrales de
+    // Grafo.establecerClimaPorTemperatura: 15 °C o más = normal (0), 5 °C = lluvia (1),
+    // -5 °C = nieve (2), -15 °C o menos = tormenta (3), e interpolación lineal entre medias
+    public static double posicionPorTemperatura(double temperatura) {
+        return Math.max(0, Math.min(3, (15 - temperatura) / 10));
+    }
+
+    public int getNumeroRegiones() {
+        return climas.length;
+    }
+
+    public int getRegion(int ciudad) {
+        return ciudad < regiones.length ? regiones[ciudad] : 0;
+    }
+
+    // Posición del clima de la región, o NaN si sigue el clima global
+    public double getPosicionClima(int region) {
+        return region < climas.length ? climas[region] : Double.NaN;
+    }
+
+    public PerfilHorario getPerfil(int region) {
+        return region < perfiles.length ? perfiles[region] : PerfilHorario.CONSTANTE;
+    }
+
+    public ModeloTemporal conRegion(int ciudad, int region) {
+        if (ciudad < 0 || region < 0) throw new IllegalArgumentException("Ciudad y región no pueden ser negativas");
+        int[] nuevas = Arrays.copyOf(regiones, Math.max(regiones.length, ciudad + 1));
+        nuevas[ciudad] = region;
+        ModeloTemporal ampliado = conRegiones(region + 1);
+        return new ModeloTemporal(nuevas, ampliado.climas, ampliado.perfiles);
+    }
+
+    public ModeloTemporal conClimaRegion(int region, int clima) {
+        if (clima < 0 || clima > 3) throw new IllegalArgumentException("El clima debe estar entre 0 y 3");
+        return conPosicionClima(region, clima);
+    }
+
+    public ModeloTemporal conTemperaturaRegion(int region, double temperatura) {
+        return conPosicionClima(region, posicionPorTemperatura(temperatura));
+    }
+
+    // La región vuelve a seguir el clima global del grafo
+    public ModeloTemporal conClimaGlobal(int region) {
+        return conPosicionClima(region, Double.NaN);
+    }
+
+    public ModeloTemporal conPerfil(int region, PerfilHorario perfil) {
+        ModeloTemporal ampliado = conRegiones(region + 1);
+        PerfilHorario[] nuevos = ampliado.perfiles == perfiles ? perfiles.clone() : ampliado.perfiles;
+        nuevos[region] = perfil;
+        return new ModeloTemporal(regiones, ampliado.climas, nuevos);
+    }
+
+    private ModeloTemporal conPosicionClima(int region, double posicion) {
+        ModeloTemporal ampliado = conRegiones(region + 1);
+        double[] nuevos = ampliado.climas == climas ? climas.clone() : ampliado.climas;
+        nuevos[region] = posicion;
+        return new ModeloTemporal(regiones, nuevos, ampliado.perfiles);
+    }
+
+    // Copia con al menos total regiones; las nuevas siguen el clima global con perfil constante
+    private ModeloTemporal conRegiones(int total) {
+        if (total <= 0) throw new IllegalArgumentException("La región no puede ser negativa");
+        if (total <= climas.length) return this;
+        double[] nuevosClimas = Arrays.copyOf(climas, total);
+        Arrays.fill(nuevosClimas, climas.length, total, Double.NaN);
+        PerfilHorario[] nuevosPerfiles = Arrays.copyOf(perfiles, total);
+        Arrays.fill(nuevosPerfiles, perfiles.length, total, PerfilHorario.CONSTANTE);
+        return new ModeloTemporal(regiones, nuevosClimas, nuevosPerfiles);
+    }
+
+    // Tiempo para recorrer la arista e (que sale de u) partiendo en el minuto dado, o INF si está cortada.
+    // climaGlobal es la posición del clima del grafo para las regiones que no tienen uno propio
+    int tiempo(ListaAdyacencia g, int e, int u, double climaGlobal, long minuto) {
+        int region = getRegion(u);
+        double posicion = getPosicionClima(region);
+        if (Double.isNaN(posicion)) posicion = climaGlobal;
+        double base = pesoInterpolado(g, e, posicion);
+        if (base < 0) return INF;
+        long tiempo = Math.round(base * getPerfil(region).factor(minuto));
+        return tiempo >= INF ? INF : (int) tiempo;
+    }
+
+    // Peso entre las dos capas vecinas de la posición. Si la conexión está cortada en la capa más
+    // cercana no se puede usar (-1); si solo lo está en la otra se usa el peso de la cercana
+    static double pesoInterpolado(ListaAdyacencia g, int e, double posicion) {
+        int baja = Math.min((int) posicion, 2);
+        double fraccion = posicion - baja;
+        int pesoBajo = g.pesos[baja * g.m + e];
+        int pesoAlto = g.pesos[(baja + 1) * g.m + e];
+        int cercano = fraccion < 0.5 ? pesoBajo : pesoAlto;
+        int lejano = fraccion < 0.5 ? pesoAlto : pesoBajo;
+        if (cercano == INF) return -1;
+        if (lejano == INF) return cercano;
+        return pesoBajo + (pesoAlto - pesoBajo) * fraccion;
+    }
+}
@@ -0,0 +1,91 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Montículo binario de mínimos indexado por ciudad, con claves primitivas y disminución de clave.
+// No crea objetos por operación, así que puede reutilizarse entre búsquedas
+final class MonticuloBinario {
+    private int[] nodos;
+    private long[] claves;
+
+    // Posición de cada ciudad dentro del montículo, -1 si no está
+    private int[] posicion;
+    private int tamano;
+
+    MonticuloBinario(int n) {
+        nodos = new int[Math.max(n, 1)];
+        claves = new long[Math.max(n, 1)];
+        posicion = new int[Math.max(n, 1)];
+        Arrays.fill(posicion, -1);
+    }
+
+    // Amplía la capacidad para n ciudades (el montículo debe estar vacío)
+    void asegurarCapacidad(int n) {
+        if (n <= posicion.length) return;
+        nodos = new int[n];
+        claves = new long[n];
+        posicion = new int[n];
+        Arrays.fill(posicion, -1);
+    }
+
+    boolean vacio() {
+        return tamano == 0;
+    }
+
+    long claveMinima() {
+        return claves[0];
+    }
+
+    // Inserta la ciudad o baja su clave si ya estaba con una clave mayor
+    void insertarODisminuir(int nodo, long clave) {
+        int p = posicion[nodo];
+        if (p < 0) {
+            p = tamano++;
+        } else if (clave >= claves[p]) {
+            return;
+        }
+        subir(p, nodo, clave);
+    }
+
+    int extraerMinimo() {
+        int minimo = nodos[0];
+        posicion[minimo] = -1;
+        tamano--;
+        if (tamano > 0) bajar(0, nodos[tamano], claves[tamano]);
+        return minimo;
+    }
+
+    // Deja el montículo vacío en O(tamaño)
+    void vaciar() {
+        for (int p = 0; p < tamano; p++) posicion[nodos[p]] = -1;
+        tamano = 0;
+    }
+
+    private void subir(int p, int nodo, long clave) {
+        while (p > 0) {
+            int padre = (p - 1) >>> 1;
+            if (claves[padre] <= clave) break;
+            colocar(p, nodos[padre], claves[padre]);
+            p = padre;
+        }
+        colocar(p, nodo, clave);
+    }
+
+    private void bajar(int p, int nodo, long clave) {
+        while (true) {
+            int hijo = 2 * p + 1;
+            if (hijo >= tamano) break;
+            if (hijo + 1 < tamano && claves[hijo + 1] < claves[hijo]) hijo++;
+            if (claves[hijo] >= clave) break;
+            colocar(p, nodos[hijo], claves[hijo]);
+            p = hijo;
+        }
+        colocar(p, nodo, clave);
+    }
+
+    private void colocar(int p, int nodo, long clave) {
+        nodos[p] = nodo;
+        claves[p] = clave;
+        posicion[nodo] = p;
+    }
+}
@@ -0,0 +1,11 @@
+package Datos;
+
+// Motor que calcula las rutas más cortas entre todos los pares sobre matrices planas (row-major).
+// Al llamarlo, distancias contiene los pesos directos y rutas los predecesores iniciales
+// (el origen si hay arista, -1 si no); al terminar deben contener el resultado de Floyd.
+// La celda (i, j) está en la posición i * stride + j y INF marca la ausencia de camino
+public interface MotorRutas {
+    int INF = Integer.MAX_VALUE / 2;
+
+    void calcular(int[] distancias, int[] rutas, int n, int stride);
+}
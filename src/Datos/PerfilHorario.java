@@ -0,0 +1,60 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Factor por el que se multiplica el tiempo de una conexión según la hora de salida, lineal a trozos
+// entre puntos (minuto del día, factor) y periódico cada 24 horas: después del último punto se
+// interpola de vuelta hacia el primero del día siguiente. Inmutable
+public final class PerfilHorario {
+    public static final int MINUTOS_DIA = 24 * 60;
+
+    // Factor 1 a cualquier hora
+    public static final PerfilHorario CONSTANTE = new PerfilHorario(new int[]{0}, new double[]{1});
+
+    private final int[] minutos;
+    private final double[] factores;
+
+    // minutos en orden estrictamente creciente dentro de [0, 1440); factores positivos
+    public PerfilHorario(int[] minutos, double[] factores) {
+        if (minutos.length == 0 || minutos.length != factores.length)
+            throw new IllegalArgumentException("Se necesita al menos un punto y un factor por minuto");
+        for (int k = 0; k < minutos.length; k++) {
+            if (minutos[k] < 0 || minutos[k] >= MINUTOS_DIA || (k > 0 && minutos[k] <= minutos[k - 1]))
+                throw new IllegalArgumentException("Los minutos deben ser crecientes y estar en [0, " + MINUTOS_DIA + ")");
+            if (!(factores[k] > 0) || Double.isInfinite(factores[k]))
+                throw new IllegalArgumentException("Factor no válido: " + factores[k]);
+        }
+        this.minutos = minutos.clone();
+        this.factores = factores.clone();
+    }
+
+    // Factor para una salida en el minuto dado (contado desde cualquier medianoche; puede pasar de un día)
+    public double factor(long minuto) {
+        int t = (int) Math.floorMod(minuto, (long) MINUTOS_DIA);
+        int k = Arrays.binarySearch(minutos, t);
+        if (k >= 0) return factores[k];
+        int siguiente = -k - 1;
+        int anterior = siguiente - 1;
+        // Antes del primer punto se viene del último del día anterior
+        int desde = anterior < 0 ? minutos[minutos.length - 1] - MINUTOS_DIA : minutos[anterior];
+        double factorDesde = factores[anterior < 0 ? minutos.length - 1 : anterior];
+        int hasta = siguiente == minutos.length ? minutos[0] + MINUTOS_DIA : minutos[siguiente];
+        double factorHasta = factores[siguiente == minutos.length ? 0 : siguiente];
+        if (hasta == desde) return factorDesde; // Un solo punto
+        return factorDesde + (factorHasta - factorDesde) * (t - desde) / (hasta - desde);
+    }
+
+    // Mayor tiempo base con el que este perfil cumple FIFO (salir más tarde nunca hace llegar antes):
+    // el tiempo peso * factor no puede bajar más de un minuto por minuto de espera, así que en cada
+    // tramo descendente peso * pendiente >= -1. Infinito si el factor nunca baja
+    public double pesoMaximoFifo() {
+        double maximo = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < minutos.length; k++) {
+            int siguiente = (k + 1) % minutos.length;
+            int duracion = siguiente == 0 ? minutos[0] + MINUTOS_DIA - minutos[k] : minutos[siguiente] - minutos[k];
+            double pendiente = (factores[siguiente] - factores[k]) / duracion;
+            if (pendiente < 0) maximo = Math.min(maximo, -1 / pendiente);
+        }
+        return maximo;
+    }
+}
@@ -0,0 +1,87 @@
+package Datos;
+
+// Puntos de referencia (landmarks) para el A* bidireccional: distancias exactas desde y hacia
+// unas pocas ciudades, que por la desigualdad triangular dan cotas inferiores de cualquier distancia
+final class PuntosReferencia {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    // Valor de las cotas cuando las referencias prueban que no hay camino
+    static final int INALCANZABLE = -1;
+
+    // Distancia saturada de una ciudad alcanzable que está a INF o más: cuenta para saber qué se alcanza,
+    // pero no da cotas (su distancia real es desconocida)
+    static final int LEJOS = INF - 1;
+
+    final int[] ciudades;
+
+    // desde[l][v] = distancia de la referencia l a v; hasta[l][v] = distancia de v a la referencia l
+    private final int[][] desde;
+    private final int[][] hasta;
+
+    private PuntosReferencia(int[] ciudades, int[][] desde, int[][] hasta) {
+        this.ciudades = ciudades;
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    // Elige las referencias por el método del más lejano: cada una es la ciudad alcanzable
+    // más alejada de las ya elegidas
+    static PuntosReferencia elegir(ListaAdyacencia g, int clima, int cantidad) {
+        cantidad = Math.min(cantidad, g.n);
+        int[] elegidas = new int[cantidad];
+        int[][] desde = new int[cantidad][];
+        int[][] hasta = new int[cantidad][];
+        int[] cercania = new int[g.n];
+        java.util.Arrays.fill(cercania, INF);
+        int siguiente = 0;
+        for (int l = 0; l < cantidad; l++) {
+            elegidas[l] = siguiente;
+            desde[l] = BusquedaDispersa.distanciasDesde(g, clima, siguiente, false);
+            hasta[l] = BusquedaDispersa.distanciasDesde(g, clima, siguiente, true);
+            int mejor = -1;
+            for (int v = 0; v < g.n; v++) {
+                int d = desde[l][v];
+                if (d != INF && d < cercania[v]) cercania[v] = d;
+                if (cercania[v] != INF && (mejor == -1 || cercania[v] > cercania[mejor])) mejor = v;
+            }
+            siguiente = mejor == -1 ? (siguiente + 1) % g.n : mejor;
+        }
+        return new PuntosReferencia(elegidas, desde, hasta);
+    }
+
+    // Cota inferior de la distancia de v a t, o INALCANZABLE si v no puede llegar a t
+    int cotaHasta(int v, int t) {
+        int cota = 0;
+        for (int l = 0; l < ciudades.length; l++) {
+            int[] h = hasta[l];
+            if (h[t] != INF) {
+                if (h[v] == INF) return INALCANZABLE;
+                if (h[v] != LEJOS && h[t] != LEJOS) cota = Math.max(cota, h[v] - h[t]);
+            }
+            int[] d = desde[l];
+            if (d[v] != INF) {
+                if (d[t] == INF) return INALCANZABLE;
+                if (d[t] != LEJOS && d[v] != LEJOS) cota = Math.max(cota, d[t] - d[v]);
+            }
+        }
+        return cota;
+    }
+
+    // Cota inferior de la distancia de s a v, o INALCANZABLE si s no puede llegar a v
+    int cotaDesde(int s, int v) {
+        int cota = 0;
+        for (int l = 0; l < ciudades.length; l++) {
+            int[] d = desde[l];
+            if (d[s] != INF) {
+                if (d[v] == INF) return INALCANZABLE;
+                if (d[v] != LEJOS && d[s] != LEJOS) cota = Math.max(cota, d[v] - d[s]);
+            }
+            int[] h = hasta[l];
+            if (h[v] != INF) {
+                if (h[s] == INF) return INALCANZABLE;
+                if (h[s] != LEJOS && h[v] != LEJOS) cota = Math.max(cota, h[s] - h[v]);
+            }
+        }
+        return cota;
+    }
+}
@@ -0,0 +1,36 @@
+package Datos;
+
+import java.util.Collections;
+import java.util.List;
+
+// Una de las k rutas más cortas sin ciclos entre dos ciudades (ver Grafo.rutasAlternativas):
+// su tiempo total en el clima de la consulta y las ciudades del camino
+public final class RutaAlternativa {
+    private final int distancia;
+    private final List<String> camino;
+    private final int[] indices;
+
+    RutaAlternativa(int distancia, List<String> camino, int[] indices) {
+        this.distancia = distancia;
+        this.camino = Collections.unmodifiableList(camino);
+        this.indices = indices;
+    }
+
+    public int getDistancia() {
+        return distancia;
+    }
+
+    public List<String> getCamino() {
+        return camino;
+    }
+
+    // Índices de las ciudades del camino (copia)
+    public int[] getIndices() {
+        return indices.clone();
+    }
+
+    @Override
+    public String toString() {
+        return camino + " (" + distancia + ")";
+    }
+}
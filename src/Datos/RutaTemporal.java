@@ -0,0 +1,40 @@
+package Datos;
+
+import java.util.Collections;
+import java.util.List;
+
+// Resultado de una consulta de llegada más temprana: minutos de salida y de llegada
+// (contados desde la misma medianoche) y las ciudades del camino
+public final class RutaTemporal {
+    private final int salida;
+    private final int llegada;
+    private final List<String> camino;
+
+    RutaTemporal(int salida, int llegada, List<String> camino) {
+        this.salida = salida;
+        this.llegada = llegada;
+        this.camino = Collections.unmodifiableList(camino);
+    }
+
+    public int getSalida() {
+        return salida;
+    }
+
+    public int getLlegada() {
+        return llegada;
+    }
+
+    public int getDuracion() {
+        return llegada - salida;
+    }
+
+    public List<String> getCamino() {
+        return camino;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s salida %02d:%02d llegada %02d:%02d (%d min)", camino, salida / 60 % 24, salida % 60,
+                llegada / 60 % 24, llegada % 60, getDuracion());
+    }
+}
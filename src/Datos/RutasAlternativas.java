@@ -0,0 +1,221 @@
+package Datos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+// Las k rutas más cortas sin ciclos entre dos ciudades con el algoritmo de Yen sobre un clima de una
+// lista de conexiones. Cada desvío (spur) es un A* desde una ciudad de la ruta anterior, sin las
+// ciudades previas de la ruta ni las aristas que ya usan las rutas con el mismo tramo inicial. La
+// heurística es la distancia de cada ciudad al destino en el grafo completo (de la tabla de Floyd o
+// de un Dijkstra hacia atrás): quitar aristas solo alarga caminos, así que sigue siendo admisible y
+// consistente, y además acota los desvíos que ya no pueden entrar entre las k mejores.
+// Los desvíos de una misma ruta son independientes y se calculan en paralelo
+final class RutasAlternativas {
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    // Espacio de búsqueda reutilizable de cada hilo
+    private static final ThreadLocal<Espacio> ESPACIOS = ThreadLocal.withInitial(Espacio::new);
+
+    // Ruta candidata; dos candidatas son iguales si pasan por las mismas ciudades
+    static final class Candidata implements Comparable<Candidata> {
+        final int[] ciudades;
+        final int distancia;
+
+        Candidata(int[] ciudades, int distancia) {
+            this.ciudades = ciudades;
+            this.distancia = distancia;
+        }
+
+        // Menor distancia primero; a igualdad, menos ciudades y después orden de índices, para que
+        // el resultado no dependa del orden en que terminan los hilos
+        @Override
+        public int compareTo(Candidata otra) {
+            if (distancia != otra.distancia) return Integer.compare(distancia, otra.distancia);
+            if (ciudades.length != otra.ciudades.length) return Integer.compare(ciudades.length, otra.ciudades.length);
+            return Arrays.compare(ciudades, otra.ciudades);
+        }
+
+        @Override
+        public boolean equals(Object otro) {
+            return otro instanceof Candidata && Arrays.equals(ciudades, ((Candidata) otro).ciudades);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(ciudades);
+        }
+    }
+
+    private RutasAlternativas() {
+    }
+
+    // Hasta k rutas de origen a destino (origen != destino), de menor a mayor distancia. cotas[x] es la
+    // distancia de x al destino en el grafo completo (INF si no llega); null la calcula aquí
+    static List<Candidata> calcular(ListaAdyacencia g, int clima, int origen, int destino, int k, int[] cotas) {
+        if (cotas == null) cotas = distanciasHasta(g, clima, destino);
+        List<Candidata> rutas = new ArrayList<>();
+        if (cotas[origen] == INF) return rutas;
+        int base = clima * g.m;
+        Candidata primera = ESPACIOS.get().desvio(g, base, cotas, new int[]{origen}, 0, destino, INF,
+                new int[0], 0);
+        rutas.add(primera);
+
+        PriorityQueue<Candidata> candidatas = new PriorityQueue<>();
+        Set<Candidata> vistas = new HashSet<>();
+        vistas.add(primera);
+        int[] cotasFinales = cotas;
+        while (rutas.size() < k) {
+            Candidata anterior = rutas.get(rutas.size() - 1);
+            int[] camino = anterior.ciudades;
+            int[] costeRaiz = new int[camino.length];
+            for (int i = 1; i < camino.length; i++)
+                costeRaiz[i] = costeRaiz[i - 1] + g.pesos[base + g.arista(camino[i - 1], camino[i])];
+
+            // Una candidata que cueste más que la que ocuparía el último puesto libre ya no entra
+            int limite = limite(candidatas, k - rutas.size());
+            Candidata[] desvios = new Candidata[camino.length - 1];
+            IntStream tramos = IntStream.range(0, camino.length - 1);
+            if (camino.length > 2) tramos = tramos.parallel();
+            tramos.forEach(i -> {
+                if ((long) costeRaiz[i] + cotasFinales[camino[i]] > limite) return;
+                int[] bloqueadas = aristasUsadas(g, rutas, camino, i);
+                desvios[i] = ESPACIOS.get().desvio(g, base, cotasFinales, camino, i, destino, limite,
+                        bloqueadas, costeRaiz[i]);
+            });
+            for (Candidata desvio : desvios)
+                if (desvio != null && vistas.add(desvio)) candidatas.add(desvio);
+            if (candidatas.isEmpty()) break;
+            rutas.add(candidatas.poll());
+        }
+        return rutas;
+    }
+
+    // Distancia de la candidata que quedaría en el puesto número libres de las que faltan (INF si no hay tantas)
+    private static int limite(PriorityQueue<Candidata> candidatas, int libres) {
+        if (candidatas.size() < libres) return INF;
+        Candidata[] ordenadas = candidatas.toArray(new Candidata[0]);
+        Arrays.sort(ordenadas);
+        return ordenadas[libres - 1].distancia;
+    }
+
+    // Aristas que salen de la ciudad camino[i] en las rutas ya elegidas que empiezan igual que camino[0..i]
+    private static int[] aristasUsadas(ListaAdyacencia g, List<Candidata> rutas, int[] camino, int i) {
+        int[] aristas = new int[rutas.size()];
+        int total = 0;
+        for (Candidata ruta : rutas) {
+            int[] otra = ruta.ciudades;
+            if (otra.length > i + 1 && Arrays.equals(otra, 0, i + 1, camino, 0, i + 1))
+                aristas[total++] = g.arista(otra[i], otra[i + 1]);
+        }
+        return Arrays.copyOf(aristas, total);
+    }
+
+    // Dijkstra hacia atrás desde el destino por el índice inverso: distancia de cada ciudad al destino
+    static int[] distanciasHasta(ListaAdyacencia g, int clima, int destino) {
+        int base = clima * g.m;
+        int[] distancia = new int[g.n];
+        Arrays.fill(distancia, INF);
+        MonticuloBinario monticulo = new MonticuloBinario(g.n);
+        distancia[destino] = 0;
+        monticulo.insertarODisminuir(destino, 0);
+        while (!monticulo.vacio()) {
+            int v = monticulo.extraerMinimo();
+            for (int p = g.inicioInverso[v]; p < g.inicioInverso[v + 1]; p++) {
+                int w = g.pesos[base + g.aristaInversa[p]];
+                if (w == INF) continue;
+                int u = g.origenInverso[p];
+                long suma = (long) distancia[v] + w;
+                if (suma < INF && suma < distancia[u]) {
+                    distancia[u] = (int) suma;
+                    monticulo.insertarODisminuir(u, distancia[u]);
+                }
+            }
+        }
+        return distancia;
+    }
+
+    // Arreglos de un A* que se reutilizan entre desvíos; una celda solo vale si su marca es la versión actual
+    private static final class Espacio {
+        private int[] distancia = new int[0];
+        private int[] predecesor = new int[0];
+        private int[] marca = new int[0];
+        private int[] bloqueada = new int[0];
+        private int[] aristaBloqueada = new int[0];
+        private int version = 0;
+        private final MonticuloBinario monticulo = new MonticuloBinario(0);
+
+        private void preparar(int n, int m) {
+            if (distancia.length < n || aristaBloqueada.length < m) {
+                distancia = new int[Math.max(n, distancia.length)];
+                predecesor = new int[distancia.length];
+                marca = new int[distancia.length];
+                bloqueada = new int[distancia.length];
+                aristaBloqueada = new int[Math.max(m, aristaBloqueada.length)];
+                version = 0;
+            }
+            monticulo.asegurarCapacidad(n);
+            monticulo.vaciar();
+            if (++version == Integer.MAX_VALUE) {
+                Arrays.fill(marca, 0);
+                Arrays.fill(bloqueada, 0);
+                Arrays.fill(aristaBloqueada, 0);
+                version = 1;
+            }
+        }
+
+        // Ruta camino[0..i] seguida del camino más corto de camino[i] al destino que no pasa por
+        // camino[0..i-1] ni por las aristas bloqueadas, si su distancia total no supera limite
+        Candidata desvio(ListaAdyacencia g, int base, int[] cotas, int[] camino, int i, int destino, int limite,
+                         int[] aristas, int costeRaiz) {
+            preparar(g.n, g.m);
+            for (int p = 0; p < i; p++) bloqueada[camino[p]] = version;
+            for (int e : aristas) aristaBloqueada[e] = version;
+            int desde = camino[i];
+            long margen = (long) limite - costeRaiz;
+            distancia[desde] = 0;
+            predecesor[desde] = -1;
+            marca[desde] = version;
+            monticulo.insertarODisminuir(desde, cotas[desde]);
+
+            // Con una heurística consistente cada ciudad se asienta una sola vez, como en Dijkstra
+            boolean encontrado = false;
+            while (!monticulo.vacio()) {
+                int u = monticulo.extraerMinimo();
+                if (u == destino) {
+                    encontrado = true;
+                    break;
+                }
+                int du = distancia[u];
+                for (int e = g.inicio[u]; e < g.inicio[u + 1]; e++) {
+                    int w = g.pesos[base + e];
+                    if (w == INF || aristaBloqueada[e] == version) continue;
+                    int v = g.destino[e];
+                    if (bloqueada[v] == version || v == desde || cotas[v] == INF) continue;
+                    long suma = (long) du + w;
+                    if (suma >= INF) continue;
+                    int candidato = (int) suma;
+                    if ((long) candidato + cotas[v] > margen) continue;
+                    if (marca[v] != version || candidato < distancia[v]) {
+                        distancia[v] = candidato;
+                        predecesor[v] = u;
+                        marca[v] = version;
+                        monticulo.insertarODisminuir(v, (long) candidato + cotas[v]);
+                    }
+                }
+            }
+            if (!encontrado) return null;
+
+            int saltos = 0;
+            for (int v = destino; v != desde; v = predecesor[v]) saltos++;
+            int[] ciudades = Arrays.copyOf(camino, i + 1 + saltos);
+            int p = ciudades.length;
+            for (int v = destino; v != desde; v = predecesor[v]) ciudades[--p] = v;
+            return new Candidata(ciudades, costeRaiz + distancia[destino]);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package Datos;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Servidor HTTP de consultas sin interfaz gráfica, sobre com.sun.net.httpserver:
+//   GET  /distancia?origen=A&destino=B      {"origen":"A","destino":"B","distancia":20}   (-1 = sin ruta)
+//   GET  /ruta?origen=A&destino=B           {"distancia":20,"camino":["A","B","C"]}
+//   GET  /alternativas?origen=A&destino=C&k=3
+//                                           {"rutas":[{"distancia":20,"camino":["A","B","C"]},...]}
+//                                           (k entre 1 y ALTERNATIVAS_MAX)
+//   GET  /centro                            {"centro":"A","mediana":"B"}
+//   GET  /clima                             {"clima":0,"temperatura":null}
+//   POST /clima?valor=2 o ?temperatura=3.5  cambia el clima y responde como GET /clima (temperatura finita)
+//   GET  /metricas                          volcado de texto de MetricasGrafo
+//   POST /lote[?rutas=1]                    cuerpo con un par "origen destino" por línea; responde una línea
+//                                           "origen destino distancia [ciudades del camino...]" por par
+// Cada petición lee un único estado del grafo, así que todas las respuestas de un lote son coherentes.
+// Las peticiones se atienden en hilos virtuales si la JVM los tiene (Java 21+) y si no en un pool de hilos.
+// No hay autenticación y POST /clima cambia el grafo, así que por defecto solo escucha en la interfaz local
+public class ServidorRutas {
+    // Máximo de rutas por petición a /alternativas: cada una es una iteración de Yen con sus desvíos,
+    // así que sin límite una sola petición podría ocupar el servidor
+    public static final int ALTERNATIVAS_MAX = 20;
+
+    private final Grafo grafo;
+    private final HttpServer servidor;
+    private final ExecutorService hilos;
+
+    // Escucha solo en la interfaz local (127.0.0.1)
+    public ServidorRutas(Grafo grafo, int puerto) throws IOException {
+        this(grafo, puerto, false);
+    }
+
+    // Con todasLasInterfaces escucha también en las interfaces de red, accesible para cualquiera que llegue al puerto
+    public ServidorRutas(Grafo grafo, int puerto, boolean todasLasInterfaces) throws IOException {
+        this.grafo = grafo;
+        InetSocketAddress direccion = todasLasInterfaces
+                ? new InetSocketAddress(puerto)
+                : new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto);
+        this.servidor = HttpServer.create(direccion, 0);
+        this.hilos = crearEjecutor();
+        servidor.setExecutor(hilos);
+        servidor.createContext("/distancia", e -> atender(e, this::distancia));
+        servidor.createContext("/ruta", e -> atender(e, this::ruta));
+        servidor.createContext("/alternativas", e -> atender(e, this::alternativas));
+        servidor.createContext("/centro", e -> atender(e, this::centro));
+        servidor.createContext("/clima", e -> atender(e, this::clima));
+        servidor.createContext("/lote", e -> atender(e, this::lote));
+        servidor.createContext("/metricas", e -> atender(e, this::metricas));
+    }
+
+    // Un hilo virtual por petición cuando existe Executors.newVirtualThreadPerTaskExecutor;
+    // se busca por reflexión para seguir compilando y funcionando en Java 17
+    private static ExecutorService crearEjecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(tarea -> {
+                Thread hilo = new Thread(tarea, "servidor-rutas");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    // Deja de aceptar peticiones, espera como mucho segundos a las que están en curso y libera los hilos
+    public void detener(int segundos) {
+        servidor.stop(segundos);
+        hilos.shutdown();
+    }
+
+    // Puerto en el que escucha (útil si se creó con el puerto 0)
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    // Respuesta de un manejador: código HTTP, tipo de contenido y cuerpo
+    private static final class Respuesta {
+        final int codigo;
+        final String tipo;
+        final String cuerpo;
+
+        Respuesta(int codigo, String tipo, String cuerpo) {
+            this.codigo = codigo;
+            this.tipo = tipo;
+            this.cuerpo = cuerpo;
+        }
+
+        static Respuesta json(String cuerpo) {
+            return new Respuesta(200, "application/json; charset=utf-8", cuerpo);
+        }
+
+        static Respuesta error(int codigo, String mensaje) {
+            return new Respuesta(codigo, "application/json; charset=utf-8", "{\"error\":" + textoJson(mensaje) + "}");
+        }
+    }
+
+    private static final class CiudadDesconocida extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CiudadDesconocida(String nombre) {
+            super("La ciudad " + nombre + " no existe en el grafo");
+        }
+    }
+
+    // Índice de la ciudad en el estado; si no existe la respuesta será 404
+    private static int ciudad(GrafoSnapshot estado, String nombre) {
+        int indice = estado.getIndice(nombre);
+        if (indice < 0) throw new CiudadDesconocida(nombre);
+        return indice;
+    }
+
+    private interface Manejador {
+        Respuesta atender(HttpExchange intercambio, Map<String, String> parametros) throws IOException;
+    }
+
+    // Siempre responde y cierra el intercambio, para que el cliente no se quede esperando
+    private static void atender(HttpExchange intercambio, Manejador manejador) throws IOException {
+        try {
+            Respuesta respuesta;
+            try {
+                respuesta = manejador.atender(intercambio, parametros(intercambio.getRequestURI().getRawQuery()));
+            } catch (CiudadDesconocida e) {
+                respuesta = Respuesta.error(404, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                // Parámetro ausente o con formato incorrecto
+                respuesta = Respuesta.error(400, String.valueOf(e.getMessage()));
+            } catch (RuntimeException | IOException e) {
+                // Incluye los errores al leer el cuerpo de la petición
+                respuesta = Respuesta.error(500, String.valueOf(e));
+            }
+            byte[] cuerpo = respuesta.cuerpo.getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().set("Content-Type", respuesta.tipo);
+            intercambio.sendResponseHeaders(respuesta.codigo, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    private Respuesta distancia(HttpExchange intercambio, Map<String, String> parametros) {
+        if (!metodo(intercambio, "GET")) return Respuesta.error(405, "Use GET");
+        String origen = requerido(parametros, "origen");
+        String destino = requerido(parametros, "destino");
+        GrafoSnapshot estado = grafo.snapshot();
+        long inicio = System.nanoTime();
+        int distancia = estado.getDistancia(ciudad(estado, origen), ciudad(estado, destino));
+        grafo.getMetricas().registrarDistancia(System.nanoTime() - inicio);
+        return Respuesta.json("{\"origen\":" + textoJson(origen) + ",\"destino\":" + textoJson(destino)
+                + ",\"distancia\":" + distancia + "}");
+    }
+
+    private Respuesta ruta(HttpExchange intercambio, Map<String, String> parametros) {
+        if (!metodo(intercambio, "GET")) return Respuesta.error(405, "Use GET");
+        GrafoSnapshot estado = grafo.snapshot();
+        int origen = ciudad(estado, requerido(parametros, "origen"));
+        int destino = ciudad(estado, requerido(parametros, "destino"));
+        BufferRuta buffer = new BufferRuta();
+        StringBuilder json = new StringBuilder("{\"distancia\":");
+        long inicio = System.nanoTime();
+        boolean hayRuta = estado.caminoMasCorto(origen, destino, buffer);
+        grafo.getMetricas().registrarCamino(System.nanoTime() - inicio);
+        if (!hayRuta) return Respuesta.json(json.append("-1,\"camino\":[]}").toString());
+        json.append(buffer.getDistancia()).append(",\"camino\":[");
+        for (int k = 0; k < buffer.getLongitud(); k++) {
+            if (k > 0) json.append(',');
+            json.append(textoJson(estado.getCiudad(buffer.getCiudad(k)).getNombre()));
+        }
+        return Respuesta.json(json.append("]}").toString());
+    }
+
+    private Respuesta alternativas(HttpExchange intercambio, Map<String, String> parametros) {
+        if (!metodo(intercambio, "GET")) return Respuesta.error(405, "Use GET");
+        GrafoSnapshot estado = grafo.snapshot();
+        if (!estado.tieneConsultasTemporales()) {
+            grafo.prepararConsultasTemporales();
+            estado = grafo.snapshot();
+        }
+        int origen = ciudad(estado, requerido(parametros, "origen"));
+        int destino = ciudad(estado, requerido(parametros, "destino"));
+        int k = Integer.parseInt(parametros.getOrDefault("k", "3"));
+        if (k < 1 || k > ALTERNATIVAS_MAX)
+            throw new IllegalArgumentException("k debe estar entre 1 y " + ALTERNATIVAS_MAX);
+        long inicio = System.nanoTime();
+        List<RutaAlternativa> rutas = estado.rutasAlternativas(origen, destino, k);
+        grafo.getMetricas().registrarCamino(System.nanoTime() - inicio);
+        StringBuilder json = new StringBuilder("{\"rutas\":[");
+        for (int r = 0; r < rutas.size(); r++) {
+            if (r > 0) json.append(',');
+            json.append("{\"distancia\":").append(rutas.get(r).getDistancia()).append(",\"camino\":[");
+            List<String> camino = rutas.get(r).getCamino();
+            for (int c = 0; c < camino.size(); c++) {
+                if (c > 0) json.append(',');
+                json.append(textoJson(camino.get(c)));
+            }
+            json.append("]}");
+        }
+        return Respuesta.json(json.append("]}").toString());
+    }
+
+    private Respuesta centro(HttpExchange intercambio, Map<String, String> parametros) {
+        if (!metodo(intercambio, "GET")) return Respuesta.error(405, "Use GET");
+        GrafoSnapshot estado = grafo.snapshot();
+        long inicio = System.nanoTime();
+        String centro = estado.centroDelGrafo();
+        String mediana = estado.medianaDelGrafo();
+        grafo.getMetricas().registrarCentro(System.nanoTime() - inicio);
+        return Respuesta.json("{\"centro\":" + textoJson(centro) + ",\"mediana\":" + textoJson(mediana) + "}");
+    }
+
+    private Respuesta clima(HttpExchange intercambio, Map<String, String> parametros) {
+        if (metodo(intercambio, "POST")) {
+            if (parametros.containsKey("temperatura")) {
+                // parseDouble acepta NaN e Infinity, que no eligen un clima con sentido ni caben en JSON
+                double temperatura = Double.parseDouble(parametros.get("temperatura"));
+                if (!Double.isFinite(temperatura))
+                    throw new IllegalArgumentException("La temperatura debe ser un número finito");
+                grafo.establecerClimaPorTemperatura(temperatura);
+            } else {
+                int clima = Integer.parseInt(requerido(parametros, "valor"));
+                if (clima < 0 || clima > 3) throw new IllegalArgumentException("El clima debe estar entre 0 y 3");
+                grafo.establecerClima(clima);
+            }
+        } else if (!metodo(intercambio, "GET")) {
+            return Respuesta.error(405, "Use GET o POST");
+        }
+        GrafoSnapshot estado = grafo.snapshot();
+        return Respuesta.json("{\"clima\":" + estado.getClima() + ",\"temperatura\":" + estado.getTemperatura() + "}");
+    }
+
+    private Respuesta metricas(HttpExchange intercambio, Map<String, String> parametros) {
+        if (!metodo(intercambio, "GET")) return Respuesta.error(405, "Use GET");
+        return new Respuesta(200, "text/plain; charset=utf-8", grafo.getMetricas().volcarTexto());
+    }
+
+    private Respuesta lote(HttpExchange intercambio, Map<String, String> parametros) throws IOException {
+        if (!metodo(intercambio, "POST")) return Respuesta.error(405, "Use POST");
+        boolean rutas = "1".equals(parametros.get("rutas"));
+        GrafoSnapshot estado = grafo.snapshot();
+        BufferRuta buffer = new BufferRuta();
+        StringBuilder salida = new StringBuilder();
+        try (BufferedReader lector = new BufferedReader(
+                new InputStreamReader(intercambio.getRequestBody(), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                String[] par = linea.trim().split("\\s+");
+                if (par.length == 1 && par[0].isEmpty()) continue;
+                if (par.length != 2) throw new IllegalArgumentException("Se esperaba \"origen destino\": " + linea);
+                int origen = ciudad(estado, par[0]);
+                int destino = ciudad(estado, par[1]);
+                salida.append(par[0]).append(' ').append(par[1]).append(' ');
+                if (!rutas) {
+                    salida.append(estado.getDistancia(origen, destino)).append('\n');
+                    continue;
+                }
+                if (!estado.caminoMasCorto(origen, destino, buffer)) {
+                    salida.append("-1\n");
+                    continue;
+                }
+                salida.append(buffer.getDistancia());
+                for (int k = 0; k < buffer.getLongitud(); k++)
+                    salida.append(' ').append(estado.getCiudad(buffer.getCiudad(k)).getNombre());
+                salida.append('\n');
+            }
+        }
+        return new Respuesta(200, "text/plain; charset=utf-8", salida.toString());
+    }
+
+    private static boolean metodo(HttpExchange intercambio, String metodo) {
+        return intercambio.getRequestMethod().equalsIgnoreCase(metodo);
+    }
+
+    private static String requerido(Map<String, String> parametros, String nombre) {
+        String valor = parametros.get(nombre);
+        if (valor == null || valor.isEmpty()) throw new IllegalArgumentException("Falta el parámetro " + nombre);
+        return valor;
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null) return parametros;
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual <= 0) continue;
+            parametros.put(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                    URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private static String textoJson(String valor) {
+        if (valor == null) return "null";
+        StringBuilder json = new StringBuilder("\"");
+        for (int k = 0; k < valor.length(); k++) {
+            char c = valor.charAt(k);
+            if (c == '"' || c == '\\') json.append('\\').append(c);
+            else if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+            else json.append(c);
+        }
+        return json.append('"').toString();
+    }
+}
@@ -0,0 +1,216 @@
+package Datos;
+
+import java.util.Arrays;
+
+// Distancias mínimas y rutas (predecesores) calculadas para una capa de clima de la matriz de pesos
+class TablaRutas {
+    // Valor que representa infinito, igual al usado por Grafo
+    static final int INF = Integer.MAX_VALUE / 2;
+
+    // Matriz de distancias mínimas calculadas por Floyd
+    final MatrizDensa distancias;
+
+    // Matriz que permite reconstruir el camino más corto
+    final MatrizDensa rutas;
+
+    // Momento del último uso, para descartar las capas frías cuando falta memoria
+    long ultimoUso;
+
+    // Una vez publicada en un GrafoSnapshot la tabla ya no se modifica: los cambios se hacen sobre una copia
+    boolean publicada;
+
+    // Excentricidades, centro y mediana, actualizados junto con las filas que cambian
+    private Centralidad centralidad;
+
+    private TablaRutas(MatrizDensa distancias, MatrizDensa rutas) {
+        this.distancias = distancias;
+        this.rutas = rutas;
+    }
+
+    // Rutas más cortas entre todos los pares de una capa, calculadas con el motor indicado
+    static TablaRutas calcular(MatrizPesos pesos, int clima, MotorRutas motor) {
+        int n = pesos.n();
+        MatrizDensa distancias = new MatrizDensa(n, INF);
+        MatrizDensa rutas = new MatrizDensa(n, -1);
+        int[] d = distancias.datos;
+        int[] r = rutas.datos;
+        int s = distancias.capacidad;
+
+        // Inicializa matrices de distancias y rutas
+        for (int i = 0; i < n; i++) {
+            pesos.copiarFila(clima, i, d, i * s);
+            for (int j = 0; j < n; j++)
+                r[i * s + j] = (i == j || d[i * s + j] == INF) ? -1 : i;
+        }
+
+        // Aplica la fórmula de Floyd
+        motor.calcular(d, r, n, s);
+        TablaRutas tabla = new TablaRutas(distancias, rutas);
+        tabla.calcularCentralidad();
+        return tabla;
+    }
+
+    // Tabla sin calcular (todo INF y -1), para llenarla desde fuera, por ejemplo desde un archivo binario.
+    // Después de llenarla hay que llamar a calcularCentralidad()
+    static TablaRutas vacia(int n) {
+        return new TablaRutas(new MatrizDensa(n, INF), new MatrizDensa(n, -1));
+    }
+
+    // Resume todas las filas de distancias, O(n²)
+    void calcularCentralidad() {
+        int n = distancias.n;
+        centralidad = new Centralidad(n);
+        for (int i = 0; i < n; i++)
+            centralidad.fijarFila(i, distancias.datos, distancias.inicioFila(i));
+        centralidad.ordenar();
+    }
+
+    Centralidad centralidad() {
+        return centralidad;
+    }
+
+    // Bytes que ocupa una tabla de n ciudades (distancias + rutas)
+    static long bytesPorTabla(int n) {
+        return 2L * n * n * Integer.BYTES;
+    }
+
+    // Tabla ampliada para ciudades nuevas sin conexiones: sus filas y columnas quedan en INF y -1,
+    // que es justo lo que calcularía Floyd. Las celdas existentes no cambian, así que los lectores
+    // de la tabla publicada no se ven afectados aunque se reutilicen las mismas matrices
+    TablaRutas ampliada(int n) {
+        MatrizDensa nuevasDistancias = distancias.ampliada(n);
+        MatrizDensa nuevasRutas = rutas.ampliada(n);
+        TablaRutas nueva = new TablaRutas(nuevasDistancias, nuevasRutas);
+        nueva.centralidad = centralidad.ampliada(n);
+        nueva.ultimoUso = ultimoUso;
+        // Si comparte las matrices con una tabla publicada tampoco se puede modificar
+        nueva.publicada = publicada && nuevasDistancias == distancias;
+        return nueva;
+    }
+
+    // Copia modificable de la tabla
+    TablaRutas copia() {
+        TablaRutas nueva = new TablaRutas(distancias.copia(), rutas.copia());
+        nueva.centralidad = centralidad.copia();
+        nueva.ultimoUso = ultimoUso;
+        return nueva;
+    }
+
+    int distancia(int i, int j) {
+        return distancias.get(i, j);
+    }
+
+    int ruta(int i, int j) {
+        return rutas.get(i, j);
+    }
+
+    // Actualiza la tabla tras cambiar el peso de la arista u -> v sin recalcular Floyd completo.
+    // pesos ya debe tener el peso nuevo. Los resultados coinciden con calcular().
+    // Devuelve false si hay que recalcular (pesos negativos en el clima)
+    boolean actualizarArista(MatrizPesos pesos, int clima, int u, int v, int pesoAnterior, int pesoNuevo) {
+        if (pesoNuevo == pesoAnterior) return true;
+        // Dijkstra no admite pesos negativos, ni en esta arista ni en ninguna otra del clima:
+        // en ese caso se recurre al cálculo completo
+        if (pesoNuevo < 0 || pesoAnterior < 0 || pesos.tieneNegativos(clima)) return false;
+        if (pesoNuevo < pesoAnterior)
+            relajarArista(u, v, pesoNuevo);
+        else
+            recalcularFilasAfectadas(pesos, clima, u, v, pesoAnterior);
+        return true;
+    }
+
+    // La arista bajó de peso (o es nueva): basta relajar cada par a través de ella, O(n²)
+    private void relajarArista(int u, int v, int peso) {
+        int n = distancias.n;
+        int s = distancias.capacidad;
+        int[] d = distancias.datos;
+        int[] r = rutas.datos;
+
+        // Copia la columna u y la fila v antes de modificar la matriz.
+        // Se usa 0 para el camino vacío (i == u, j == v); la diagonal guarda el ciclo más corto
+        int[] hastaU = new int[n];
+        for (int i = 0; i < n; i++)
+            hastaU[i] = (i == u) ? 0 : d[i * s + u];
+        int[] desdeV = Arrays.copyOfRange(d, v * s, v * s + n);
+        int[] rutasDesdeV = Arrays.copyOfRange(r, v * s, v * s + n);
+        desdeV[v] = 0;
+
+        // Las sumas van en long: tres tramos por debajo de INF pueden pasar de Integer.MAX_VALUE
+        for (int i = 0; i < n; i++) {
+            if (hastaU[i] == INF) continue;
+            long base = (long) hastaU[i] + peso;
+            int filaI = i * s;
+            boolean cambio = false;
+            for (int j = 0; j < n; j++) {
+                if (desdeV[j] == INF) continue;
+                long candidato = base + desdeV[j];
+                if (candidato < d[filaI + j]) {
+                    d[filaI + j] = (int) candidato;
+                    r[filaI + j] = (j == v) ? u : rutasDesdeV[j];
+                    cambio = true;
+                }
+            }
+            if (cambio) centralidad.actualizarFila(i, d, filaI);
+        }
+    }
+
+    // La arista subió de peso (o se eliminó): solo cambian las filas de los orígenes
+    // cuyo camino más corto pasaba por ella; esas filas se recalculan con Dijkstra
+    private void recalcularFilasAfectadas(MatrizPesos pesos, int clima, int u, int v, int pesoAnterior) {
+        if (pesoAnterior == INF) return;
+        int n = distancias.n;
+        for (int i = 0; i < n; i++) {
+            int hastaU = (i == u) ? 0 : distancias.get(i, u);
+            if (hastaU != INF && (long) hastaU + pesoAnterior == distancias.get(i, v)) {
+                dijkstraFila(pesos, clima, i);
+                centralidad.actualizarFila(i, distancias.datos, distancias.inicioFila(i));
+            }
+        }
+    }
+
+    // Dijkstra denso O(n²) desde un origen, con la misma convención que Floyd:
+    // la diagonal guarda el ciclo más corto que vuelve al origen (INF si no hay)
+    private void dijkstraFila(MatrizPesos pesos, int clima, int origen) {
+        int n = distancias.n;
+        int[] d = distancias.datos;
+        int[] r = rutas.datos;
+        int inicio = distancias.inicioFila(origen);
+        int[] fila = new int[n];
+        boolean[] visitado = new boolean[n];
+        Arrays.fill(d, inicio, inicio + n, INF);
+        Arrays.fill(r, inicio, inicio + n, -1);
+
+        int ciclo = INF;
+        int predCiclo = -1;
+        int actual = origen;
+        int distActual = 0;
+        while (actual != -1) {
+            visitado[actual] = true;
+            pesos.copiarFila(clima, actual, fila, 0);
+            for (int j = 0; j < n; j++) {
+                if (fila[j] == INF) continue;
+                long candidato = (long) distActual + fila[j];
+                if (j == origen) {
+                    if (candidato < ciclo) {
+                        ciclo = (int) candidato;
+                        predCiclo = actual;
+                    }
+                } else if (!visitado[j] && candidato < d[inicio + j]) {
+                    d[inicio + j] = (int) candidato;
+                    r[inicio + j] = actual;
+                }
+            }
+
+            // Siguiente ciudad no visitada con menor distancia
+            actual = -1;
+            distActual = INF;
+            for (int j = 0; j < n; j++)
+                if (!visitado[j] && d[inicio + j] < distActual) {
+                    distActual = d[inicio + j];
+                    actual = j;
+                }
+        }
+        d[inicio + origen] = ciclo;
+        r[inicio + origen] = predCiclo;
+    }
+}